@@ -0,0 +1,53 @@
+package fr.snasello.datas.es;
+
+import java.util.List;
+
+/**
+ * The document used by the benchmarks.
+ * 
+ * @author Samuel Nasello
+ */
+public class BenchObject implements Identifiable {
+
+	private String id;
+	
+	private String name;
+	
+	private long timestamp;
+	
+	private List<String> tags;
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	@Override
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public void setTimestamp(long timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	public List<String> getTags() {
+		return tags;
+	}
+
+	public void setTags(List<String> tags) {
+		this.tags = tags;
+	}
+}
@@ -0,0 +1,103 @@
+package fr.snasello.datas.es;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Build of the bulk requests, split into chunks and merge of the responses.
+ * 
+ * @author Samuel Nasello
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BulkRequestBenchmark {
+
+	@Param({"100", "5000"})
+	private int size;
+	
+	private RestHighLevelClient esClient;
+	
+	private ElasticSearchRepository repository;
+	
+	private List<BenchObject> objects;
+	
+	private BulkRequest bulkRequest;
+	
+	private List<BulkResponse> chunkResponses;
+	
+	private BulkSettings settings;
+	
+	@Setup
+	public void setup() {
+		esClient = Fixtures.esClient();
+		repository = Fixtures.repository(esClient);
+		objects = Fixtures.objects(size);
+		settings = new BulkSettings(500, 5L * 1024 * 1024, 1);
+		bulkRequest = jsonBulkRequest();
+		chunkResponses = new ArrayList<>();
+		for (int i = 0; i < size; i += 500) {
+			chunkResponses.add(Fixtures.bulkResponse(Math.min(500, size - i)));
+		}
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException {
+		esClient.close();
+	}
+	
+	@Benchmark
+	public BulkRequest jsonBulkRequest() {
+		BulkRequest request = new BulkRequest();
+		for (BenchObject object : objects) {
+			request.add(repository.buildIndexRequest(object.getId(), Fixtures.GSON.toJson(object)));
+		}
+		return request;
+	}
+	
+	@Benchmark
+	public BulkRequest documentWriterBulkRequest() throws IOException {
+		DocumentWriter<BenchObject> writer = Fixtures.documentWriter();
+		BulkRequest request = new BulkRequest();
+		for (BenchObject object : objects) {
+			BytesStreamOutput out = new BytesStreamOutput();
+			writer.write(object, out);
+			BytesReference source = out.bytes();
+			request.add(repository.buildIndexRequest(object.getId(), source));
+		}
+		return request;
+	}
+	
+	@Benchmark
+	public List<BulkRequest> split() {
+		return BulkChunks.split(bulkRequest, settings);
+	}
+	
+	@Benchmark
+	public BulkResponse merge() {
+		return BulkChunks.merge(chunkResponses);
+	}
+}
@@ -0,0 +1,130 @@
+package fr.snasello.datas.es;
+
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.http.HttpHost;
+import org.elasticsearch.action.DocWriteRequest.OpType;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+
+import com.google.gson.Gson;
+
+/**
+ * Canned objects and responses, the benchmarks run offline without elasticsearch.
+ * 
+ * @author Samuel Nasello
+ */
+final class Fixtures {
+
+	static final String INDEX = "bench-index";
+	
+	static final String TYPE = "BenchType";
+	
+	static final Gson GSON = new Gson();
+	
+	private static final long START = TimeUnit.DAYS.toMillis(17897);
+	
+	private Fixtures() {
+		
+	}
+	
+	/**
+	 * A client never connected, requests are only built.
+	 */
+	static RestHighLevelClient esClient() {
+		return new RestHighLevelClient(RestClient.builder(new HttpHost("localhost", 9200, "http")));
+	}
+	
+	static ElasticSearchRepository repository(RestHighLevelClient esClient) {
+		return new ElasticSearchRepository(esClient, () -> INDEX, () -> INDEX, TYPE, false);
+	}
+	
+	static List<BenchObject> objects(int count) {
+		List<BenchObject> objects = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			BenchObject object = new BenchObject();
+			object.setId(Integer.toString(i));
+			object.setName("name of the object " + i);
+			object.setTimestamp(START + TimeUnit.MINUTES.toMillis(i));
+			object.setTags(Arrays.asList("tag" + (i % 10), "tag" + (i % 7), "benchmark"));
+			objects.add(object);
+		}
+		return objects;
+	}
+	
+	static SearchHit[] hits(int count) {
+		List<BenchObject> objects = objects(count);
+		SearchHit[] hits = new SearchHit[count];
+		for (int i = 0; i < count; i++) {
+			BenchObject object = objects.get(i);
+			SearchHit hit = new SearchHit(i, object.getId(), new Text(TYPE), Collections.emptyMap());
+			hit.sourceRef(new BytesArray(GSON.toJson(object)));
+			hits[i] = hit;
+		}
+		return hits;
+	}
+	
+	static SearchResponse searchResponse(int count) {
+		SearchHits searchHits = new SearchHits(hits(count), count * 10L, 1f);
+		InternalSearchResponse internalResponse = new InternalSearchResponse(searchHits, null, null, null, false, null, 1);
+		return new SearchResponse(internalResponse, null, 5, 5, 0, 12, ShardSearchFailure.EMPTY_ARRAY, SearchResponse.Clusters.EMPTY);
+	}
+	
+	static BulkResponse bulkResponse(int count) {
+		BulkItemResponse[] items = new BulkItemResponse[count];
+		ShardId shardId = new ShardId(INDEX, "_na_", 0);
+		for (int i = 0; i < count; i++) {
+			IndexResponse response = new IndexResponse(shardId, TYPE, Integer.toString(i), i, 1, 1, true);
+			items[i] = new BulkItemResponse(i, OpType.INDEX, response);
+		}
+		return new BulkResponse(items, 25);
+	}
+	
+	static Function<BenchObject, String> jsonMapper() {
+		return GSON::toJson;
+	}
+	
+	static DocumentWriter<BenchObject> documentWriter() {
+		return (object, out) -> {
+			Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+			GSON.toJson(object, writer);
+			writer.flush();
+		};
+	}
+	
+	static Function<SearchHit, BenchObject> hitMapper() {
+		return hit -> {
+			BenchObject object = GSON.fromJson(hit.getSourceAsString(), BenchObject.class);
+			object.setId(hit.getId());
+			return object;
+		};
+	}
+	
+	static DocumentReader<BenchObject> documentReader() {
+		return (id, source) -> {
+			BenchObject object = GSON.fromJson(new InputStreamReader(source.streamInput(), StandardCharsets.UTF_8), BenchObject.class);
+			object.setId(id);
+			return object;
+		};
+	}
+}
@@ -0,0 +1,84 @@
+package fr.snasello.datas.es;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.SearchHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.snasello.datas.model.Page;
+import fr.snasello.datas.model.PageData;
+
+/**
+ * Mapping of the search hits into objects.
+ * 
+ * @author Samuel Nasello
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HitMappingBenchmark {
+
+	@Param({"10", "1000"})
+	private int size;
+	
+	private RestHighLevelClient esClient;
+	
+	private ElasticSearchRepository repository;
+	
+	private SearchResponse response;
+	
+	private Page page;
+	
+	private Function<SearchHit, BenchObject> stringMapper;
+	
+	private Function<SearchHit, BenchObject> readerMapper;
+	
+	@Setup
+	public void setup() {
+		esClient = Fixtures.esClient();
+		repository = Fixtures.repository(esClient);
+		response = Fixtures.searchResponse(size);
+		page = Page.firstPageWithLimit(size);
+		stringMapper = Fixtures.hitMapper();
+		readerMapper = DocumentReader.hitMapper(Fixtures.documentReader());
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException {
+		esClient.close();
+	}
+	
+	@Benchmark
+	public List<BenchObject> sourceAsString() {
+		return repository.toDatas(response.getHits().getHits(), stringMapper);
+	}
+	
+	@Benchmark
+	public List<BenchObject> documentReader() {
+		return repository.toDatas(response.getHits().getHits(), readerMapper);
+	}
+	
+	@Benchmark
+	public PageData<BenchObject> toPageData() {
+		return repository.toPageData(response, page, readerMapper);
+	}
+}
@@ -0,0 +1,83 @@
+package fr.snasello.datas.es;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Resolution of the index names, called for each write.
+ * 
+ * @author Samuel Nasello
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class IndexNameSupplierBenchmark {
+
+	private static final String PREFIX = "bench-";
+	
+	private static final String PATTERN = "yyyy.MM.dd";
+	
+	private Supplier<String> dailySupplier;
+	
+	private Function<BenchObject, String> dailyRouter;
+	
+	private List<BenchObject> objects;
+	
+	private int next;
+	
+	@Setup
+	public void setup() {
+		dailySupplier = IndexNameSupplierFactory.dailyIndexNameSupplier(PREFIX);
+		dailyRouter = IndexNameSupplierFactory.indexNameRouter(PREFIX, PATTERN, BenchObject::getTimestamp);
+		objects = Fixtures.objects(4096);
+	}
+	
+	/**
+	 * Baseline, the name formatted on each call as before the cache.
+	 */
+	@Benchmark
+	public String formatEachCall() {
+		return PREFIX + LocalDate.now(ZoneOffset.UTC).format(DateTimeFormatter.ofPattern(PATTERN));
+	}
+	
+	@Benchmark
+	public String cachedSupplier() {
+		return dailySupplier.get();
+	}
+	
+	@Benchmark
+	public String router() {
+		BenchObject object = objects.get(next);
+		next = (next + 1) & 4095;
+		return dailyRouter.apply(object);
+	}
+	
+	@Benchmark
+	public void indexNamesOfMonth(Blackhole blackhole) {
+		BenchObject first = objects.get(0);
+		blackhole.consume(IndexNameSupplierFactory.indexNames(PREFIX, PATTERN, 
+				Instant.ofEpochMilli(first.getTimestamp()), 
+				Instant.ofEpochMilli(first.getTimestamp() + TimeUnit.DAYS.toMillis(30))));
+	}
+}
@@ -0,0 +1,78 @@
+package fr.snasello.datas.es;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.snasello.datas.model.Page;
+import fr.snasello.datas.model.PageData;
+import fr.snasello.datas.model.Sort;
+import fr.snasello.datas.model.SortDirection;
+
+/**
+ * Translation of the page and sorts into a search request, and mapping of a page.
+ * 
+ * @author Samuel Nasello
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PageDataBenchmark {
+
+	private RestHighLevelClient esClient;
+	
+	private ElasticSearchRepository repository;
+	
+	private QueryBuilder queryBuilder;
+	
+	private Page page;
+	
+	private List<Sort> sorts;
+	
+	private PageData<BenchObject> pageData;
+	
+	@Setup
+	public void setup() {
+		esClient = Fixtures.esClient();
+		repository = Fixtures.repository(esClient);
+		queryBuilder = QueryBuilders.termQuery("tags", "tag1");
+		page = new Page(100, 50);
+		sorts = Arrays.asList(new Sort("timestamp", SortDirection.DSC), new Sort("name", SortDirection.ASC));
+		pageData = new PageData<>(page, 1000L, Fixtures.objects(50));
+	}
+	
+	@TearDown
+	public void tearDown() throws IOException {
+		esClient.close();
+	}
+	
+	@Benchmark
+	public SearchRequest buildPageSearchRequest() {
+		return repository.buildPageSearchRequest(queryBuilder, page, sorts, Projection.ALL);
+	}
+	
+	@Benchmark
+	public PageData<String> map() {
+		return pageData.map(BenchObject::getName);
+	}
+}
@@ -0,0 +1,116 @@
+package fr.snasello.datas.es;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+
+/**
+ * Internal use for sending the chunks of a bulk, sequentially or with a limited number of chunks in flight.
+ * 
+ * @author Samuel Nasello
+ */
+class BulkChunkExecutor {
+
+	private final RestHighLevelClient esClient;
+	
+	private final Semaphore inFlight;
+	
+	private final boolean sequential;
+	
+	private final List<CompletableFuture<BulkResponse>> responses;
+	
+	public BulkChunkExecutor(RestHighLevelClient esClient, BulkSettings settings) {
+		super();
+		
+		Objects.requireNonNull(esClient);
+		Objects.requireNonNull(settings);
+		
+		this.esClient = esClient;
+		this.inFlight = new Semaphore(settings.getConcurrency());
+		this.sequential = settings.getConcurrency() == 1;
+		this.responses = new ArrayList<>();
+	}
+	
+	/**
+	 * Send a chunk, block while the maximum of chunks in flight is reached.
+	 * @param chunk the chunk
+	 * @throws IOException io probleme with elasticsearch
+	 */
+	public void submit(
+			final BulkRequest chunk) 
+		throws IOException {
+		
+		if(sequential) {
+			responses.add(CompletableFuture.completedFuture(esClient.bulk(chunk)));
+			return;
+		}
+		
+		try {
+			inFlight.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting to send a bulk");
+		}
+		CompletableFuture<BulkResponse> response = new CompletableFuture<>();
+		responses.add(response);
+		esClient.bulkAsync(chunk, new ActionListener<BulkResponse>() {
+			@Override
+			public void onResponse(BulkResponse bulkResponse) {
+				inFlight.release();
+				response.complete(bulkResponse);
+			}
+			
+			@Override
+			public void onFailure(Exception e) {
+				inFlight.release();
+				response.completeExceptionally(e);
+			}
+		});
+	}
+	
+	/**
+	 * Wait for all chunks and merge the responses.
+	 * @return the merged response
+	 * @throws IOException io probleme with elasticsearch
+	 */
+	public BulkResponse complete() 
+		throws IOException {
+		
+		List<BulkResponse> bulkResponses = new ArrayList<>(responses.size());
+		for (CompletableFuture<BulkResponse> response : responses) {
+			bulkResponses.add(get(response));
+		}
+		return BulkChunks.merge(bulkResponses);
+	}
+	
+	private BulkResponse get(
+			final CompletableFuture<BulkResponse> response) 
+		throws IOException {
+		
+		try {
+			return response.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting a bulk response");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+}
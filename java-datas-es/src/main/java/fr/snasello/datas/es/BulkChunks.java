@@ -0,0 +1,171 @@
+package fr.snasello.datas.es;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+
+/**
+ * Internal use for splitting a bulk request into chunks and merging the responses.
+ * 
+ * @author Samuel Nasello
+ */
+final class BulkChunks {
+
+	// the overhead of an action in BulkRequest.estimatedSizeInBytes()
+	private static final long REQUEST_OVERHEAD = 50;
+	
+	private BulkChunks() {
+		
+	}
+	
+	/**
+	 * Split a bulk request, the request itself is returned if it is under the limits.
+	 * @param bulkRequest the bulk request
+	 * @param settings the limits
+	 * @return the chunks, in the same order as the actions
+	 */
+	static List<BulkRequest> split(
+			final BulkRequest bulkRequest,
+			final BulkSettings settings) {
+		
+		if(bulkRequest.numberOfActions() <= settings.getMaxActions() 
+				&& bulkRequest.estimatedSizeInBytes() <= settings.getMaxBytes()) {
+			return Collections.singletonList(bulkRequest);
+		}
+		
+		List<BulkRequest> chunks = new ArrayList<>();
+		BulkRequest chunk = newChunk(bulkRequest);
+		for (DocWriteRequest<?> request : bulkRequest.requests()) {
+			if(isFull(chunk, request, settings)) {
+				chunks.add(chunk);
+				chunk = newChunk(bulkRequest);
+			}
+			chunk.add(request);
+		}
+		if(chunk.numberOfActions() > 0) {
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+	
+	/**
+	 * Is a chunk full for a next request, checked before adding the request so the chunk stays under the limits.
+	 * A request larger than the maximum size is alone in its chunk.
+	 * @param chunk the chunk
+	 * @param next the next request
+	 * @param settings the limits
+	 * @return true if the next request must go in a new chunk
+	 */
+	static boolean isFull(
+			final BulkRequest chunk,
+			final DocWriteRequest<?> next,
+			final BulkSettings settings) {
+		
+		return chunk.numberOfActions() > 0
+				&& (chunk.numberOfActions() >= settings.getMaxActions()
+					|| chunk.estimatedSizeInBytes() + estimatedSizeInBytes(next) > settings.getMaxBytes());
+	}
+	
+	/**
+	 * The estimated size of a request in a bulk, close to the estimate of {@code BulkRequest}: 
+	 * the sources plus a constant overhead, without building a bulk request.
+	 * @param request the request
+	 * @return the size in bytes
+	 */
+	static long estimatedSizeInBytes(
+			final DocWriteRequest<?> request) {
+		
+		long size = REQUEST_OVERHEAD;
+		if(request instanceof IndexRequest) {
+			IndexRequest indexRequest = (IndexRequest) request;
+			if(indexRequest.source() != null) {
+				size += indexRequest.source().length();
+			}
+		}else if(request instanceof UpdateRequest) {
+			UpdateRequest updateRequest = (UpdateRequest) request;
+			if(updateRequest.doc() != null) {
+				size += updateRequest.doc().source().length();
+			}
+			if(updateRequest.upsertRequest() != null) {
+				size += updateRequest.upsertRequest().source().length();
+			}
+		}
+		return size;
+	}
+	
+	/**
+	 * Build a bulk request with some actions of another one.
+	 * @param bulkRequest the bulk request
+	 * @param positions the positions of the actions to keep
+	 * @return the new bulk request
+	 */
+	static BulkRequest subset(
+			final BulkRequest bulkRequest,
+			final List<Integer> positions) {
+		
+		BulkRequest subset = newChunk(bulkRequest);
+		@SuppressWarnings("rawtypes")
+		List<? extends DocWriteRequest> requests = bulkRequest.requests();
+		for (Integer position : positions) {
+			subset.add(requests.get(position));
+		}
+		return subset;
+	}
+	
+	/**
+	 * Merge the responses of the chunks, item ids are the position in the original bulk request
+	 * and took is the sum of the took of each chunk.
+	 * @param responses the responses in the same order as the chunks
+	 * @return the merged response
+	 */
+	static BulkResponse merge(
+			final List<BulkResponse> responses) {
+		
+		if(responses.size() == 1) {
+			return responses.get(0);
+		}
+		
+		List<BulkItemResponse> items = new ArrayList<>();
+		long took = 0;
+		int offset = 0;
+		for (BulkResponse response : responses) {
+			for (BulkItemResponse item : response.getItems()) {
+				items.add(withItemId(item, offset + item.getItemId()));
+			}
+			offset += response.getItems().length;
+			took += response.getTook().millis();
+		}
+		return new BulkResponse(items.toArray(new BulkItemResponse[items.size()]), took);
+	}
+	
+	static BulkItemResponse withItemId(
+			final BulkItemResponse item,
+			final int itemId) {
+		
+		if(item.getItemId() == itemId) {
+			return item;
+		}
+		if(item.isFailed()) {
+			return new BulkItemResponse(itemId, item.getOpType(), item.getFailure());
+		}
+		return new BulkItemResponse(itemId, item.getOpType(), item.<DocWriteResponse>getResponse());
+	}
+	
+	private static BulkRequest newChunk(
+			final BulkRequest bulkRequest) {
+		
+		BulkRequest chunk = new BulkRequest();
+		chunk.setRefreshPolicy(bulkRequest.getRefreshPolicy());
+		chunk.timeout(bulkRequest.timeout());
+		chunk.waitForActiveShards(bulkRequest.waitForActiveShards());
+		return chunk;
+	}
+}
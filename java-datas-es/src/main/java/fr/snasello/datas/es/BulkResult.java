@@ -0,0 +1,75 @@
+package fr.snasello.datas.es;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+
+/**
+ * Result of a bulk executed with retries.
+ * 
+ * <p>The response contains the last result of each item, with the item id equals to the position 
+ * in the original bulk request. The failures are the items still failed after the retries.</p>
+ * 
+ * @author Samuel Nasello
+ */
+public class BulkResult {
+
+	private final BulkResponse response;
+	
+	private final List<BulkItemResponse> failures;
+	
+	private final int attempts;
+
+	/**
+	 * Constructor.
+	 * @param response the merged response
+	 * @param failures the permanent failures
+	 * @param attempts the number of bulk executed
+	 * @throws NullPointerException if {@code response} or {@code failures} is null
+	 */
+	public BulkResult(BulkResponse response, List<BulkItemResponse> failures, int attempts) {
+		super();
+		
+		Objects.requireNonNull(response);
+		Objects.requireNonNull(failures);
+		
+		this.response = response;
+		this.failures = failures;
+		this.attempts = attempts;
+	}
+
+	/**
+	 * the merged response.
+	 * @return the response
+	 */
+	public BulkResponse getResponse() {
+		return response;
+	}
+
+	/**
+	 * the items still failed after the retries.
+	 * @return the permanent failures
+	 */
+	public List<BulkItemResponse> getFailures() {
+		return failures;
+	}
+	
+	/**
+	 * has permanent failures.
+	 * @return true if at least one item failed
+	 */
+	public boolean hasFailures() {
+		return !failures.isEmpty();
+	}
+
+	/**
+	 * the number of bulk executed, 1 if there was no retry.
+	 * @return the attempts
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+	
+}
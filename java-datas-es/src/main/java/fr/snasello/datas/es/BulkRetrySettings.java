@@ -0,0 +1,85 @@
+package fr.snasello.datas.es;
+
+/**
+ * Define how the rejected items of a bulk are retried.
+ * 
+ * <p>The delay before the retry {@code n} (starting at 0) is a random value between 0 and
+ * {@code min(maxDelayMillis, initialDelayMillis * 2^n)} (exponential backoff with full jitter).
+ * No retry is started after the time budget.</p>
+ * 
+ * @author Samuel Nasello
+ */
+public class BulkRetrySettings {
+
+	/**
+	 * Default settings : 50ms initial delay, 5s max delay, 1 minute budget.
+	 */
+	public static final BulkRetrySettings DEFAULT = new BulkRetrySettings(50, 5000, 60000);
+	
+	private final long initialDelayMillis;
+	
+	private final long maxDelayMillis;
+	
+	private final long timeBudgetMillis;
+
+	/**
+	 * Constructor.
+	 * @param initialDelayMillis the delay before the first retry
+	 * @param maxDelayMillis the maximum delay between two retries
+	 * @param timeBudgetMillis the total time budget 
+	 * @throws IllegalArgumentException if a value is lower than 0 or {@code maxDelayMillis} lower than {@code initialDelayMillis}
+	 */
+	public BulkRetrySettings(long initialDelayMillis, long maxDelayMillis, long timeBudgetMillis) {
+		super();
+		
+		if(initialDelayMillis < 0 || timeBudgetMillis < 0 || maxDelayMillis < initialDelayMillis) {
+			throw new IllegalArgumentException("invalid retry settings");
+		}
+		
+		this.initialDelayMillis = initialDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+		this.timeBudgetMillis = timeBudgetMillis;
+	}
+	
+	/**
+	 * Compute the delay before a retry.
+	 * @param retry the retry number, starting at 0
+	 * @param random a random value between 0 and 1
+	 * @return the delay in milliseconds
+	 */
+	long delayMillis(
+			final int retry,
+			final double random) {
+		
+		long maxForRetry = maxDelayMillis;
+		if(retry < 62 && initialDelayMillis <= (maxDelayMillis >> retry)) {
+			maxForRetry = initialDelayMillis << retry;
+		}
+		return (long) (maxForRetry * random);
+	}
+
+	/**
+	 * the delay before the first retry.
+	 * @return the initial delay
+	 */
+	public long getInitialDelayMillis() {
+		return initialDelayMillis;
+	}
+
+	/**
+	 * the maximum delay between two retries.
+	 * @return the maximum delay
+	 */
+	public long getMaxDelayMillis() {
+		return maxDelayMillis;
+	}
+
+	/**
+	 * the total time budget.
+	 * @return the time budget
+	 */
+	public long getTimeBudgetMillis() {
+		return timeBudgetMillis;
+	}
+	
+}
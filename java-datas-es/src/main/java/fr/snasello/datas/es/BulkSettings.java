@@ -0,0 +1,67 @@
+package fr.snasello.datas.es;
+
+/**
+ * Define how a bulk request is split into chunks.
+ * 
+ * <p>A chunk is closed when it reach the maximum number of actions or the maximum estimated size in bytes.
+ * Chunks are sent with at most {@code concurrency} requests in flight, 1 means sequentially.</p>
+ * 
+ * @author Samuel Nasello
+ */
+public class BulkSettings {
+
+	/**
+	 * Default settings : 1000 actions, 5mb, sequentially.
+	 */
+	public static final BulkSettings DEFAULT = new BulkSettings(1000, 5L * 1024 * 1024, 1);
+	
+	private final int maxActions;
+	
+	private final long maxBytes;
+	
+	private final int concurrency;
+
+	/**
+	 * Constructor.
+	 * @param maxActions the maximum number of actions in a chunk
+	 * @param maxBytes the maximum estimated size in bytes of a chunk
+	 * @param concurrency the maximum number of chunks in flight
+	 * @throws IllegalArgumentException if a value is lower than 1
+	 */
+	public BulkSettings(int maxActions, long maxBytes, int concurrency) {
+		super();
+		
+		if(maxActions < 1 || maxBytes < 1 || concurrency < 1) {
+			throw new IllegalArgumentException("bulk settings must be greater than 0");
+		}
+		
+		this.maxActions = maxActions;
+		this.maxBytes = maxBytes;
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * the maximum number of actions in a chunk.
+	 * @return the maximum number of actions
+	 */
+	public int getMaxActions() {
+		return maxActions;
+	}
+
+	/**
+	 * the maximum estimated size in bytes of a chunk.
+	 * @return the maximum size in bytes
+	 */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * the maximum number of chunks in flight.
+	 * @return the concurrency
+	 */
+	public int getConcurrency() {
+		return concurrency;
+	}
+	
+}
@@ -0,0 +1,110 @@
+package fr.snasello.datas.es;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+
+/**
+ * A repository with a read through cache on {@link #getById(String, Function)}.
+ * 
+ * <p>Only the realtime get is cached, {@code searchById} is near realtime and could put a document 
+ * older than the last write in the cache, it always reads elasticsearch. 
+ * The overloads with a {@code Projection}, {@code getByIds} and the async methods are not cached either, 
+ * they read elasticsearch directly.</p>
+ * 
+ * <p>The raw {@code GetResponse} is cached, so the mapper is still applied on each read.
+ * A document is removed from the cache on each write by this repository (save, update, delete, bulk), 
+ * writes from other repositories or applications are only seen after the time to live. 
+ * The copies made by {@code searchOnIndices}, {@code withRefreshSettings} and {@code withRetryOnConflict} 
+ * share the cache of this repository.</p>
+ * 
+ * <p>A document is cached with the index it was read from, after a rollover of {@code indexNameIndex} 
+ * the documents read from the previous index are a miss.</p>
+ * 
+ * @author Samuel Nasello
+ */
+public class CachingElasticSearchRepository extends ElasticSearchRepository {
+
+	private final IdCache<GetResponse> getCache;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param esClient the {@code RestHighLevelClient}
+	 * @param indexNameIndex the {@code Supplier} for indexing operation
+	 * @param indexNameSearch the {@code Supplier} for search operation
+	 * @param typeName the type name
+	 * @param immediate if in realtime or not
+	 * @param bulkSettings how bulk requests are split into chunks
+	 * @param cacheMaxSize the maximum number of documents in the cache
+	 * @param cacheTtlMillis the time to live of a document in the cache
+	 * @throws NullPointerException if {@code esClient}, {@code indexNameIndex}, 
+	 * {@code indexNameSearch}, {@code typeName} or {@code bulkSettings} is null
+	 * @throws IllegalArgumentException if {@code cacheMaxSize} or {@code cacheTtlMillis} is lower than 1
+	 */
+	public CachingElasticSearchRepository(RestHighLevelClient esClient, Supplier<String> indexNameIndex,
+			Supplier<String> indexNameSearch, String typeName, boolean immediate, BulkSettings bulkSettings,
+			int cacheMaxSize, long cacheTtlMillis) {
+		super(esClient, indexNameIndex, indexNameSearch, typeName, immediate, bulkSettings);
+		
+		this.getCache = new IdCache<>(cacheMaxSize, cacheTtlMillis);
+	}
+	
+	private CachingElasticSearchRepository(CachingElasticSearchRepository repository, String[] searchIndices, 
+			RefreshSettings refreshSettings, int retryOnConflict) {
+		super(repository, searchIndices, refreshSettings, retryOnConflict);
+		
+		// the copies share the cache, a write by a copy invalidates the documents read by the others
+		this.getCache = repository.getCache;
+	}
+	
+	@Override
+	protected CachingElasticSearchRepository copy(
+			final String[] searchIndices,
+			final RefreshSettings refreshSettings,
+			final int retryOnConflict) {
+		
+		return new CachingElasticSearchRepository(this, searchIndices, refreshSettings, retryOnConflict);
+	}
+
+	@Override
+	public <E> Optional<E> getById(
+			final String id,
+			final Function<GetResponse, E> getMapper)
+		throws IOException {
+		
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(getMapper);
+		
+		String index = indexNameIndex.get();
+		Optional<GetResponse> cached = getCache.get(id, index);
+		if(cached.isPresent()) {
+			return cached.map(getMapper);
+		}
+		long stamp = getCache.stamp();
+		Optional<GetResponse> response = super.getById(id, Function.identity());
+		// on a rollover during the read, the index is the previous one and the next get is a miss
+		response.ifPresent(r -> getCache.put(id, index, r, stamp));
+		return response.map(getMapper);
+	}
+	
+	@Override
+	protected void onWrite(
+			final String id) {
+		
+		getCache.invalidate(id);
+	}
+	
+	/**
+	 * the cache of {@code getById}, for statistics or invalidation.
+	 * @return the cache
+	 */
+	public IdCache<GetResponse> getGetCache() {
+		return getCache;
+	}
+}
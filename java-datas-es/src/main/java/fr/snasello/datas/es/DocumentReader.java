@@ -0,0 +1,79 @@
+package fr.snasello.datas.es;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.search.SearchHit;
+
+/**
+ * Read a object from the raw bytes of the {@code _source}, without intermediate {@code String}.
+ *
+ * <p>The bytes are the ones of the response, a streaming parser can read them with
+ * {@code source.streamInput()}.</p>
+ * <p>Use {@link #hitMapper(DocumentReader)} or {@link #getMapper(DocumentReader)} to use it with
+ * the search and get operations of {@link ElasticSearchRepository}.</p>
+ *
+ * @author Samuel Nasello
+ *
+ * @param <E> the type of object to read
+ */
+@FunctionalInterface
+public interface DocumentReader<E> {
+
+	/**
+	 * read the object.
+	 * @param id the id of the document
+	 * @param source the {@code _source} json, null if the source is not returned
+	 * @return the object
+	 * @throws IOException if the source cannot be read
+	 */
+	E read(String id, BytesReference source) throws IOException;
+
+	/**
+	 * Mapper of {@code SearchHit} reading the source bytes,
+	 * an {@code IOException} of the reader is thrown as {@code UncheckedIOException}.
+	 * @param reader the reader
+	 * @param <E> the type of object to read
+	 * @return the mapper
+	 * @throws NullPointerException if {@code reader} is null
+	 */
+	static <E> Function<SearchHit, E> hitMapper(
+			final DocumentReader<E> reader) {
+
+		Objects.requireNonNull(reader);
+
+		return hit -> {
+			try {
+				return reader.read(hit.getId(), hit.getSourceRef());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
+	}
+
+	/**
+	 * Mapper of {@code GetResponse} reading the source bytes,
+	 * an {@code IOException} of the reader is thrown as {@code UncheckedIOException}.
+	 * @param reader the reader
+	 * @param <E> the type of object to read
+	 * @return the mapper
+	 * @throws NullPointerException if {@code reader} is null
+	 */
+	static <E> Function<GetResponse, E> getMapper(
+			final DocumentReader<E> reader) {
+
+		Objects.requireNonNull(reader);
+
+		return response -> {
+			try {
+				return reader.read(response.getId(), response.getSourceAsBytesRef());
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
+	}
+}
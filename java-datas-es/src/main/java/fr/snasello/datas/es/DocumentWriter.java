@@ -0,0 +1,25 @@
+package fr.snasello.datas.es;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Write a object as json directly into the bytes of the request, without intermediate {@code String}.
+ *
+ * <p>An {@code XContentBuilder} can be used with {@code XContentFactory.jsonBuilder(out)}.</p>
+ *
+ * @author Samuel Nasello
+ *
+ * @param <E> the type of object to write
+ */
+@FunctionalInterface
+public interface DocumentWriter<E> {
+
+	/**
+	 * write the object as json (UTF-8).
+	 * @param object the object
+	 * @param out the stream of the request source, must not be closed
+	 * @throws IOException if the object cannot be written
+	 */
+	void write(E object, OutputStream out) throws IOException;
+}
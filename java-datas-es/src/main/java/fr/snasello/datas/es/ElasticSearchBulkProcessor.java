@@ -0,0 +1,350 @@
+package fr.snasello.datas.es;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+
+/**
+ * Collect individual index, update and delete operations and send them with bulk requests
+ * through {@link ElasticSearchRepository#executeBulk(BulkRequest)}.
+ *
+ * <p>The pending bulk is flushed when it reach the maximum number of actions, the maximum estimated size
+ * in bytes, or when the flush interval is elapsed.</p>
+ * <p>At most {@code concurrentRequests} bulks are in flight, when all are used the caller is blocked
+ * until one is finished (backpressure). With {@code concurrentRequests} at 0, bulks are executed
+ * in the caller thread.</p>
+ * <p>The processor must be closed to send the last pending operations, 
+ * its threads are daemon threads and do not keep the JVM alive.</p>
+ *
+ * @author Samuel Nasello
+ */
+public class ElasticSearchBulkProcessor implements Closeable {
+
+	/**
+	 * Listener called after each bulk execution.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called after a bulk was executed, the response can contain item failures.
+		 * @param bulkRequest the bulk request
+		 * @param bulkResponse the bulk response
+		 */
+		default void afterBulk(BulkRequest bulkRequest, BulkResponse bulkResponse) {
+		}
+
+		/**
+		 * Called when a bulk execution failed.
+		 * @param bulkRequest the bulk request
+		 * @param failure the failure
+		 */
+		default void afterBulk(BulkRequest bulkRequest, Exception failure) {
+		}
+
+		/**
+		 * Called when a flush on the interval failed, the next flushes are still scheduled.
+		 * @param failure the failure, thrown by the listener or the executor
+		 */
+		default void afterScheduledFlush(RuntimeException failure) {
+		}
+	}
+
+	private final ElasticSearchRepository repository;
+
+	private final int maxActions;
+
+	private final long maxBytes;
+
+	private final Listener listener;
+
+	private final Semaphore inFlight;
+
+	private final ExecutorService executor;
+
+	private final ScheduledExecutorService scheduler;
+
+	private final ScheduledFuture<?> scheduledFlush;
+
+	private BulkRequest bulkRequest;
+
+	private boolean closed;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param repository the repository used to execute bulks
+	 * @param maxActions the maximum number of actions in a bulk, 0 to disable
+	 * @param maxBytes the maximum estimated size in bytes of a bulk, 0 to disable
+	 * @param flushIntervalMillis the interval in milliseconds to flush the pending bulk, 0 to disable
+	 * @param concurrentRequests the maximum number of bulks in flight, 0 to execute in the caller thread
+	 * @param listener the listener called after each bulk
+	 * @throws NullPointerException if {@code repository} or {@code listener} is null
+	 * @throws IllegalArgumentException if a threshold is negative
+	 */
+	public ElasticSearchBulkProcessor(
+			final ElasticSearchRepository repository,
+			final int maxActions,
+			final long maxBytes,
+			final long flushIntervalMillis,
+			final int concurrentRequests,
+			final Listener listener) {
+		super();
+
+		Objects.requireNonNull(repository);
+		Objects.requireNonNull(listener);
+		if(maxActions < 0 || maxBytes < 0 || flushIntervalMillis < 0 || concurrentRequests < 0) {
+			throw new IllegalArgumentException("thresholds must be positive");
+		}
+
+		this.repository = repository;
+		this.maxActions = maxActions;
+		this.maxBytes = maxBytes;
+		this.listener = listener;
+		this.inFlight = new Semaphore(Math.max(concurrentRequests, 1));
+		this.executor = concurrentRequests > 0 ? Executors.newFixedThreadPool(concurrentRequests, daemonThreads("elasticsearch-bulk-processor")) : null;
+		this.bulkRequest = new BulkRequest();
+		this.closed = false;
+		if(flushIntervalMillis > 0) {
+			this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("elasticsearch-bulk-processor-flush"));
+			this.scheduledFlush = scheduler.scheduleWithFixedDelay(
+					this::scheduledFlush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+		}else {
+			this.scheduler = null;
+			this.scheduledFlush = null;
+		}
+	}
+
+	/**
+	 * Add an index operation.
+	 * @param id id of the object, if null then a new object will be created
+	 * @param object the object
+	 * @param jsonMapper the mapper to convert into json
+	 * @param <E> the type of object to save
+	 * @return this processor
+	 * @throws NullPointerException if {@code object} or {@code jsonMapper} is null
+	 * @throws IllegalStateException if the processor is closed
+	 */
+	public <E> ElasticSearchBulkProcessor index(
+			final String id,
+			final E object,
+			final Function<E, String> jsonMapper) {
+
+		Objects.requireNonNull(object);
+		Objects.requireNonNull(jsonMapper);
+
+		return add(repository.buildIndexRequest(id, jsonMapper.apply(object)));
+	}
+
+	/**
+	 * Add a partial update operation.
+	 * @param id id of the object
+	 * @param doc the object to update
+	 * @param jsonMapper to convert into json
+	 * @param <E> the type of object to save
+	 * @return this processor
+	 * @throws NullPointerException if {@code id}, {@code doc} or {@code jsonMapper} is null
+	 * @throws IllegalStateException if the processor is closed
+	 */
+	public <E> ElasticSearchBulkProcessor update(
+			final String id,
+			final E doc,
+			final Function<E, String> jsonMapper) {
+
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(doc);
+		Objects.requireNonNull(jsonMapper);
+
+		return add(repository.buildUpdateRequest(id, jsonMapper.apply(doc)));
+	}
+
+	/**
+	 * Add a delete operation.
+	 * @param id id of the object to delete
+	 * @return this processor
+	 * @throws NullPointerException if {@code id} is null
+	 * @throws IllegalStateException if the processor is closed
+	 */
+	public ElasticSearchBulkProcessor delete(
+			final String id) {
+
+		Objects.requireNonNull(id);
+
+		return add(repository.buildDeleteRequest(id));
+	}
+
+	/**
+	 * Add an operation, the pending bulk is flushed if a threshold is reached.
+	 * @param request the operation
+	 * @return this processor
+	 * @throws NullPointerException if {@code request} is null
+	 * @throws IllegalStateException if the processor is closed
+	 */
+	public ElasticSearchBulkProcessor add(
+			final DocWriteRequest<?> request) {
+
+		Objects.requireNonNull(request);
+
+		BulkRequest toExecute = null;
+		synchronized (this) {
+			if(closed) {
+				throw new IllegalStateException("bulk processor is closed");
+			}
+			bulkRequest.add(request);
+			if(isThresholdReached()) {
+				toExecute = swapBulkRequest();
+			}
+		}
+		if(toExecute != null) {
+			execute(toExecute);
+		}
+		return this;
+	}
+
+	/**
+	 * Send the pending operations.
+	 */
+	public void flush() {
+		BulkRequest toExecute;
+		synchronized (this) {
+			if(closed || bulkRequest.numberOfActions() == 0) {
+				return;
+			}
+			toExecute = swapBulkRequest();
+		}
+		execute(toExecute);
+	}
+
+	private void scheduledFlush() {
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			// an exception would cancel the next flushes
+			listener.afterScheduledFlush(e);
+		}
+	}
+
+	/**
+	 * Flush the pending operations and wait for the bulks in flight.
+	 * @param timeout the maximum time to wait, for the scheduled flush and the bulks in flight
+	 * @param unit the unit of the timeout
+	 * @return true if all bulks are finished, false if the timeout elapsed
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public boolean awaitClose(
+			final long timeout,
+			final TimeUnit unit)
+		throws InterruptedException {
+
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (this) {
+			if(closed) {
+				return true;
+			}
+			closed = true;
+		}
+		if(scheduledFlush != null) {
+			scheduledFlush.cancel(false);
+			scheduler.shutdown();
+			scheduler.awaitTermination(remainingNanos(deadline), TimeUnit.NANOSECONDS);
+		}
+		BulkRequest toExecute = swapBulkRequest();
+		if(toExecute.numberOfActions() > 0) {
+			execute(toExecute);
+		}
+		if(executor != null) {
+			executor.shutdown();
+			return executor.awaitTermination(remainingNanos(deadline), TimeUnit.NANOSECONDS);
+		}
+		return true;
+	}
+
+	private static long remainingNanos(
+			final long deadline) {
+
+		// the difference is right even if the deadline overflowed
+		return Math.max(0, deadline - System.nanoTime());
+	}
+
+	private static ThreadFactory daemonThreads(
+			final String prefix) {
+
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * Flush the pending operations and wait for the bulks in flight.
+	 */
+	@Override
+	public void close() {
+		try {
+			awaitClose(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private boolean isThresholdReached() {
+		return (maxActions > 0 && bulkRequest.numberOfActions() >= maxActions)
+				|| (maxBytes > 0 && bulkRequest.estimatedSizeInBytes() >= maxBytes);
+	}
+
+	private synchronized BulkRequest swapBulkRequest() {
+		BulkRequest current = bulkRequest;
+		bulkRequest = new BulkRequest();
+		return current;
+	}
+
+	private void execute(
+			final BulkRequest toExecute) {
+
+		try {
+			inFlight.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			listener.afterBulk(toExecute, e);
+			return;
+		}
+		if(executor != null) {
+			executor.execute(() -> executeAndRelease(toExecute));
+		}else {
+			executeAndRelease(toExecute);
+		}
+	}
+
+	private void executeAndRelease(
+			final BulkRequest toExecute) {
+
+		try {
+			Optional<BulkResponse> response;
+			try {
+				response = repository.executeBulk(toExecute);
+			} catch (IOException | RuntimeException e) {
+				listener.afterBulk(toExecute, e);
+				return;
+			}
+			// outside of the try, a listener failure is not a bulk failure
+			response.ifPresent(r -> listener.afterBulk(toExecute, r));
+		} finally {
+			inFlight.release();
+		}
+	}
+}
@@ -1,43 +1,89 @@
 package fr.snasello.datas.es;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
 import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.ClearScrollRequest;
 import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchScrollRequest;
-import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.search.Scroll;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 
+import fr.snasello.datas.es.RepositoryMetrics.Operation;
+import fr.snasello.datas.es.ScrollIterator.ScrollFetcher;
+import fr.snasello.datas.model.CursorPage;
+import fr.snasello.datas.model.CursorPageData;
 import fr.snasello.datas.model.Page;
 import fr.snasello.datas.model.PageData;
 import fr.snasello.datas.model.Sort;
@@ -63,6 +109,13 @@ import fr.snasello.datas.model.SortDirection;
  */
 public class ElasticSearchRepository {
 
+	/**
+	 * Default number of ids by multi get request.
+	 */
+	public static final int DEFAULT_MULTI_GET_CHUNK_SIZE = 500;
+	
+	private static final Sort DEFAULT_TIEBREAKER = new Sort("_id", SortDirection.ASC);
+	
 	protected final RestHighLevelClient esClient;
 
 	protected final Supplier<String> indexNameIndex;
@@ -73,6 +126,18 @@ public class ElasticSearchRepository {
 	
 	protected final boolean immediate;
 	
+	protected final BulkSettings bulkSettings;
+	
+	protected final RepositoryMetrics metrics;
+	
+	protected final RefreshSettings refreshSettings;
+	
+	protected final int retryOnConflict;
+	
+	private final String[] searchIndices;
+	
+	private final GroupCommitRefresher groupCommitRefresher;
+	
 	// === save
 
 	/**
@@ -88,6 +153,44 @@ public class ElasticSearchRepository {
 	 */
 	public ElasticSearchRepository(RestHighLevelClient esClient, Supplier<String> indexNameIndex,
 			Supplier<String> indexNameSearch, String typeName, boolean immediate) {
+		
+		this(esClient, indexNameIndex, indexNameSearch, typeName, immediate, BulkSettings.DEFAULT);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param esClient the {@code RestHighLevelClient}
+	 * @param indexNameIndex the {@code Supplier} for indexing operation
+	 * @param indexNameSearch the {@code Supplier} for search operation
+	 * @param typeName the type name
+	 * @param immediate if in realtime or not
+	 * @param bulkSettings how bulk requests are split into chunks
+	 * @throws NullPointerException if {@code esClient}, {@code indexNameIndex}, 
+	 * {@code indexNameSearch}, {@code typeName} or {@code bulkSettings} is null
+	 */
+	public ElasticSearchRepository(RestHighLevelClient esClient, Supplier<String> indexNameIndex,
+			Supplier<String> indexNameSearch, String typeName, boolean immediate, BulkSettings bulkSettings) {
+		
+		this(esClient, indexNameIndex, indexNameSearch, typeName, immediate, bulkSettings, RepositoryMetrics.NOOP);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param esClient the {@code RestHighLevelClient}
+	 * @param indexNameIndex the {@code Supplier} for indexing operation
+	 * @param indexNameSearch the {@code Supplier} for search operation
+	 * @param typeName the type name
+	 * @param immediate if in realtime or not
+	 * @param bulkSettings how bulk requests are split into chunks
+	 * @param metrics the metrics of the operations
+	 * @throws NullPointerException if {@code esClient}, {@code indexNameIndex}, 
+	 * {@code indexNameSearch}, {@code typeName}, {@code bulkSettings} or {@code metrics} is null
+	 */
+	public ElasticSearchRepository(RestHighLevelClient esClient, Supplier<String> indexNameIndex,
+			Supplier<String> indexNameSearch, String typeName, boolean immediate, BulkSettings bulkSettings,
+			RepositoryMetrics metrics) {
 		super();
 		
 		Objects.requireNonNull(esClient);
@@ -95,12 +198,149 @@ public class ElasticSearchRepository {
 		Objects.requireNonNull(indexNameSearch);
 		Objects.requireNonNull(indexNameSearch);
 		Objects.requireNonNull(typeName);
+		Objects.requireNonNull(bulkSettings);
+		Objects.requireNonNull(metrics);
 		
 		this.esClient = esClient;
 		this.indexNameIndex = indexNameIndex;
 		this.indexNameSearch = indexNameSearch;
 		this.typeName = typeName;
 		this.immediate = immediate;
+		this.bulkSettings = bulkSettings;
+		this.metrics = metrics;
+		this.refreshSettings = RefreshSettings.IMMEDIATE;
+		this.retryOnConflict = 0;
+		this.searchIndices = null;
+		this.groupCommitRefresher = new GroupCommitRefresher(index -> esClient.indices().refresh(new RefreshRequest(index)));
+	}
+	
+	/**
+	 * Copy constructor, for the copies made by {@link #copy(String[], RefreshSettings, int)}.
+	 * 
+	 * @param repository the repository to copy
+	 * @param searchIndices the indices for search operation, null to search on {@code indexNameSearch}
+	 * @param refreshSettings the refresh settings
+	 * @param retryOnConflict the number of retries of an update on a version conflict
+	 * @throws NullPointerException if {@code repository} or {@code refreshSettings} is null
+	 */
+	protected ElasticSearchRepository(ElasticSearchRepository repository, String[] searchIndices, 
+			RefreshSettings refreshSettings, int retryOnConflict) {
+		super();
+		
+		Objects.requireNonNull(repository);
+		Objects.requireNonNull(refreshSettings);
+		
+		this.esClient = repository.esClient;
+		this.indexNameIndex = repository.indexNameIndex;
+		this.indexNameSearch = repository.indexNameSearch;
+		this.typeName = repository.typeName;
+		this.immediate = repository.immediate;
+		this.bulkSettings = repository.bulkSettings;
+		this.metrics = repository.metrics;
+		this.refreshSettings = refreshSettings;
+		this.retryOnConflict = retryOnConflict;
+		this.searchIndices = searchIndices == null ? null : searchIndices.clone();
+		// the copies share the windows of the group commit
+		this.groupCommitRefresher = repository.groupCommitRefresher;
+	}
+	
+	private static String[] checkSearchIndices(
+			final String[] searchIndices) {
+		
+		Objects.requireNonNull(searchIndices);
+		if(searchIndices.length == 0) {
+			throw new IllegalArgumentException("searchIndices cannot be empty");
+		}
+		return searchIndices;
+	}
+	
+	/**
+	 * Copy this repository, used by {@link #searchOnIndices(String...)}, {@link #withRefreshSettings(RefreshSettings)}
+	 * and {@link #withRetryOnConflict(int)}. A subclass overrides it to keep its type and its state in the copies.
+	 * @param searchIndices the indices for search operation, null to search on {@code indexNameSearch}
+	 * @param refreshSettings the refresh settings
+	 * @param retryOnConflict the number of retries of an update on a version conflict
+	 * @return the copy
+	 */
+	protected ElasticSearchRepository copy(
+			final String[] searchIndices,
+			final RefreshSettings refreshSettings,
+			final int retryOnConflict) {
+		
+		return new ElasticSearchRepository(this, searchIndices, refreshSettings, retryOnConflict);
+	}
+	
+	/**
+	 * A repository doing its search operations only on some indices, the missing indices are ignored.
+	 * The other operations are the same as this repository.
+	 * @param indices the indices
+	 * @return the repository
+	 * @throws NullPointerException if {@code indices} is null
+	 * @throws IllegalArgumentException if {@code indices} is empty
+	 */
+	public ElasticSearchRepository searchOnIndices(
+			final String... indices) {
+		
+		return copy(checkSearchIndices(indices), this.refreshSettings, this.retryOnConflict);
+	}
+	
+	/**
+	 * A repository doing its search operations only on the time based indices covering a time range,
+	 * the missing indices are ignored. The other operations are the same as this repository.
+	 * @param prefix the prefix of the index names
+	 * @param pattern the date pattern of the index names, see {@link IndexNameSupplierFactory}
+	 * @param from the start of the range, inclusive
+	 * @param to the end of the range, inclusive
+	 * @return the repository
+	 * @throws NullPointerException if {@code prefix}, {@code pattern}, {@code from} or {@code to} is null
+	 * @throws IllegalArgumentException if {@code from} is after {@code to}
+	 * @see IndexNameSupplierFactory#indexNames(String, String, Instant, Instant)
+	 */
+	public ElasticSearchRepository searchOnTimeRange(
+			final String prefix,
+			final String pattern,
+			final Instant from,
+			final Instant to) {
+		
+		Objects.requireNonNull(prefix);
+		Objects.requireNonNull(pattern);
+		
+		List<String> indices = IndexNameSupplierFactory.indexNames(prefix, pattern, from, to);
+		return searchOnIndices(indices.toArray(new String[indices.size()]));
+	}
+	
+	/**
+	 * A repository making its immediate writes visible as defined by the settings.
+	 * The other operations are the same as this repository.
+	 * <p>The group commit windows are shared by this repository and all its copies, 
+	 * not with a repository built separately.</p>
+	 * @param settings the refresh settings
+	 * @return the repository
+	 * @throws NullPointerException if {@code settings} is null
+	 * @see RefreshSettings
+	 */
+	public ElasticSearchRepository withRefreshSettings(
+			final RefreshSettings settings) {
+		
+		Objects.requireNonNull(settings);
+		
+		return copy(this.searchIndices, settings, this.retryOnConflict);
+	}
+	
+	/**
+	 * A repository retrying its updates on a version conflict, the update is done again on the last version
+	 * of the document by elasticsearch. The other operations are the same as this repository.
+	 * @param retries the number of retries, 0 for no retry
+	 * @return the repository
+	 * @throws IllegalArgumentException if {@code retries} is negative
+	 */
+	public ElasticSearchRepository withRetryOnConflict(
+			final int retries) {
+		
+		if(retries < 0) {
+			throw new IllegalArgumentException("retries cannot be negative : " + retries);
+		}
+		return copy(this.searchIndices, this.refreshSettings, retries);
 	}
 
 	/**
@@ -147,23 +387,147 @@ public class ElasticSearchRepository {
 		Objects.requireNonNull(jsonMapper);
 		
 		String json = jsonMapper.apply(object);
-		IndexResponse indexResponse = executeIndex(id, json, immediate);
+		IndexResponse indexResponse = executeIndex(buildIndexRequest(id, json), immediate);
 		
 		return indexResponse.getId();
 	}
 	
-	private IndexResponse executeIndex(
+	/**
+	 * Save an object in the index of the object, 
+	 * see {@link IndexNameSupplierFactory#dailyIndexNameRouter(String, java.util.function.ToLongFunction)}
+	 * @param id id of the object, if null then a new object will be created
+	 * @param object the object
+	 * @param indexRouter the index name of the object
+	 * @param jsonMapper the mapper to convert into json
+	 * @param <E> the type of object to save
+	 * @return the id
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code object}, {@code indexRouter} or {@code jsonMapper} is null
+	 */
+	public <E> String save(
+			final String id,
+			final E object,
+			final Function<E, String> indexRouter,
+			final Function<E, String> jsonMapper)
+		throws IOException {
+		
+		return save(id, object, this.immediate, indexRouter, jsonMapper);
+	}
+	
+	/**
+	 * Save an object in the index of the object, 
+	 * see {@link IndexNameSupplierFactory#dailyIndexNameRouter(String, java.util.function.ToLongFunction)}
+	 * @param id id of the object, if null then a new object will be created
+	 * @param object the object
+	 * @param immediate define if save in realtime or not
+	 * @param indexRouter the index name of the object
+	 * @param jsonMapper the mapper to convert into json
+	 * @param <E> the type of object to save
+	 * @return the id
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code object}, {@code indexRouter} or {@code jsonMapper} is null
+	 */
+	public <E> String save(
+			final String id,
+			final E object,
+			final boolean immediate,
+			final Function<E, String> indexRouter,
+			final Function<E, String> jsonMapper)
+		throws IOException {
+		
+		Objects.requireNonNull(object);
+		Objects.requireNonNull(indexRouter);
+		Objects.requireNonNull(jsonMapper);
+		
+		IndexRequest indexRequest = buildIndexRequest(indexRouter.apply(object), id, jsonMapper.apply(object));
+		IndexResponse indexResponse = executeIndex(indexRequest, immediate);
+		
+		return indexResponse.getId();
+	}
+	
+	/**
+	 * Save an object, the json is written directly into the request bytes.
+	 * @param id id of the object, if null then a new object will be created
+	 * @param object the object
+	 * @param documentWriter the writer of the json
+	 * @param <E> the type of object to save
+	 * @return the id
+     * @throws IOException io probleme with elasticsearch, or with the writer
+	 * @throws NullPointerException if {@code object} or {@code documentWriter} is null
+	 */
+	public <E> String saveDocument(
+			final String id,
+			final E object,
+			final DocumentWriter<E> documentWriter)
+		throws IOException {
+		
+		return saveDocument(id, object, this.immediate, documentWriter);
+	}
+	
+	/**
+	 * Save an object, the json is written directly into the request bytes.
+	 * @param id id of the object, if null then a new object will be created
+	 * @param object the object
+	 * @param immediate define if save in realtime or not
+	 * @param documentWriter the writer of the json
+	 * @param <E> the type of object to save
+	 * @return the id
+     * @throws IOException io probleme with elasticsearch, or with the writer
+	 * @throws NullPointerException if {@code object} or {@code documentWriter} is null
+	 */
+	public <E> String saveDocument(
 			final String id,
-			final String json, 
+			final E object,
+			final boolean immediate,
+			final DocumentWriter<E> documentWriter)
+		throws IOException {
+		
+		Objects.requireNonNull(object);
+		Objects.requireNonNull(documentWriter);
+		
+		BytesReference source = toBytes(object, documentWriter);
+		IndexResponse indexResponse = executeIndex(buildIndexRequest(id, source), immediate);
+		
+		return indexResponse.getId();
+	}
+	
+	private IndexResponse executeIndex(
+			final IndexRequest indexRequest, 
 			final boolean immediate) 
 		throws IOException {
 
-		IndexRequest indexRequest = new IndexRequest(this.indexNameIndex.get(), this.typeName, id);
-		indexRequest.source(json, XContentType.JSON);
-		if (immediate) {
-			indexRequest.setRefreshPolicy(RefreshPolicy.IMMEDIATE);
+		metrics.recordRequestBytes(Operation.SAVE, indexRequest.source().length());
+		try {
+			return awaitRefresh(timed(Operation.SAVE, () -> esClient.index(withRefresh(indexRequest, immediate))), immediate);
+		} finally {
+			onWrite(indexRequest.id());
 		}
-		return esClient.index(indexRequest);
+	}
+	
+	IndexRequest buildIndexRequest(
+			final String id,
+			final String json) {
+		
+		return buildIndexRequest(this.indexNameIndex.get(), id, json);
+	}
+	
+	IndexRequest buildIndexRequest(
+			final String indexName,
+			final String id,
+			final String json) {
+		
+		IndexRequest indexRequest = new IndexRequest(indexName, this.typeName, id);
+		indexRequest.source(json, XContentType.JSON);
+		return indexRequest;
+	}
+	
+	IndexRequest buildIndexRequest(
+			final String id,
+			final BytesReference source) {
+		
+		IndexRequest indexRequest = new IndexRequest(this.indexNameIndex.get(), this.typeName, id);
+		indexRequest.source(source, XContentType.JSON);
+		return indexRequest;
 	}
 	
 	// === update
@@ -211,70 +575,552 @@ public class ElasticSearchRepository {
 		Objects.requireNonNull(doc);
 		Objects.requireNonNull(jsonMapper);
 		
-		executeUpdate(id, jsonMapper.apply(doc), immediate);
+		executeUpdate(buildUpdateRequest(id, jsonMapper.apply(doc)), immediate);
 	}
 	
-	private UpdateResponse executeUpdate(
+	/**
+	 * Update an object, this is a partial update null value will not be save.
+	 * The json is written directly into the request bytes.
+	 * @param id id of the object
+	 * @param doc the object to update
+	 * @param documentWriter the writer of the json
+	 * @param <E> the type of object to save
+     * @throws IOException io probleme with elasticsearch, or with the writer
+	 * @throws NullPointerException if {@code id}, {@code doc} or {@code documentWriter} is null 
+	 */
+	public <E> void updateDocument(
+			final String id,
+			final E doc,
+			final DocumentWriter<E> documentWriter)
+		throws IOException {
+		
+		updateDocument(id, doc, this.immediate, documentWriter);
+	}
+	
+	/**
+	 * Update an object, this is a partial update null value will not be save.
+	 * The json is written directly into the request bytes.
+	 * @param id id of the object
+	 * @param doc the object to update
+	 * @param immediate define if update in realtime or not
+	 * @param documentWriter the writer of the json
+	 * @param <E> the type of object to save
+     * @throws IOException io probleme with elasticsearch, or with the writer
+	 * @throws NullPointerException if {@code id}, {@code doc} or {@code documentWriter} is null 
+	 */
+	public <E> void updateDocument(
 			final String id,
-			final String doc,
+			final E doc,
+			final boolean immediate,
+			final DocumentWriter<E> documentWriter)
+		throws IOException {
+		
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(doc);
+		Objects.requireNonNull(documentWriter);
+		
+		executeUpdate(buildUpdateRequest(id, toBytes(doc, documentWriter)), immediate);
+	}
+	
+	private UpdateResponse executeUpdate(
+			final UpdateRequest updateRequest,
 			final boolean immediate) 
 		throws IOException  {
 		
-		UpdateRequest updateRequest = new UpdateRequest(indexNameIndex.get(), typeName, id);
-		updateRequest.doc(doc, XContentType.JSON);
-		if(immediate) {
-			updateRequest.setRefreshPolicy(RefreshPolicy.IMMEDIATE);
+		if(updateRequest.doc() != null) {
+			metrics.recordRequestBytes(Operation.UPDATE, updateRequest.doc().source().length());
+		}
+		try {
+			return awaitRefresh(timed(Operation.UPDATE, () -> esClient.update(withRefresh(updateRequest, immediate))), immediate);
+		} finally {
+			onWrite(updateRequest.id());
 		}
-		return esClient.update(updateRequest);
 	}
 	
-	// === delete
+	UpdateRequest buildUpdateRequest(
+			final String id,
+			final String doc) {
+		
+		UpdateRequest updateRequest = newUpdateRequest(id);
+		updateRequest.doc(doc, XContentType.JSON);
+		return updateRequest;
+	}
+	
+	UpdateRequest buildUpdateRequest(
+			final String id,
+			final BytesReference doc) {
+		
+		UpdateRequest updateRequest = newUpdateRequest(id);
+		// UpdateRequest has no doc(BytesReference), the bytes are given without copy through the doc IndexRequest
+		updateRequest.doc(new IndexRequest().source(doc, XContentType.JSON));
+		return updateRequest;
+	}
+	
+	UpdateRequest buildScriptUpdateRequest(
+			final String id,
+			final String script,
+			final Map<String, Object> params) {
+		
+		UpdateRequest updateRequest = newUpdateRequest(id);
+		updateRequest.script(new Script(ScriptType.INLINE, Script.DEFAULT_SCRIPT_LANG, script, params));
+		return updateRequest;
+	}
+	
+	private UpdateRequest newUpdateRequest(
+			final String id) {
+		
+		return new UpdateRequest(indexNameIndex.get(), typeName, id).retryOnConflict(retryOnConflict);
+	}
+	
+	// === upsert
 	
 	/**
-	 * Delete an object
-	 * @param id id of the object to delete
+	 * Update an object or create it if missing, this is a partial update null value will not be save.
+	 * @param id id of the object
+	 * @param doc the object to update, or to create
+	 * @param jsonMapper to convert into json
+	 * @param <E> the type of object to save
      * @throws IOException io probleme with elasticsearch
-	 * @throws NullPointerException if {@code id} is null 
+	 * @throws NullPointerException if {@code id}, {@code doc} or {@code jsonMapper} is null 
 	 */
-	public void delete(
-			final String id) 
+	public <E> void upsert(
+			final String id,
+			final E doc,
+			final Function<E, String> jsonMapper)
 		throws IOException {
 		
 		Objects.requireNonNull(id);
-
-		delete(id, this.immediate);
+		Objects.requireNonNull(doc);
+		Objects.requireNonNull(jsonMapper);
+		
+		upsert(id, doc, this.immediate, jsonMapper);
 	}
 	
 	/**
-	 * Delete an object
-	 * @param id id of the object to delete
-	 * @param immediate define if delete in realtime or not
+	 * Update an object or create it if missing, this is a partial update null value will not be save.
+	 * @param id id of the object
+	 * @param doc the object to update, or to create
+	 * @param immediate define if upsert in realtime or not
+	 * @param jsonMapper to convert into json
+	 * @param <E> the type of object to save
      * @throws IOException io probleme with elasticsearch
-	 * @throws NullPointerException if {@code id} is null 
+	 * @throws NullPointerException if {@code id}, {@code doc} or {@code jsonMapper} is null 
 	 */
-	public void delete(
+	public <E> void upsert(
 			final String id,
-			final boolean immediate)
+			final E doc,
+			final boolean immediate,
+			final Function<E, String> jsonMapper)
 		throws IOException {
 		
 		Objects.requireNonNull(id);
+		Objects.requireNonNull(doc);
+		Objects.requireNonNull(jsonMapper);
 		
-		executeDelete(id, immediate);
+		executeUpdate(buildUpdateRequest(id, jsonMapper.apply(doc)).docAsUpsert(true), immediate);
 	}
 	
-	private DeleteResponse executeDelete(
+	/**
+	 * Update an object with a painless script, the script is executed by elasticsearch on the last version 
+	 * of the document, for example {@code ctx._source.count += params.count}.
+	 * @param id id of the object
+	 * @param script the source of the script
+	 * @param params the parameters of the script
+     * @throws IOException io probleme with elasticsearch, or the object is missing
+	 * @throws NullPointerException if {@code id}, {@code script} or {@code params} is null 
+	 */
+	public void updateWithScript(
 			final String id,
-			final boolean immediate) 
-		throws IOException{
+			final String script,
+			final Map<String, Object> params)
+		throws IOException {
 		
-		DeleteRequest deleteRequest = new DeleteRequest(indexNameIndex.get(), typeName, id);
-		if(immediate) {
-			deleteRequest.setRefreshPolicy(RefreshPolicy.IMMEDIATE);
-		}
-		return esClient.delete(deleteRequest);
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(script);
+		Objects.requireNonNull(params);
+		
+		updateWithScript(id, script, params, this.immediate);
 	}
 	
-	// == search request
+	/**
+	 * Update an object with a painless script, see {@link #updateWithScript(String, String, Map)}.
+	 * @param id id of the object
+	 * @param script the source of the script
+	 * @param params the parameters of the script
+	 * @param immediate define if update in realtime or not
+     * @throws IOException io probleme with elasticsearch, or the object is missing
+	 * @throws NullPointerException if {@code id}, {@code script} or {@code params} is null 
+	 */
+	public void updateWithScript(
+			final String id,
+			final String script,
+			final Map<String, Object> params,
+			final boolean immediate)
+		throws IOException {
+		
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(script);
+		Objects.requireNonNull(params);
+		
+		executeUpdate(buildScriptUpdateRequest(id, script, params), immediate);
+	}
+	
+	/**
+	 * Update an object with a painless script, or create it with {@code upsert} if missing 
+	 * (the script is not executed on creation), see {@link #updateWithScript(String, String, Map)}.
+	 * @param id id of the object
+	 * @param script the source of the script
+	 * @param params the parameters of the script
+	 * @param upsert the object to create
+	 * @param jsonMapper to convert into json
+	 * @param <E> the type of object to save
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code id}, {@code script}, {@code params}, {@code upsert} or {@code jsonMapper} is null 
+	 */
+	public <E> void upsertWithScript(
+			final String id,
+			final String script,
+			final Map<String, Object> params,
+			final E upsert,
+			final Function<E, String> jsonMapper)
+		throws IOException {
+		
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(script);
+		Objects.requireNonNull(params);
+		Objects.requireNonNull(upsert);
+		Objects.requireNonNull(jsonMapper);
+		
+		executeUpdate(buildScriptUpdateRequest(id, script, params).upsert(jsonMapper.apply(upsert), XContentType.JSON), 
+				this.immediate);
+	}
+	
+	// === conditional writes
+	
+	/**
+	 * Create an object only if there is no object with this id.
+	 * @param id id of the object
+	 * @param object the object
+	 * @param jsonMapper the mapper to convert into json
+	 * @param <E> the type of object to save
+	 * @return true if created, false if an object already exists
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code id}, {@code object} or {@code jsonMapper} is null
+	 */
+	public <E> boolean saveIfAbsent(
+			final String id,
+			final E object,
+			final Function<E, String> jsonMapper)
+		throws IOException {
+		
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(object);
+		Objects.requireNonNull(jsonMapper);
+		
+		return ifNoConflict(() -> executeIndex(buildIndexRequest(id, jsonMapper.apply(object)).create(true), this.immediate));
+	}
+	
+	/**
+	 * Save an object only if its current version is {@code version}, 
+	 * the version of a document is given by {@link GetResponse#getVersion()}.
+	 * @param id id of the object
+	 * @param object the object
+	 * @param version the expected version
+	 * @param jsonMapper the mapper to convert into json
+	 * @param <E> the type of object to save
+	 * @return true if saved, false if the version is not the current one or the object is missing
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code id}, {@code object} or {@code jsonMapper} is null
+	 */
+	public <E> boolean saveIfVersion(
+			final String id,
+			final E object,
+			final long version,
+			final Function<E, String> jsonMapper)
+		throws IOException {
+		
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(object);
+		Objects.requireNonNull(jsonMapper);
+		
+		return ifNoConflict(() -> executeIndex(buildIndexRequest(id, jsonMapper.apply(object)).version(version), this.immediate));
+	}
+	
+	/**
+	 * Update an object only if its current version is {@code version}, 
+	 * this is a partial update null value will not be save. There is no retry on conflict.
+	 * @param id id of the object
+	 * @param doc the object to update
+	 * @param version the expected version
+	 * @param jsonMapper to convert into json
+	 * @param <E> the type of object to save
+	 * @return true if updated, false if the version is not the current one
+     * @throws IOException io probleme with elasticsearch, or the object is missing
+	 * @throws NullPointerException if {@code id}, {@code doc} or {@code jsonMapper} is null
+	 */
+	public <E> boolean updateIfVersion(
+			final String id,
+			final E doc,
+			final long version,
+			final Function<E, String> jsonMapper)
+		throws IOException {
+		
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(doc);
+		Objects.requireNonNull(jsonMapper);
+		
+		// elasticsearch refuses a retry on conflict with a version
+		UpdateRequest updateRequest = buildUpdateRequest(id, jsonMapper.apply(doc)).retryOnConflict(0).version(version);
+		return ifNoConflict(() -> executeUpdate(updateRequest, this.immediate));
+	}
+	
+	/**
+	 * Delete an object only if its current version is {@code version}.
+	 * @param id id of the object to delete
+	 * @param version the expected version
+	 * @return true if deleted, false if the version is not the current one or the object is missing
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code id} is null
+	 */
+	public boolean deleteIfVersion(
+			final String id,
+			final long version)
+		throws IOException {
+		
+		Objects.requireNonNull(id);
+		
+		return ifNoConflict(() -> executeDelete(buildDeleteRequest(id).version(version), this.immediate));
+	}
+	
+	private boolean ifNoConflict(
+			final IOCall<?> write)
+		throws IOException {
+		
+		try {
+			write.call();
+			return true;
+		} catch (ElasticsearchStatusException e) {
+			if(e.status() == RestStatus.CONFLICT) {
+				return false;
+			}
+			throw e;
+		}
+	}
+	
+	// === delete
+	
+	/**
+	 * Delete an object
+	 * @param id id of the object to delete
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code id} is null 
+	 */
+	public void delete(
+			final String id) 
+		throws IOException {
+		
+		Objects.requireNonNull(id);
+
+		delete(id, this.immediate);
+	}
+	
+	/**
+	 * Delete an object
+	 * @param id id of the object to delete
+	 * @param immediate define if delete in realtime or not
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code id} is null 
+	 */
+	public void delete(
+			final String id,
+			final boolean immediate)
+		throws IOException {
+		
+		Objects.requireNonNull(id);
+		
+		executeDelete(buildDeleteRequest(id), immediate);
+	}
+	
+	private DeleteResponse executeDelete(
+			final DeleteRequest deleteRequest,
+			final boolean immediate) 
+		throws IOException{
+		
+		try {
+			return awaitRefresh(timed(Operation.DELETE, () -> esClient.delete(withRefresh(deleteRequest, immediate))), immediate);
+		} finally {
+			onWrite(deleteRequest.id());
+		}
+	}
+	
+	DeleteRequest buildDeleteRequest(
+			final String id) {
+		
+		return new DeleteRequest(indexNameIndex.get(), typeName, id);
+	}
+	
+	// == get request
+	
+	/**
+	 * Get a object by is id with the GET API, this is realtime and there is no query phase
+	 * but it works only on the index name for indexing operation (no alias with multi index).
+	 * @param id id of the object to get
+	 * @param getMapper mapper to convert {@code GetResponse} into object
+	 * @param <E> the type of object
+	 * @return the object if found, or empty
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code id} or {@code getMapper} is null 
+	 */
+	public <E> Optional<E> getById(
+			final String id,
+			final Function<GetResponse, E> getMapper) 
+		throws IOException{
+		
+		return getById(id, Projection.ALL, getMapper);
+	}
+	
+	/**
+	 * Get a object by is id with the GET API, this is realtime and there is no query phase
+	 * but it works only on the index name for indexing operation (no alias with multi index).
+	 * @param id id of the object to get
+	 * @param projection the part of the document to return
+	 * @param getMapper mapper to convert {@code GetResponse} into object
+	 * @param <E> the type of object
+	 * @return the object if found, or empty
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code id}, {@code projection} or {@code getMapper} is null 
+	 */
+	public <E> Optional<E> getById(
+			final String id,
+			final Projection projection,
+			final Function<GetResponse, E> getMapper) 
+		throws IOException{
+		
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(projection);
+		Objects.requireNonNull(getMapper);
+		
+		GetResponse response = timed(Operation.GET, () -> esClient.get(buildGetRequest(id, projection)));
+		return toOptional(response, getMapper);
+	}
+	
+	private GetRequest buildGetRequest(
+			final String id,
+			final Projection projection) {
+		
+		GetRequest getRequest = new GetRequest(indexNameIndex.get(), typeName, id);
+		if(projection != Projection.ALL) {
+			getRequest.fetchSourceContext(projection.fetchSourceContext());
+			getRequest.storedFields(toArray(projection.getStoredFields()));
+		}
+		return getRequest;
+	}
+	
+	private <E> Optional<E> toOptional(
+			final GetResponse response,
+			final Function<GetResponse, E> getMapper) {
+		
+		if(response.isExists()) {
+			return Optional.of(getMapper.apply(response));
+		}
+		return Optional.empty();
+	}
+	
+	/**
+	 * Get objects by id with the multi get API, by chunk of {@value #DEFAULT_MULTI_GET_CHUNK_SIZE} ids.
+	 * @param ids ids of the objects to get
+	 * @param getMapper mapper to convert {@code GetResponse} into object
+	 * @param <E> the type of object
+	 * @return the objects found by id, in the order of the ids
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code ids} or {@code getMapper} is null 
+	 * @see #getByIds(Collection, int, Function)
+	 */
+	public <E> Map<String, E> getByIds(
+			final Collection<String> ids,
+			final Function<GetResponse, E> getMapper) 
+		throws IOException{
+		
+		return getByIds(ids, DEFAULT_MULTI_GET_CHUNK_SIZE, getMapper);
+	}
+	
+	/**
+	 * Get objects by id with the multi get API, this is realtime and there is no query phase
+	 * but it works only on the index name for indexing operation (no alias with multi index).
+	 * @param ids ids of the objects to get, duplicates are fetched once
+	 * @param chunkSize the maximum number of ids by multi get request
+	 * @param getMapper mapper to convert {@code GetResponse} into object
+	 * @param <E> the type of object
+	 * @return the objects found by id, in the order of the ids
+     * @throws IOException io probleme with elasticsearch, or if an item failed
+	 * @throws NullPointerException if {@code ids} or {@code getMapper} is null 
+	 * @throws IllegalArgumentException if {@code chunkSize} is lower than 1
+	 */
+	public <E> Map<String, E> getByIds(
+			final Collection<String> ids,
+			final int chunkSize,
+			final Function<GetResponse, E> getMapper) 
+		throws IOException{
+		
+		return getByIds(ids, chunkSize, Projection.ALL, getMapper);
+	}
+	
+	/**
+	 * Get objects by id with the multi get API, this is realtime and there is no query phase
+	 * but it works only on the index name for indexing operation (no alias with multi index).
+	 * @param ids ids of the objects to get, duplicates are fetched once
+	 * @param chunkSize the maximum number of ids by multi get request
+	 * @param projection the part of the documents to return
+	 * @param getMapper mapper to convert {@code GetResponse} into object
+	 * @param <E> the type of object
+	 * @return the objects found by id, in the order of the ids
+     * @throws IOException io probleme with elasticsearch, or if an item failed
+	 * @throws NullPointerException if {@code ids}, {@code projection} or {@code getMapper} is null 
+	 * @throws IllegalArgumentException if {@code chunkSize} is lower than 1
+	 */
+	public <E> Map<String, E> getByIds(
+			final Collection<String> ids,
+			final int chunkSize,
+			final Projection projection,
+			final Function<GetResponse, E> getMapper) 
+		throws IOException{
+		
+		Objects.requireNonNull(ids);
+		Objects.requireNonNull(projection);
+		Objects.requireNonNull(getMapper);
+		if(chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be greater than 0 : " + chunkSize);
+		}
+		
+		Map<String, E> datas = new LinkedHashMap<>();
+		String indexName = indexNameIndex.get();
+		MultiGetRequest multiGetRequest = new MultiGetRequest();
+		for (String id : new LinkedHashSet<>(ids)) {
+			MultiGetRequest.Item item = new MultiGetRequest.Item(indexName, typeName, id);
+			if(projection != Projection.ALL) {
+				item.fetchSourceContext(projection.fetchSourceContext());
+				item.storedFields(toArray(projection.getStoredFields()));
+			}
+			multiGetRequest.add(item);
+			if(multiGetRequest.getItems().size() >= chunkSize) {
+				appendDatas(multiGet(multiGetRequest), datas, getMapper);
+				multiGetRequest = new MultiGetRequest();
+			}
+		}
+		if(!multiGetRequest.getItems().isEmpty()) {
+			appendDatas(multiGet(multiGetRequest), datas, getMapper);
+		}
+		return datas;
+	}
+	
+	private MultiGetResponse multiGet(
+			final MultiGetRequest multiGetRequest)
+		throws IOException {
+		
+		return timed(Operation.MULTI_GET, () -> esClient.multiGet(multiGetRequest));
+	}
+	
+	// == search request
 	
 	/**
 	 * Find a object by is id, this is a search operation so it works on alias
@@ -286,270 +1132,1938 @@ public class ElasticSearchRepository {
      * @throws IOException io probleme with elasticsearch
 	 * @throws NullPointerException if {@code id} or {@code hitMapper} is null 
 	 */
-	public <E> Optional<E> searchById(
+	public <E> Optional<E> searchById(
+			final String id,
+			final Function<SearchHit, E> hitMapper) 
+		throws IOException{
+		
+		return searchById(id, Projection.ALL, hitMapper);
+	}
+	
+	/**
+	 * Find a object by is id, this is a search operation so it works on alias
+	 * with multi index.
+	 * @param id id of the object to find
+	 * @param projection the part of the document to return
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object
+	 * @return the object if found, or empty
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code id}, {@code projection} or {@code hitMapper} is null 
+	 */
+	public <E> Optional<E> searchById(
+			final String id,
+			final Projection projection,
+			final Function<SearchHit, E> hitMapper) 
+		throws IOException{
+		
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(projection);
+		Objects.requireNonNull(hitMapper);
+		
+		SearchResponse response = executeSearchRequest(Operation.SEARCH_BY_ID, buildSearchByIdRequest(id, projection));
+		return mapped(Operation.SEARCH_BY_ID, () -> toOptional(response, hitMapper));
+	}
+	
+	private SearchRequest buildSearchByIdRequest(
+			final String id,
+			final Projection projection) {
+		
+		SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+		searchSourceBuilder.query(QueryBuilders.idsQuery(typeName).addIds(id));
+		projection.apply(searchSourceBuilder);
+		return buildSearchRequest(searchSourceBuilder);
+	}
+	
+	private <E> Optional<E> toOptional(
+			final SearchResponse response,
+			final Function<SearchHit, E> hitMapper) {
+		
+		SearchHits hits = response.getHits();
+		if(hits.getHits().length > 0) {
+			SearchHit hit = hits.getAt(0);
+			return Optional.of(hitMapper.apply(hit));
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Search with Pagination
+	 * @param queryBuilder the elasticsearch query
+	 * @param page the pagination information
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object 
+	 * @return result into a {@code PageData}
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code page}, {@code sorts} or {@code hitMapper} is null 
+	 */
+	public <E> PageData<E> searchPageData(
+			final QueryBuilder queryBuilder,
+			final Page page,
+			final List<Sort> sorts,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+		
+		return searchPageData(queryBuilder, page, sorts, Projection.ALL, hitMapper);
+	}
+	
+	/**
+	 * Search with Pagination
+	 * @param queryBuilder the elasticsearch query
+	 * @param page the pagination information
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param projection the part of the documents to return
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object 
+	 * @return result into a {@code PageData}
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code page}, {@code sorts}, 
+	 * {@code projection} or {@code hitMapper} is null 
+	 */
+	public <E> PageData<E> searchPageData(
+			final QueryBuilder queryBuilder,
+			final Page page,
+			final List<Sort> sorts,
+			final Projection projection,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+		
+		Objects.requireNonNull(queryBuilder);
+		Objects.requireNonNull(page);
+		Objects.requireNonNull(sorts);
+		Objects.requireNonNull(projection);
+		Objects.requireNonNull(hitMapper);
+		
+		SearchResponse response = executeSearchRequest(Operation.SEARCH_PAGE, buildPageSearchRequest(queryBuilder, page, sorts, projection));
+		return mapped(Operation.SEARCH_PAGE, () -> toPageData(response, page, hitMapper));
+	}
+	
+	SearchRequest buildPageSearchRequest(
+			final QueryBuilder queryBuilder,
+			final Page page,
+			final List<Sort> sorts,
+			final Projection projection) {
+		
+		SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(queryBuilder);
+		addPageInformation(searchSourceBuilder, page);
+		addSortInformation(searchSourceBuilder, sorts);
+		projection.apply(searchSourceBuilder);
+		return buildSearchRequest(searchSourceBuilder);
+	}
+	
+	/**
+	 * Search with Pagination, without counting the total number of hits.
+	 * @param queryBuilder the elasticsearch query
+	 * @param page the pagination information
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object 
+	 * @return result into a {@code PageData}
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code page}, {@code sorts} or {@code hitMapper} is null 
+	 * @see #searchPageDataWithoutTotal(QueryBuilder, Page, List, Projection, Function)
+	 */
+	public <E> PageData<E> searchPageDataWithoutTotal(
+			final QueryBuilder queryBuilder,
+			final Page page,
+			final List<Sort> sorts,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+		
+		return searchPageDataWithoutTotal(queryBuilder, page, sorts, Projection.ALL, hitMapper);
+	}
+	
+	/**
+	 * Search with Pagination, without counting the total number of hits.
+	 * 
+	 * <p>the search is executed with {@code track_total_hits} at false, so the shards can stop 
+	 * collecting hits early. The total size of the {@code PageData} is not exact ({@link PageData#isTotalSizeExact()}), 
+	 * it is the minimum size of the dataset (offset + number of hits), 
+	 * it is exact only on the last page. An empty page is the last page, with the offset as size.</p>
+	 * @param queryBuilder the elasticsearch query
+	 * @param page the pagination information
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param projection the part of the documents to return
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object 
+	 * @return result into a {@code PageData}
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code page}, {@code sorts}, 
+	 * {@code projection} or {@code hitMapper} is null 
+	 */
+	public <E> PageData<E> searchPageDataWithoutTotal(
+			final QueryBuilder queryBuilder,
+			final Page page,
+			final List<Sort> sorts,
+			final Projection projection,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+		
+		Objects.requireNonNull(queryBuilder);
+		Objects.requireNonNull(page);
+		Objects.requireNonNull(sorts);
+		Objects.requireNonNull(projection);
+		Objects.requireNonNull(hitMapper);
+		
+		SearchRequest searchRequest = buildPageSearchRequest(queryBuilder, page, sorts, projection);
+		searchRequest.source().trackTotalHits(false);
+		
+		SearchResponse response = executeSearchRequest(Operation.SEARCH_PAGE, searchRequest);
+		List<E> datas = mapped(Operation.SEARCH_PAGE, () -> toDatas(response.getHits().getHits(), hitMapper));
+		// an empty page is after the end, offset is the lower bound of the size
+		boolean lastPage = datas.size() < page.getLimit();
+		long minTotalSize = (long) page.getOffset() + datas.size();
+		return new PageData<>(page, minTotalSize, lastPage, datas);
+	}
+	
+	/**
+	 * Count the documents matching a query, no hit is fetched.
+	 * @param queryBuilder the elasticsearch query
+	 * @return the number of documents
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder} is null 
+	 */
+	public long count(
+			final QueryBuilder queryBuilder)
+		throws IOException{
+		
+		Objects.requireNonNull(queryBuilder);
+		
+		SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(queryBuilder)
+				.size(0);
+		SearchResponse response = executeSearchRequest(Operation.COUNT, buildSearchRequest(searchSourceBuilder));
+		return response.getHits().totalHits;
+	}
+	
+	/**
+	 * Check if a object exists, with a HEAD request, the document is not fetched.
+	 * @param id id of the object
+	 * @return true if the object exists
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code id} is null 
+	 */
+	public boolean exists(
+			final String id)
+		throws IOException{
+		
+		Objects.requireNonNull(id);
+		
+		GetRequest getRequest = new GetRequest(indexNameIndex.get(), typeName, id)
+				.fetchSourceContext(FetchSourceContext.DO_NOT_FETCH_SOURCE);
+		return timed(Operation.EXISTS, () -> esClient.exists(getRequest));
+	}
+	
+	/**
+	 * Search with Pagination several queries in one multi search request.
+	 * @param queries the queries
+	 * @return the result of each query, get it with {@link MultiPageData#get(PageQuery)}
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queries} is null 
+	 */
+	public MultiPageData searchMultiPageData(
+			final List<PageQuery<?>> queries)
+		throws IOException{
+		
+		Objects.requireNonNull(queries);
+		
+		List<PageData<?>> datas = new ArrayList<>(queries.size());
+		List<Exception> failures = new ArrayList<>(queries.size());
+		if(queries.isEmpty()) {
+			return new MultiPageData(queries, datas, failures);
+		}
+		
+		MultiSearchRequest multiSearchRequest = new MultiSearchRequest();
+		for (PageQuery<?> query : queries) {
+			multiSearchRequest.add(buildPageSearchRequest(
+					query.getQueryBuilder(), query.getPage(), query.getSorts(), query.getProjection()));
+		}
+		
+		MultiSearchResponse.Item[] items = timed(Operation.MULTI_SEARCH, () -> esClient.multiSearch(multiSearchRequest)).getResponses();
+		for (int i = 0; i < items.length; i++) {
+			if(items[i].isFailure()) {
+				datas.add(null);
+				failures.add(items[i].getFailure());
+			}else {
+				SearchResponse response = items[i].getResponse();
+				recordSearch(Operation.MULTI_SEARCH, response);
+				PageQuery<?> query = queries.get(i);
+				datas.add(mapped(Operation.MULTI_SEARCH, () -> toPageData(response, query)));
+				failures.add(null);
+			}
+		}
+		return new MultiPageData(queries, datas, failures);
+	}
+	
+	private <E> PageData<E> toPageData(
+			final SearchResponse response,
+			final PageQuery<E> query) {
+		
+		return toPageData(response, query.getPage(), query.getHitMapper());
+	}
+	
+	<E> PageData<E> toPageData(
+			final SearchResponse response,
+			final Page page,
+			final Function<SearchHit, E> hitMapper) {
+		
+		List<E> datas = Arrays.stream(response.getHits().getHits())
+			.map(hitMapper)
+			.collect(Collectors.toList());
+		return new PageData<>(page, response.getHits().totalHits, datas);
+	}
+	
+	/**
+	 * Search with a cursor Pagination, with a tiebreaker on {@code _id}.
+	 * @param queryBuilder the elasticsearch query
+	 * @param page the cursor pagination information
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object 
+	 * @return result into a {@code CursorPageData}
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code page}, {@code sorts} or {@code hitMapper} is null 
+	 * @see #searchCursorPageData(QueryBuilder, CursorPage, List, Sort, Function)
+	 */
+	public <E> CursorPageData<E> searchCursorPageData(
+			final QueryBuilder queryBuilder,
+			final CursorPage page,
+			final List<Sort> sorts,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+		
+		return searchCursorPageData(queryBuilder, page, sorts, DEFAULT_TIEBREAKER, hitMapper);
+	}
+	
+	/**
+	 * Search with a cursor Pagination.
+	 * 
+	 * <p>the page is executed with {@code search_after} on the sorts, so a deep page cost the same as the first page.
+	 * The tiebreaker is added at the end of the sorts (if not already present), 
+	 * it must be a field with a unique value per document.</p>
+	 * @param queryBuilder the elasticsearch query
+	 * @param page the cursor pagination information
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param tiebreaker the sort on a unique field
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object 
+	 * @return result into a {@code CursorPageData}
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code page}, {@code sorts}, 
+	 * {@code tiebreaker} or {@code hitMapper} is null 
+	 */
+	public <E> CursorPageData<E> searchCursorPageData(
+			final QueryBuilder queryBuilder,
+			final CursorPage page,
+			final List<Sort> sorts,
+			final Sort tiebreaker,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+		
+		return searchCursorPageData(queryBuilder, page, sorts, tiebreaker, Projection.ALL, hitMapper);
+	}
+	
+	/**
+	 * Search with a cursor Pagination.
+	 * 
+	 * <p>the page is executed with {@code search_after} on the sorts, so a deep page cost the same as the first page.
+	 * The tiebreaker is added at the end of the sorts (if not already present), 
+	 * it must be a field with a unique value per document.</p>
+	 * @param queryBuilder the elasticsearch query
+	 * @param page the cursor pagination information
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param tiebreaker the sort on a unique field
+	 * @param projection the part of the documents to return
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object 
+	 * @return result into a {@code CursorPageData}
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code page}, {@code sorts}, 
+	 * {@code tiebreaker}, {@code projection} or {@code hitMapper} is null 
+	 */
+	public <E> CursorPageData<E> searchCursorPageData(
+			final QueryBuilder queryBuilder,
+			final CursorPage page,
+			final List<Sort> sorts,
+			final Sort tiebreaker,
+			final Projection projection,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+		
+		Objects.requireNonNull(queryBuilder);
+		Objects.requireNonNull(page);
+		Objects.requireNonNull(sorts);
+		Objects.requireNonNull(tiebreaker);
+		Objects.requireNonNull(projection);
+		Objects.requireNonNull(hitMapper);
+		
+		SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(queryBuilder);
+		addCursorPageInformation(searchSourceBuilder, page);
+		addSortInformation(searchSourceBuilder, withTiebreaker(sorts, tiebreaker));
+		projection.apply(searchSourceBuilder);
+		
+		SearchResponse response = executeSearchRequest(Operation.SEARCH_PAGE, buildSearchRequest(searchSourceBuilder));
+		SearchHit[] hits = response.getHits().getHits();
+		List<E> datas = mapped(Operation.SEARCH_PAGE, () -> toDatas(hits, hitMapper));
+		CursorPage nextPage = null;
+		if(hits.length > 0 && hits.length >= page.getLimit()) {
+			nextPage = page.nextPage(Arrays.asList(hits[hits.length - 1].getSortValues()));
+		}
+		return new CursorPageData<>(page, nextPage, response.getHits().totalHits, datas);
+	}
+	
+	/**
+	 * Search By scrolling data, no pagination !
+	 * @param queryBuilder the elasticsearch query
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object to save
+	 * @return result into a {@code PageData}
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code sorts} or {@code hitMapper} is null 
+	 */
+	public <E> List<E> searchScroll(
+			final QueryBuilder queryBuilder,
+			final List<Sort> sorts,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+		
+		return searchScroll(queryBuilder, sorts, Projection.ALL, hitMapper);
+	}
+	
+	/**
+	 * Search By scrolling data, no pagination !
+	 * @param queryBuilder the elasticsearch query
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param projection the part of the documents to return
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object to save
+	 * @return result into a {@code PageData}
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code sorts}, {@code projection} or {@code hitMapper} is null 
+	 */
+	public <E> List<E> searchScroll(
+			final QueryBuilder queryBuilder,
+			final List<Sort> sorts,
+			final Projection projection,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+
+		return searchScroll(queryBuilder, sorts, projection, ScrollSettings.DEFAULT, hitMapper);
+	}
+	
+	/**
+	 * Search By scrolling data with the given batches, no pagination !
+	 * 
+	 * <p>With adaptive settings, the sorts are completed with {@code _id} and there is no point in time snapshot,
+	 * see {@link ScrollSettings}.</p>
+	 * @param queryBuilder the elasticsearch query
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param projection the part of the documents to return
+	 * @param settings the size of the batches and the keep alive
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object to save
+	 * @return result into a {@code PageData}
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code sorts}, {@code projection}, 
+	 * {@code settings} or {@code hitMapper} is null 
+	 */
+	public <E> List<E> searchScroll(
+			final QueryBuilder queryBuilder,
+			final List<Sort> sorts,
+			final Projection projection,
+			final ScrollSettings settings,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+
+		Objects.requireNonNull(queryBuilder);
+		Objects.requireNonNull(sorts);
+		Objects.requireNonNull(projection);
+		Objects.requireNonNull(settings);
+		Objects.requireNonNull(hitMapper);
+		
+		List<E> datas = new ArrayList<>();
+		
+		SearchSourceBuilder searchSourceBuilder = buildScrollSourceBuilder(queryBuilder, sorts, projection, settings);
+		ScrollFetcher<SearchHit> fetcher = scrollFetcher(searchSourceBuilder, settings);
+		
+		ScrollData<SearchHit> scrollHits = fetcher.fetch(firstScrollInfo(settings));
+		datas.addAll(toDatas(scrollHits.getDatas(), hitMapper));
+		while(scrollHits.hasNext()) {
+			scrollHits = fetcher.fetch(scrollHits.getInfo());
+			datas.addAll(toDatas(scrollHits.getDatas(), hitMapper));
+		}
+		return datas;
+	}
+
+	/**
+	 * Search By scrolling data lazily, no pagination !
+	 *
+	 * <p>Only one batch is kept in memory, the next batch is fetched when the stream need it.</p>
+	 * <p>The stream must be closed (try-with-resources) to clear the scroll context if not fully consumed.
+	 * An error while fetching a next batch is thrown as an {@code UncheckedIOException}.</p>
+	 * @param queryBuilder the elasticsearch query
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object
+	 * @return result into a {@code Stream}
+     * @throws IOException io probleme with elasticsearch on the first batch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code sorts} or {@code hitMapper} is null
+	 */
+	public <E> Stream<E> streamScroll(
+			final QueryBuilder queryBuilder,
+			final List<Sort> sorts,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+
+		return streamScroll(queryBuilder, sorts, Projection.ALL, hitMapper);
+	}
+
+	/**
+	 * Search By scrolling data lazily, no pagination !
+	 *
+	 * <p>Only one batch is kept in memory, the next batch is fetched when the stream need it.</p>
+	 * <p>The stream must be closed (try-with-resources) to clear the scroll context if not fully consumed.
+	 * An error while fetching a next batch is thrown as an {@code UncheckedIOException}.</p>
+	 * @param queryBuilder the elasticsearch query
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param projection the part of the documents to return
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object
+	 * @return result into a {@code Stream}
+     * @throws IOException io probleme with elasticsearch on the first batch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code sorts}, {@code projection} or {@code hitMapper} is null
+	 */
+	public <E> Stream<E> streamScroll(
+			final QueryBuilder queryBuilder,
+			final List<Sort> sorts,
+			final Projection projection,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+
+		return streamScroll(queryBuilder, sorts, projection, ScrollSettings.DEFAULT, hitMapper);
+	}
+
+	/**
+	 * Search By scrolling data lazily with the given batches, no pagination !
+	 *
+	 * <p>Only one batch is kept in memory, the next batch is fetched when the stream need it.
+	 * With adaptive settings, the sorts are completed with {@code _id} and there is no point in time snapshot,
+	 * see {@link ScrollSettings}.</p>
+	 * <p>The stream must be closed (try-with-resources) to clear the scroll context if not fully consumed.
+	 * An error while fetching a next batch is thrown as an {@code UncheckedIOException}.</p>
+	 * @param queryBuilder the elasticsearch query
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param projection the part of the documents to return
+	 * @param settings the size of the batches and the keep alive
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object
+	 * @return result into a {@code Stream}
+     * @throws IOException io probleme with elasticsearch on the first batch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code sorts}, {@code projection}, 
+	 * {@code settings} or {@code hitMapper} is null
+	 */
+	public <E> Stream<E> streamScroll(
+			final QueryBuilder queryBuilder,
+			final List<Sort> sorts,
+			final Projection projection,
+			final ScrollSettings settings,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+
+		Objects.requireNonNull(queryBuilder);
+		Objects.requireNonNull(sorts);
+		Objects.requireNonNull(projection);
+		Objects.requireNonNull(settings);
+		Objects.requireNonNull(hitMapper);
+
+		SearchSourceBuilder searchSourceBuilder = buildScrollSourceBuilder(queryBuilder, sorts, projection, settings);
+
+		ScrollIterator<E> iterator = scrollIterator(searchSourceBuilder, settings, hitMapper);
+
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+				.onClose(() -> {
+					try {
+						iterator.close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	/**
+	 * Search By scrolling data lazily with a prefetch of the next batches, no pagination !
+	 *
+	 * <p>The next batches are fetched in background on the {@code executor} while the current batch is
+	 * mapped and consumed, at most {@code prefetchDepth} batches are waiting in memory, 
+	 * plus the batch fetched and waiting for a place and the current one ({@code prefetchDepth + 2} batches).
+	 * The batches are mapped in the thread consuming the stream.</p>
+	 * <p>The stream must be closed (try-with-resources) to stop the prefetch and clear the scroll context
+	 * if not fully consumed. An error while fetching a next batch clears the scroll context, 
+	 * it is thrown as an {@code UncheckedIOException}.</p>
+	 * @param queryBuilder the elasticsearch query
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param projection the part of the documents to return
+	 * @param settings the size of the batches and the keep alive
+	 * @param prefetchDepth the maximum number of batches fetched in advance
+	 * @param executor the executor fetching the next batches, one task per stream
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object
+	 * @return result into a {@code Stream}
+     * @throws IOException io probleme with elasticsearch on the first batch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code sorts}, {@code projection}, {@code settings}, 
+	 * {@code executor} or {@code hitMapper} is null
+	 * @throws IllegalArgumentException if {@code prefetchDepth} is lower than 1
+	 * @see ScrollSettings
+	 */
+	public <E> Stream<E> streamScroll(
+			final QueryBuilder queryBuilder,
+			final List<Sort> sorts,
+			final Projection projection,
+			final ScrollSettings settings,
+			final int prefetchDepth,
+			final Executor executor,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+
+		Objects.requireNonNull(queryBuilder);
+		Objects.requireNonNull(sorts);
+		Objects.requireNonNull(projection);
+		Objects.requireNonNull(settings);
+		Objects.requireNonNull(executor);
+		Objects.requireNonNull(hitMapper);
+		if(prefetchDepth < 1) {
+			throw new IllegalArgumentException("prefetchDepth must be greater than 0 : " + prefetchDepth);
+		}
+
+		SearchSourceBuilder searchSourceBuilder = buildScrollSourceBuilder(queryBuilder, sorts, projection, settings);
+		ScrollFetcher<SearchHit> fetcher = scrollFetcher(searchSourceBuilder, settings);
+
+		PrefetchScrollIterator<SearchHit, E> iterator = new PrefetchScrollIterator<>(
+				fetcher.fetch(firstScrollInfo(settings)),
+				fetcher,
+				this::clearScroll,
+				hits -> toDatas(hits, hitMapper),
+				prefetchDepth,
+				executor);
+
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+				.onClose(iterator::close);
+	}
+
+	/**
+	 * Search By scrolling data with a prefetch of the next batches, no pagination !
+	 *
+	 * <p>The next batches are fetched in background on the {@code executor} while the current batch is mapped,
+	 * see {@link #streamScroll(QueryBuilder, List, Projection, ScrollSettings, int, Executor, Function)}.</p>
+	 * @param queryBuilder the elasticsearch query
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param projection the part of the documents to return
+	 * @param settings the size of the batches and the keep alive
+	 * @param prefetchDepth the maximum number of batches fetched in advance
+	 * @param executor the executor fetching the next batches
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object
+	 * @return result into a {@code List}
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code sorts}, {@code projection}, {@code settings}, 
+	 * {@code executor} or {@code hitMapper} is null
+	 * @throws IllegalArgumentException if {@code prefetchDepth} is lower than 1
+	 */
+	public <E> List<E> searchScroll(
+			final QueryBuilder queryBuilder,
+			final List<Sort> sorts,
+			final Projection projection,
+			final ScrollSettings settings,
+			final int prefetchDepth,
+			final Executor executor,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+
+		try(Stream<E> stream = streamScroll(queryBuilder, sorts, projection, settings, prefetchDepth, executor, hitMapper)){
+			return stream.collect(Collectors.toList());
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Search By scrolling data with sliced scrolls in parallel, no pagination !
+	 *
+	 * <p>The query is split into {@code slices} scrolls executed concurrently on the {@code executor}.
+	 * The {@code consumer} is called from the executor threads, so it must be thread safe.
+	 * The order between slices is not guaranteed.</p>
+	 * <p>If a slice fails, the other slices stop after their current batch and the error is thrown.</p>
+	 * @param queryBuilder the elasticsearch query
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param slices the number of slices, 1 means a simple scroll
+	 * @param executor the executor running the slices
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param consumer the consumer of the objects
+	 * @param <E> the type of object
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code sorts}, {@code executor},
+	 * {@code hitMapper} or {@code consumer} is null
+	 * @throws IllegalArgumentException if {@code slices} is lower than 1
+	 */
+	public <E> void parallelScroll(
+			final QueryBuilder queryBuilder,
+			final List<Sort> sorts,
+			final int slices,
+			final Executor executor,
+			final Function<SearchHit, E> hitMapper,
+			final Consumer<? super E> consumer)
+		throws IOException{
+		
+		parallelScroll(queryBuilder, sorts, Projection.ALL, slices, executor, hitMapper, consumer);
+	}
+	
+	/**
+	 * Search By scrolling data with sliced scrolls in parallel, no pagination !
+	 *
+	 * <p>The query is split into {@code slices} scrolls executed concurrently on the {@code executor}.
+	 * The {@code consumer} is called from the executor threads, so it must be thread safe.
+	 * The order between slices is not guaranteed.</p>
+	 * <p>If a slice fails, the other slices stop after their current batch and the error is thrown.</p>
+	 * @param queryBuilder the elasticsearch query
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param projection the part of the documents to return
+	 * @param slices the number of slices, 1 means a simple scroll
+	 * @param executor the executor running the slices
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param consumer the consumer of the objects
+	 * @param <E> the type of object
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code sorts}, {@code projection}, {@code executor},
+	 * {@code hitMapper} or {@code consumer} is null
+	 * @throws IllegalArgumentException if {@code slices} is lower than 1
+	 */
+	public <E> void parallelScroll(
+			final QueryBuilder queryBuilder,
+			final List<Sort> sorts,
+			final Projection projection,
+			final int slices,
+			final Executor executor,
+			final Function<SearchHit, E> hitMapper,
+			final Consumer<? super E> consumer)
+		throws IOException{
+		
+		parallelScroll(queryBuilder, sorts, projection, ScrollSettings.DEFAULT, slices, executor, hitMapper, consumer);
+	}
+	
+	/**
+	 * Search By scrolling data with sliced scrolls in parallel, no pagination !
+	 *
+	 * <p>The query is split into {@code slices} scrolls executed concurrently on the {@code executor}.
+	 * The {@code consumer} is called from the executor threads, so it must be thread safe.
+	 * The order between slices is not guaranteed.</p>
+	 * <p>If a slice fails, the other slices stop after their current batch and the error is thrown.</p>
+	 * @param queryBuilder the elasticsearch query
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param projection the part of the documents to return
+	 * @param settings the size of the batches and the keep alive, for each slice
+	 * @param slices the number of slices, 1 means a simple scroll
+	 * @param executor the executor running the slices
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param consumer the consumer of the objects
+	 * @param <E> the type of object
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code queryBuilder}, {@code sorts}, {@code projection}, {@code settings}, 
+	 * {@code executor}, {@code hitMapper} or {@code consumer} is null
+	 * @throws IllegalArgumentException if {@code slices} is lower than 1
+	 */
+	public <E> void parallelScroll(
+			final QueryBuilder queryBuilder,
+			final List<Sort> sorts,
+			final Projection projection,
+			final ScrollSettings settings,
+			final int slices,
+			final Executor executor,
+			final Function<SearchHit, E> hitMapper,
+			final Consumer<? super E> consumer)
+		throws IOException{
+
+		Objects.requireNonNull(queryBuilder);
+		Objects.requireNonNull(sorts);
+		Objects.requireNonNull(projection);
+		Objects.requireNonNull(settings);
+		Objects.requireNonNull(executor);
+		Objects.requireNonNull(hitMapper);
+		Objects.requireNonNull(consumer);
+		if(slices < 1) {
+			throw new IllegalArgumentException("slices must be greater than 0 : " + slices);
+		}
+
+		final AtomicBoolean failed = new AtomicBoolean(false);
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[slices];
+		for (int i = 0; i < slices; i++) {
+			SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(queryBuilder);
+			addSortInformation(searchSourceBuilder, sorts);
+			projection.apply(searchSourceBuilder);
+			if(slices > 1) {
+				searchSourceBuilder.slice(new SliceBuilder(i, slices));
+			}
+			futures[i] = CompletableFuture.runAsync(
+					() -> consumeSlice(searchSourceBuilder, settings, hitMapper, consumer, failed),
+					executor);
+		}
+
+		try {
+			CompletableFuture.allOf(futures).join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof UncheckedIOException) {
+				throw ((UncheckedIOException) cause).getCause();
+			}
+			if(cause instanceof RuntimeException) {
+				// a failure of the mapper or the consumer, as thrown by a sequential scroll
+				throw (RuntimeException) cause;
+			}
+			throw e;
+		}
+	}
+
+	private <E> void consumeSlice(
+			final SearchSourceBuilder searchSourceBuilder,
+			final ScrollSettings settings,
+			final Function<SearchHit, E> hitMapper,
+			final Consumer<? super E> consumer,
+			final AtomicBoolean failed) {
+
+		try(ScrollIterator<E> iterator = scrollIterator(searchSourceBuilder, settings, hitMapper)) {
+			while(!failed.get() && iterator.hasNext()) {
+				consumer.accept(iterator.next());
+			}
+		} catch (IOException e) {
+			failed.set(true);
+			throw new UncheckedIOException(e);
+		} catch (RuntimeException e) {
+			failed.set(true);
+			throw e;
+		}
+	}
+
+	private <E> ScrollIterator<E> scrollIterator(
+			final SearchSourceBuilder searchSourceBuilder,
+			final ScrollSettings settings,
+			final Function<SearchHit, E> hitMapper)
+		throws IOException{
+
+		ScrollFetcher<SearchHit> fetcher = scrollFetcher(searchSourceBuilder, settings);
+		ScrollData<SearchHit> first = fetcher.fetch(firstScrollInfo(settings));
+		return new ScrollIterator<>(
+				new ScrollData<>(first.getInfo(), toDatas(first.getDatas(), hitMapper)),
+				info -> {
+					ScrollData<SearchHit> next = fetcher.fetch(info);
+					return new ScrollData<>(next.getInfo(), toDatas(next.getDatas(), hitMapper));
+				},
+				this::clearScroll);
+	}
+
+	private SearchSourceBuilder buildScrollSourceBuilder(
+			final QueryBuilder queryBuilder,
+			final List<Sort> sorts,
+			final Projection projection,
+			final ScrollSettings settings) {
+		
+		SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(queryBuilder);
+		if(settings.isAdaptive()) {
+			addSortInformation(searchSourceBuilder, withTiebreaker(sorts, DEFAULT_TIEBREAKER));
+			searchSourceBuilder.trackTotalHits(false);
+		}else {
+			addSortInformation(searchSourceBuilder, sorts);
+		}
+		projection.apply(searchSourceBuilder);
+		return searchSourceBuilder;
+	}
+
+	private ScrollFetcher<SearchHit> scrollFetcher(
+			final SearchSourceBuilder searchSourceBuilder,
+			final ScrollSettings settings) {
+		
+		if(settings.isAdaptive()) {
+			return info -> searchAfterHits(searchSourceBuilder, settings, info);
+		}
+		return info -> scrollHits(searchSourceBuilder, info);
+	}
+	
+	private static ScrollInfo firstScrollInfo(
+			final ScrollSettings settings) {
+		
+		return new ScrollInfo(settings.getKeepAliveSecond(), null, settings.getBatchSize());
+	}
+
+	private SearchSourceBuilder buildSearchSourceBuilder(
+			final QueryBuilder queryBuilder) {
+		
+		SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder(); 
+		searchSourceBuilder.query(queryBuilder);		
+		return searchSourceBuilder;
+	}
+	
+	private void addPageInformation(
+			final SearchSourceBuilder searchSourceBuilder,
+			final Page page) {
+		
+		searchSourceBuilder.size(page.getLimit()).from(page.getOffset());
+	}
+	
+	private void addCursorPageInformation(
+			final SearchSourceBuilder searchSourceBuilder,
+			final CursorPage page) {
+		
+		searchSourceBuilder.size(page.getLimit());
+		if(!page.isFirstPage()) {
+			searchSourceBuilder.searchAfter(page.getCursor().toArray());
+		}
+	}
+	
+	private List<Sort> withTiebreaker(
+			final List<Sort> sorts,
+			final Sort tiebreaker) {
+		
+		boolean present = sorts.stream()
+				.anyMatch(s -> s.getField().equals(tiebreaker.getField()));
+		if(present) {
+			return sorts;
+		}
+		List<Sort> sortsWithTiebreaker = new ArrayList<>(sorts);
+		sortsWithTiebreaker.add(tiebreaker);
+		return sortsWithTiebreaker;
+	}
+	
+	private void addSortInformation(
+			final SearchSourceBuilder searchSourceBuilder,
+			final List<Sort> sorts) {
+		
+		sorts.forEach(s -> searchSourceBuilder.sort(s.getField(), toSortOrder(s.getDirection())));
+	}
+	
+	private ScrollData<SearchHit> scrollHits(
+			final SearchSourceBuilder searchSourceBuilder,
+			final ScrollInfo scrollInfo)
+		throws IOException{
+		
+		final Scroll scroll = new Scroll(TimeValue.timeValueSeconds(scrollInfo.getKeepAliveSecond()));
+		
+		final SearchResponse searchResponse;
+		if(scrollInfo.getScrollId() != null) {
+			SearchScrollRequest searchScrollRequest = new SearchScrollRequest(scrollInfo.getScrollId());
+			searchScrollRequest.scroll(scroll);
+			searchResponse = timed(Operation.SCROLL_PAGE, () -> esClient.searchScroll(searchScrollRequest));
+			recordSearch(Operation.SCROLL_PAGE, searchResponse);
+		}else {
+			if(scrollInfo.getBatchSize() > 0) {
+				searchSourceBuilder.size(scrollInfo.getBatchSize());
+			}
+			searchResponse = executeSearchRequest(Operation.SCROLL_PAGE,
+					addScrollInformation(
+							buildSearchRequest(searchSourceBuilder),
+							scroll));
+		}
+		
+		String scrollId = searchResponse.getScrollId();
+		SearchHit[] searchHits = searchResponse.getHits().getHits();
+
+		if(searchHits.length == 0) {
+			clearScroll(scrollId);
+		}
+		return new ScrollData<>(
+				scrollInfo.withScrollId(scrollId),
+				Arrays.asList(searchHits)
+		);
+	}
+	
+	/**
+	 * Fetch the next batch with {@code search_after}, the size of the following batch is computed from the response.
+	 */
+	private ScrollData<SearchHit> searchAfterHits(
+			final SearchSourceBuilder searchSourceBuilder,
+			final ScrollSettings settings,
+			final ScrollInfo scrollInfo)
+		throws IOException{
+		
+		searchSourceBuilder.size(scrollInfo.getBatchSize());
+		if(!scrollInfo.getSearchAfter().isEmpty()) {
+			searchSourceBuilder.searchAfter(scrollInfo.getSearchAfter().toArray());
+		}
+		
+		long start = System.nanoTime();
+		SearchResponse searchResponse = executeSearchRequest(Operation.SCROLL_PAGE, buildSearchRequest(searchSourceBuilder));
+		long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		
+		SearchHit[] searchHits = searchResponse.getHits().getHits();
+		if(searchHits.length == 0) {
+			return new ScrollData<>(scrollInfo, Collections.emptyList());
+		}
+		long bytes = 0;
+		for (SearchHit searchHit : searchHits) {
+			bytes += searchHit.hasSource() ? searchHit.getSourceRef().length() : 0;
+		}
+		int nextBatchSize = settings.nextBatchSize(scrollInfo.getBatchSize(), searchHits.length, bytes, latencyMillis);
+		return new ScrollData<>(
+				scrollInfo.withSearchAfter(Arrays.asList(searchHits[searchHits.length - 1].getSortValues()), nextBatchSize),
+				Arrays.asList(searchHits)
+		);
+	}
+	
+	private <E> List<E> toDatas(
+			final List<SearchHit> searchHits,
+			final Function<SearchHit, E> hitMapper) {
+		
+		if(searchHits.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return mapped(Operation.SCROLL_PAGE, () -> toDatas(searchHits.toArray(new SearchHit[searchHits.size()]), hitMapper));
+	}
+
+	private boolean clearScroll(
+			final String scrollId) 
+		throws IOException {
+		
+		ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+		clearScrollRequest.addScrollId(scrollId);
+		ClearScrollResponse response = esClient.clearScroll(clearScrollRequest);
+		return response.isSucceeded();
+	}
+	
+	private SearchRequest buildSearchRequest(
+			SearchSourceBuilder searchSourceBuilder) {
+		
+		SearchRequest searchRequest;
+		if(searchIndices != null) {
+			searchRequest = new SearchRequest(searchIndices).indicesOptions(IndicesOptions.lenientExpandOpen());
+		}else {
+			searchRequest = new SearchRequest(indexNameIndex.get());
+		}
+		searchRequest.types(typeName);
+		searchRequest.source(searchSourceBuilder);
+		return searchRequest;
+	}
+	
+	private SearchResponse executeSearchRequest(
+			final Operation operation,
+			final SearchRequest searchRequest)
+		throws IOException {
+		
+		SearchResponse response = timed(operation, () -> esClient.search(searchRequest));
+		recordSearch(operation, response);
+		return response;
+	}
+	
+	private void recordSearch(
+			final Operation operation,
+			final SearchResponse response) {
+		
+		metrics.recordTook(operation, response.getTook().millis());
+		metrics.recordHits(operation, response.getHits().getHits().length);
+	}
+	
+	private SearchRequest addScrollInformation(
+			final SearchRequest searchRequest,
+			final Scroll scroll) {
+		
+		searchRequest.scroll(scroll);
+		return searchRequest;
+	}
+	
+	// == bulk
+
+	/**
+	 * Save object with a bulk request.
+	 * <p>The objects are split into chunks according to the {@code BulkSettings}, 
+	 * a chunk is converted into json only when the previous one is sent.</p>
+	 * @param objects objects to save
+	 * @param jsonMapper mapper to convert object into json
+	 * @param <E> the type of object to save, must be an {@code Identifiable}
+	 * @return the bulkResponse if the bulk was execute (if list have element)
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code objects} or {@code jsonMapper} is null 
+	 */
+    public <E extends Identifiable> Optional<BulkResponse> bulkSave(
+    		final java.util.List<E> objects,
+    		final Function<E, String> jsonMapper)
+    	throws IOException {
+
+		Objects.requireNonNull(objects);
+		Objects.requireNonNull(jsonMapper);
+		
+		String indexName = indexNameIndex.get();
+		return bulkWrite(objects, obj -> buildIndexRequest(indexName, obj.getId(), jsonMapper.apply(obj)));
+    }
+    
+    /**
+     * Save object with a bulk request, each object in its index, 
+     * see {@link IndexNameSupplierFactory#dailyIndexNameRouter(String, java.util.function.ToLongFunction)}.
+     * <p>The objects are grouped by index, so a chunk target as few indices as possible. 
+     * The items of the response are in the order of the groups.</p>
+     * @param objects objects to save
+     * @param indexRouter the index name of an object
+     * @param jsonMapper mapper to convert object into json
+	 * @param <E> the type of object to save, must be an {@code Identifiable}
+ 	 * @return the bulkResponse if the bulk was execute (if list have element)
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code objects}, {@code indexRouter} or {@code jsonMapper} is null 
+     */
+    public <E extends Identifiable> Optional<BulkResponse> bulkSave(
+    		final List<E> objects,
+    		final Function<E, String> indexRouter,
+    		final Function<E, String> jsonMapper)
+    	throws IOException {
+    	
+		Objects.requireNonNull(objects);
+		Objects.requireNonNull(indexRouter);
+		Objects.requireNonNull(jsonMapper);
+		
+		Map<E, String> indexNames = new IdentityHashMap<>(objects.size());
+		Map<String, List<E>> objectsByIndex = new LinkedHashMap<>();
+		for (E obj : objects) {
+			String indexName = indexRouter.apply(obj);
+			indexNames.put(obj, indexName);
+			objectsByIndex.computeIfAbsent(indexName, k -> new ArrayList<>()).add(obj);
+		}
+		List<E> groupedObjects = objectsByIndex.values().stream()
+				.flatMap(List::stream)
+				.collect(Collectors.toList());
+		return bulkWrite(groupedObjects, obj -> buildIndexRequest(indexNames.get(obj), obj.getId(), jsonMapper.apply(obj)));
+    }
+    
+    /**
+     * Save object with a bulk request, the json is written directly into the request bytes.
+     * @param objects objects to save
+     * @param documentWriter the writer of the json
+	 * @param <E> the type of object to save, must be an {@code Identifiable}
+ 	 * @return the bulkResponse if the bulk was execute (if list have element)
+     * @throws IOException io probleme with elasticsearch, or with the writer
+	 * @throws NullPointerException if {@code objects} or {@code documentWriter} is null 
+     */
+    public <E extends Identifiable> Optional<BulkResponse> bulkSaveDocuments(
+    		final List<E> objects,
+    		final DocumentWriter<E> documentWriter)
+    	throws IOException {
+    	
+		Objects.requireNonNull(objects);
+		Objects.requireNonNull(documentWriter);
+		
+		return bulkWrite(objects, obj -> buildIndexRequest(obj.getId(), toBytes(obj, documentWriter)));
+    }
+    
+    /**
+     * Update objects with a bulk request, this is a partial update of each object by its id, 
+     * null value will not be save.
+	 * <p>The objects are split into chunks according to the {@code BulkSettings}, 
+	 * a chunk is converted into json only when the previous one is sent.</p>
+     * @param objects objects to update
+     * @param jsonMapper mapper to convert object into json
+	 * @param <E> the type of object to update, must be an {@code Identifiable}
+ 	 * @return the bulkResponse if the bulk was execute (if list have element)
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code objects} or {@code jsonMapper} is null 
+     */
+    public <E extends Identifiable> Optional<BulkResponse> bulkUpdate(
+    		final List<E> objects,
+    		final Function<E, String> jsonMapper)
+    	throws IOException {
+    	
+		Objects.requireNonNull(objects);
+		Objects.requireNonNull(jsonMapper);
+		
+		return bulkWrite(objects, obj -> buildUpdateRequest(obj.getId(), jsonMapper.apply(obj)));
+    }
+    
+    /**
+     * Delete objects with a bulk request, a missing object is not a failure.
+     * @param ids ids of the objects to delete
+ 	 * @return the bulkResponse if the bulk was execute (if list have element)
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code ids} is null 
+     */
+    public Optional<BulkResponse> bulkDelete(
+    		final List<String> ids)
+    	throws IOException {
+    	
+		Objects.requireNonNull(ids);
+		
+		return bulkWrite(ids, this::buildDeleteRequest);
+    }
+    
+    /**
+     * A new unit of work, collecting saves, updates and deletes to execute them in one bulk request.
+     * @return the unit of work
+     * @see UnitOfWork
+     */
+    public UnitOfWork unitOfWork() {
+    	return new UnitOfWork(this);
+    }
+    
+    private <E> Optional<BulkResponse> bulkWrite(
+    		final List<E> objects,
+    		final WriteRequestBuilder<E> requestBuilder)
+    	throws IOException {
+    	
+    	if(objects.isEmpty()) {
+    		return Optional.empty();
+    	}
+    	long start = System.nanoTime();
+    	long bytes = 0;
+    	List<String> ids = new ArrayList<>(objects.size());
+    	BulkChunkExecutor chunkExecutor = new BulkChunkExecutor(esClient, bulkSettings);
+    	try {
+	    	BulkRequest bulkRequest = withBulkRefresh(new BulkRequest());
+	        for(E obj : objects) {
+	        	DocWriteRequest<?> request = requestBuilder.build(obj);
+	        	ids.add(request.id());
+	            if(BulkChunks.isFull(bulkRequest, request, bulkSettings)) {
+	            	bytes += bulkRequest.estimatedSizeInBytes();
+	            	chunkExecutor.submit(bulkRequest);
+	            	bulkRequest = withBulkRefresh(new BulkRequest());
+	            }
+	            bulkRequest.add(request);
+	        }
+	        if(bulkRequest.numberOfActions() > 0) {
+	        	bytes += bulkRequest.estimatedSizeInBytes();
+	        	chunkExecutor.submit(bulkRequest);
+	        }
+	        
+	        BulkResponse response = recordBulk(start, bytes, chunkExecutor.complete());
+	        return Optional.of(awaitBulkRefresh(response));
+    	} finally {
+    		ids.forEach(this::onWrite);
+    	}
+    }
+    
+    /**
+     * Execute a bulk request, sent as is in a single request.
+     * @param bulkRequest The bulk request
+ 	 * @return the bulkResponse if the bulk was execute (if list have element)
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code bulkRequest} is null 
+	 * @see #executeBulkInChunks(BulkRequest)
+     */
+    public Optional<BulkResponse> executeBulk(
+    		BulkRequest bulkRequest) 
+    	throws IOException {
+    	
+		Objects.requireNonNull(bulkRequest);
+		
+        if(bulkRequest.numberOfActions() > 0 ) {
+        	long start = System.nanoTime();
+        	try {
+        		return Optional.of(recordBulk(start, bulkRequest.estimatedSizeInBytes(), esClient.bulk(bulkRequest)));
+        	} finally {
+        		bulkRequest.requests().forEach(r -> onWrite(r.id()));
+        	}
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Execute a bulk request split into chunks.
+     * <p>The request is split into chunks according to the {@code BulkSettings}, the responses are merged,
+     * item ids are the position in the request and took is the sum of the took of the chunks.</p>
+     * @param bulkRequest The bulk request
+ 	 * @return the bulkResponse if the bulk was execute (if list have element)
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code bulkRequest} is null 
+     */
+    public Optional<BulkResponse> executeBulkInChunks(
+    		BulkRequest bulkRequest) 
+    	throws IOException {
+    	
+		Objects.requireNonNull(bulkRequest);
+		
+        if(bulkRequest.numberOfActions() > 0 ) {
+        	long start = System.nanoTime();
+        	BulkChunkExecutor chunkExecutor = new BulkChunkExecutor(esClient, bulkSettings);
+        	try {
+	        	for (BulkRequest chunk : BulkChunks.split(bulkRequest, bulkSettings)) {
+					chunkExecutor.submit(chunk);
+				}
+		        return Optional.of(recordBulk(start, bulkRequest.estimatedSizeInBytes(), chunkExecutor.complete()));
+        	} finally {
+        		bulkRequest.requests().forEach(r -> onWrite(r.id()));
+        	}
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * Execute the bulk of a unit of work in chunks, with the refresh settings of the repository.
+     * @param bulkRequest The bulk request
+     * @return the bulkResponse if the bulk was execute (if list have element)
+     * @throws IOException io probleme with elasticsearch
+     */
+    Optional<BulkResponse> executeUnitOfWork(
+    		BulkRequest bulkRequest) 
+    	throws IOException {
+    	
+    	Optional<BulkResponse> response = executeBulkInChunks(withBulkRefresh(bulkRequest));
+    	if(response.isPresent()) {
+    		awaitBulkRefresh(response.get());
+    	}
+    	return response;
+    }
+    
+    /**
+     * Execute a bulk request, retry the rejected items (status 429) with exponential backoff.
+     * <p>Only the rejected items are sent again, until there is no more rejected item or 
+     * the time budget is elapsed.</p>
+     * @param bulkRequest The bulk request
+     * @param retrySettings the retry settings
+ 	 * @return the result if the bulk was execute (if list have element)
+     * @throws IOException io probleme with elasticsearch
+	 * @throws NullPointerException if {@code bulkRequest} or {@code retrySettings} is null 
+     */
+    public Optional<BulkResult> executeBulkWithRetry(
+    		final BulkRequest bulkRequest,
+    		final BulkRetrySettings retrySettings)
+    	throws IOException {
+    	
+		Objects.requireNonNull(bulkRequest);
+		Objects.requireNonNull(retrySettings);
+		
+		if(bulkRequest.numberOfActions() == 0) {
+			return Optional.empty();
+		}
+		
+		final long deadline = System.currentTimeMillis() + retrySettings.getTimeBudgetMillis();
+		final BulkItemResponse[] items = new BulkItemResponse[bulkRequest.numberOfActions()];
+		long took = 0;
+		int attempts = 0;
+		List<Integer> positions = IntStream.range(0, items.length).boxed().collect(Collectors.toList());
+		BulkRequest current = bulkRequest;
+		while(true) {
+			BulkResponse response = executeBulkInChunks(current).get();
+			attempts++;
+			took += response.getTook().millis();
+			
+			List<Integer> rejected = new ArrayList<>();
+			for (BulkItemResponse item : response.getItems()) {
+				int position = positions.get(item.getItemId());
+				items[position] = BulkChunks.withItemId(item, position);
+				if(isRejected(item)) {
+					rejected.add(position);
+				}
+			}
+			if(rejected.isEmpty()) {
+				break;
+			}
+			
+			long delay = retrySettings.delayMillis(attempts - 1, ThreadLocalRandom.current().nextDouble());
+			if(System.currentTimeMillis() + delay > deadline) {
+				break;
+			}
+			sleep(delay);
+			positions = rejected;
+			current = BulkChunks.subset(bulkRequest, rejected);
+		}
+		
+		List<BulkItemResponse> failures = Arrays.stream(items)
+				.filter(BulkItemResponse::isFailed)
+				.collect(Collectors.toList());
+		return Optional.of(new BulkResult(new BulkResponse(items, took), failures, attempts));
+    }
+    
+    private BulkResponse recordBulk(
+    		final long start,
+    		final long bytes,
+    		final BulkResponse response) {
+    	
+    	metrics.recordLatency(Operation.BULK, System.nanoTime() - start);
+    	metrics.recordTook(Operation.BULK, response.getTook().millis());
+    	metrics.recordRequestBytes(Operation.BULK, bytes);
+    	metrics.recordBulkFailures(Arrays.stream(response.getItems()).filter(BulkItemResponse::isFailed).count());
+    	return response;
+    }
+    
+    private boolean isRejected(
+    		final BulkItemResponse item) {
+    	
+    	return item.isFailed() && item.getFailure().getStatus() == RestStatus.TOO_MANY_REQUESTS;
+    }
+    
+    private void sleep(
+    		final long delay) 
+    	throws InterruptedIOException {
+    	
+    	try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting to retry a bulk");
+		}
+    }
+    
+    /**
+     * Helper method to log failure
+     * @param bulkResponse the bulkresponse
+     * @param logConsumer the log consumer
+	 * @throws NullPointerException if {@code bulkResponse} or {@code logConsumer} is null 
+     */
+    public void bulkLogFailure(
+    		final BulkResponse bulkResponse,
+    		final Consumer<String> logConsumer) {
+    	
+		Objects.requireNonNull(bulkResponse);
+		Objects.requireNonNull(logConsumer);
+		
+		if(bulkResponse.hasFailures()) {
+			bulkLogFailureItems(bulkResponse.getItems(), logConsumer);
+		}
+    }
+    
+    private void bulkLogFailureItems(
+    		final BulkItemResponse[] responses,
+    		final Consumer<String> logConsumer) {
+    	
+        for (BulkItemResponse response : responses) {
+            if (response.isFailed()) {
+            	logConsumer.accept(response.getFailureMessage());
+            }
+        }
+    }
+    
+    // == async
+    
+	/**
+	 * Save an object asynchronously, see {@link #save(String, Object, Function)}.
+	 * @param id id of the object, if null then a new object will be created
+	 * @param object the object
+	 * @param jsonMapper the mapper to convert into json
+	 * @param <E> the type of object to save
+	 * @return the future id
+	 * @throws NullPointerException if {@code object} or {@code jsonMapper} is null
+	 */
+	public <E> CompletableFuture<String> saveAsync(
+			final String id,
+			final E object,
+			final Function<E, String> jsonMapper) {
+		
+		return saveAsync(id, object, this.immediate, jsonMapper);
+	}
+	
+	/**
+	 * Save an object asynchronously, see {@link #save(String, Object, boolean, Function)}.
+	 * @param id id of the object, if null then a new object will be created
+	 * @param object the object
+	 * @param immediate define if save in realtime or not
+	 * @param jsonMapper the mapper to convert into json
+	 * @param <E> the type of object to save
+	 * @return the future id
+	 * @throws NullPointerException if {@code object} or {@code jsonMapper} is null
+	 */
+	public <E> CompletableFuture<String> saveAsync(
+			final String id,
+			final E object,
+			final boolean immediate,
+			final Function<E, String> jsonMapper) {
+		
+		Objects.requireNonNull(object);
+		Objects.requireNonNull(jsonMapper);
+		
+		IndexRequest indexRequest = withRefresh(buildIndexRequest(id, jsonMapper.apply(object)), immediate);
+		metrics.recordRequestBytes(Operation.SAVE, indexRequest.source().length());
+		return this.<IndexResponse>execute(Operation.SAVE, listener -> esClient.indexAsync(indexRequest, listener))
+				.whenComplete((r, e) -> onWrite(id))
+				.thenCompose(r -> awaitRefreshAsync(r, immediate))
+				.thenApply(IndexResponse::getId);
+	}
+	
+	/**
+	 * Update an object asynchronously, see {@link #update(String, Object, Function)}.
+	 * @param id id of the object
+	 * @param doc the object to update
+	 * @param jsonMapper to convert into json
+	 * @param <E> the type of object to save
+	 * @return the future completed when updated
+	 * @throws NullPointerException if {@code id}, {@code doc} or {@code jsonMapper} is null 
+	 */
+	public <E> CompletableFuture<Void> updateAsync(
+			final String id,
+			final E doc,
+			final Function<E, String> jsonMapper) {
+		
+		return updateAsync(id, doc, this.immediate, jsonMapper);
+	}
+	
+	/**
+	 * Update an object asynchronously, see {@link #update(String, Object, boolean, Function)}.
+	 * @param id id of the object
+	 * @param doc the object to update
+	 * @param immediate define if update in realtime or not
+	 * @param jsonMapper to convert into json
+	 * @param <E> the type of object to save
+	 * @return the future completed when updated
+	 * @throws NullPointerException if {@code id}, {@code doc} or {@code jsonMapper} is null 
+	 */
+	public <E> CompletableFuture<Void> updateAsync(
+			final String id,
+			final E doc,
+			final boolean immediate,
+			final Function<E, String> jsonMapper) {
+		
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(doc);
+		Objects.requireNonNull(jsonMapper);
+		
+		UpdateRequest updateRequest = withRefresh(buildUpdateRequest(id, jsonMapper.apply(doc)), immediate);
+		metrics.recordRequestBytes(Operation.UPDATE, updateRequest.doc().source().length());
+		return this.<UpdateResponse>execute(Operation.UPDATE, listener -> esClient.updateAsync(updateRequest, listener))
+				.whenComplete((r, e) -> onWrite(id))
+				.thenCompose(r -> awaitRefreshAsync(r, immediate))
+				.thenApply(r -> null);
+	}
+	
+	/**
+	 * Delete an object asynchronously, see {@link #delete(String)}.
+	 * @param id id of the object to delete
+	 * @return the future completed when deleted
+	 * @throws NullPointerException if {@code id} is null 
+	 */
+	public CompletableFuture<Void> deleteAsync(
+			final String id) {
+		
+		return deleteAsync(id, this.immediate);
+	}
+	
+	/**
+	 * Delete an object asynchronously, see {@link #delete(String, boolean)}.
+	 * @param id id of the object to delete
+	 * @param immediate define if delete in realtime or not
+	 * @return the future completed when deleted
+	 * @throws NullPointerException if {@code id} is null 
+	 */
+	public CompletableFuture<Void> deleteAsync(
+			final String id,
+			final boolean immediate) {
+		
+		Objects.requireNonNull(id);
+		
+		DeleteRequest deleteRequest = withRefresh(buildDeleteRequest(id), immediate);
+		return this.<DeleteResponse>execute(Operation.DELETE, listener -> esClient.deleteAsync(deleteRequest, listener))
+				.whenComplete((r, e) -> onWrite(id))
+				.thenCompose(r -> awaitRefreshAsync(r, immediate))
+				.thenApply(r -> null);
+	}
+	
+	/**
+	 * Get a object by is id asynchronously, see {@link #getById(String, Function)}.
+	 * The mapper is called on the elasticsearch client thread.
+	 * @param id id of the object to get
+	 * @param getMapper mapper to convert {@code GetResponse} into object
+	 * @param <E> the type of object
+	 * @return the future object if found, or empty
+	 * @throws NullPointerException if {@code id} or {@code getMapper} is null 
+	 */
+	public <E> CompletableFuture<Optional<E>> getByIdAsync(
+			final String id,
+			final Function<GetResponse, E> getMapper) {
+		
+		return getByIdAsync(id, Projection.ALL, getMapper, Runnable::run);
+	}
+	
+	/**
+	 * Get a object by is id asynchronously, see {@link #getById(String, Projection, Function)}.
+	 * @param id id of the object to get
+	 * @param projection the part of the document to return
+	 * @param getMapper mapper to convert {@code GetResponse} into object
+	 * @param mappingExecutor the executor calling the mapper
+	 * @param <E> the type of object
+	 * @return the future object if found, or empty
+	 * @throws NullPointerException if {@code id}, {@code projection}, {@code getMapper} or {@code mappingExecutor} is null 
+	 */
+	public <E> CompletableFuture<Optional<E>> getByIdAsync(
+			final String id,
+			final Projection projection,
+			final Function<GetResponse, E> getMapper,
+			final Executor mappingExecutor) {
+		
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(projection);
+		Objects.requireNonNull(getMapper);
+		Objects.requireNonNull(mappingExecutor);
+		
+		GetRequest getRequest = buildGetRequest(id, projection);
+		return this.<GetResponse>execute(Operation.GET, listener -> esClient.getAsync(getRequest, listener))
+				.thenApplyAsync(r -> toOptional(r, getMapper), mappingExecutor);
+	}
+	
+	/**
+	 * Find a object by is id asynchronously, see {@link #searchById(String, Function)}.
+	 * The mapper is called on the elasticsearch client thread.
+	 * @param id id of the object to find
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param <E> the type of object
+	 * @return the future object if found, or empty
+	 * @throws NullPointerException if {@code id} or {@code hitMapper} is null 
+	 */
+	public <E> CompletableFuture<Optional<E>> searchByIdAsync(
+			final String id,
+			final Function<SearchHit, E> hitMapper) {
+		
+		return searchByIdAsync(id, Projection.ALL, hitMapper, Runnable::run);
+	}
+	
+	/**
+	 * Find a object by is id asynchronously, see {@link #searchById(String, Projection, Function)}.
+	 * @param id id of the object to find
+	 * @param projection the part of the document to return
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @param mappingExecutor the executor calling the mapper
+	 * @param <E> the type of object
+	 * @return the future object if found, or empty
+	 * @throws NullPointerException if {@code id}, {@code projection}, {@code hitMapper} or {@code mappingExecutor} is null 
+	 */
+	public <E> CompletableFuture<Optional<E>> searchByIdAsync(
 			final String id,
-			final Function<SearchHit, E> hitMapper) 
-		throws IOException{
+			final Projection projection,
+			final Function<SearchHit, E> hitMapper,
+			final Executor mappingExecutor) {
 		
 		Objects.requireNonNull(id);
+		Objects.requireNonNull(projection);
 		Objects.requireNonNull(hitMapper);
+		Objects.requireNonNull(mappingExecutor);
 		
-		SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
-		searchSourceBuilder.query(QueryBuilders.idsQuery(typeName).addIds(id));
-		
-		SearchResponse response = executeSearchRequest(buildSearchRequest(searchSourceBuilder));
-		SearchHits hits = response.getHits();
-		if(hits.getHits().length > 0) {
-			SearchHit hit = hits.getAt(0);
-			return Optional.of(hitMapper.apply(hit));
-		}
-		return Optional.empty();
+		SearchRequest searchRequest = buildSearchByIdRequest(id, projection);
+		return executeSearchRequestAsync(Operation.SEARCH_BY_ID, searchRequest)
+				.thenApplyAsync(r -> mapped(Operation.SEARCH_BY_ID, () -> toOptional(r, hitMapper)), mappingExecutor);
 	}
-
+	
 	/**
-	 * Search with Pagination
+	 * Search with Pagination asynchronously, see {@link #searchPageData(QueryBuilder, Page, List, Function)}.
+	 * The mapper is called on the elasticsearch client thread.
 	 * @param queryBuilder the elasticsearch query
 	 * @param page the pagination information
 	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
 	 * @param hitMapper mapper to convert {@code SearchHit} into object
 	 * @param <E> the type of object 
-	 * @return result into a {@code PageData}
-     * @throws IOException io probleme with elasticsearch
+	 * @return the future result into a {@code PageData}
 	 * @throws NullPointerException if {@code queryBuilder}, {@code page}, {@code sorts} or {@code hitMapper} is null 
 	 */
-	public <E> PageData<E> searchPageData(
+	public <E> CompletableFuture<PageData<E>> searchPageDataAsync(
 			final QueryBuilder queryBuilder,
 			final Page page,
 			final List<Sort> sorts,
-			final Function<SearchHit, E> hitMapper)
-		throws IOException{
-		
-		Objects.requireNonNull(queryBuilder);
-		Objects.requireNonNull(page);
-		Objects.requireNonNull(sorts);
-		Objects.requireNonNull(hitMapper);
-		
-		SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(queryBuilder);
-		addPageInformation(searchSourceBuilder, page);
-		addSortInformation(searchSourceBuilder, sorts);
+			final Function<SearchHit, E> hitMapper) {
 		
-		SearchResponse response = executeSearchRequest(buildSearchRequest(searchSourceBuilder));
-		List<E> datas = Arrays.stream(response.getHits().getHits())
-			.map(hitMapper)
-			.collect(Collectors.toList());
-		return new PageData<>(page, response.getHits().totalHits, datas);
+		return searchPageDataAsync(queryBuilder, page, sorts, Projection.ALL, hitMapper, Runnable::run);
 	}
 	
 	/**
-	 * Search By scrolling data, no pagination !
+	 * Search with Pagination asynchronously, see {@link #searchPageData(QueryBuilder, Page, List, Projection, Function)}.
 	 * @param queryBuilder the elasticsearch query
+	 * @param page the pagination information
 	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param projection the part of the documents to return
 	 * @param hitMapper mapper to convert {@code SearchHit} into object
-	 * @param <E> the type of object to save
-	 * @return result into a {@code PageData}
-     * @throws IOException io probleme with elasticsearch
-	 * @throws NullPointerException if {@code queryBuilder}, {@code sorts} or {@code hitMapper} is null 
+	 * @param mappingExecutor the executor calling the mapper
+	 * @param <E> the type of object 
+	 * @return the future result into a {@code PageData}
+	 * @throws NullPointerException if {@code queryBuilder}, {@code page}, {@code sorts}, 
+	 * {@code projection}, {@code hitMapper} or {@code mappingExecutor} is null 
 	 */
-	public <E> List<E> searchScroll(
+	public <E> CompletableFuture<PageData<E>> searchPageDataAsync(
 			final QueryBuilder queryBuilder,
+			final Page page,
 			final List<Sort> sorts,
-			final Function<SearchHit, E> hitMapper)
-		throws IOException{
-
+			final Projection projection,
+			final Function<SearchHit, E> hitMapper,
+			final Executor mappingExecutor) {
+		
 		Objects.requireNonNull(queryBuilder);
+		Objects.requireNonNull(page);
 		Objects.requireNonNull(sorts);
+		Objects.requireNonNull(projection);
 		Objects.requireNonNull(hitMapper);
+		Objects.requireNonNull(mappingExecutor);
 		
-		List<E> datas = new ArrayList<>();
+		SearchRequest searchRequest = buildPageSearchRequest(queryBuilder, page, sorts, projection);
+		return executeSearchRequestAsync(Operation.SEARCH_PAGE, searchRequest)
+				.thenApplyAsync(r -> mapped(Operation.SEARCH_PAGE, () -> toPageData(r, page, hitMapper)), mappingExecutor);
+	}
+	
+	/**
+	 * Save object with a bulk request asynchronously, see {@link #bulkSave(List, Function)}.
+	 * The chunks are sent one after the other, the objects of a chunk are converted into json 
+	 * when the previous chunk is done, on the elasticsearch client thread.
+	 * @param objects objects to save
+	 * @param jsonMapper mapper to convert object into json
+	 * @param <E> the type of object to save, must be an {@code Identifiable}
+	 * @return the future bulkResponse if the bulk was execute (if list have element)
+	 * @throws NullPointerException if {@code objects} or {@code jsonMapper} is null 
+	 */
+	public <E extends Identifiable> CompletableFuture<Optional<BulkResponse>> bulkSaveAsync(
+			final List<E> objects,
+			final Function<E, String> jsonMapper) {
 		
-		SearchSourceBuilder searchSourceBuilder = buildSearchSourceBuilder(queryBuilder);
-		addSortInformation(searchSourceBuilder, sorts);
+		Objects.requireNonNull(objects);
+		Objects.requireNonNull(jsonMapper);
 		
-		ScrollData<E> scrollDatas = scroll(searchSourceBuilder, hitMapper, new ScrollInfo(30, null));
-		datas.addAll(scrollDatas.getDatas());
-		while(scrollDatas.hasNext()) {
-			scrollDatas = scroll(searchSourceBuilder, hitMapper, scrollDatas.getInfo());
-			datas.addAll(scrollDatas.getDatas());
+		if(objects.isEmpty()) {
+			return CompletableFuture.completedFuture(Optional.empty());
 		}
-		return datas;
+		
+		long start = System.nanoTime();
+		Iterator<DocWriteRequest<?>> requests = objects.stream()
+				.<DocWriteRequest<?>>map(obj -> buildIndexRequest(obj.getId(), jsonMapper.apply(obj)))
+				.iterator();
+		List<BulkResponse> responses = new ArrayList<>();
+		AtomicLong bytes = new AtomicLong();
+		return bulkChunksAsync(requests, requests.next(), responses, bytes)
+				.whenComplete((v, e) -> objects.forEach(obj -> onWrite(obj.getId())))
+				.thenApply(v -> Optional.of(recordBulk(start, bytes.get(), BulkChunks.merge(responses))))
+				.thenCompose(this::awaitBulkRefreshAsync);
 	}
 	
-	private SearchSourceBuilder buildSearchSourceBuilder(
-			final QueryBuilder queryBuilder) {
+	private CompletableFuture<Void> bulkChunksAsync(
+			final Iterator<DocWriteRequest<?>> requests,
+			final DocWriteRequest<?> first,
+			final List<BulkResponse> responses,
+			final AtomicLong bytes) {
 		
-		SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder(); 
-		searchSourceBuilder.query(queryBuilder);		
-		return searchSourceBuilder;
+		// the chunk is built only when the previous one is done, as in bulkWrite
+		BulkRequest chunk = withBulkRefresh(new BulkRequest());
+		chunk.add(first);
+		DocWriteRequest<?> next = null;
+		while(next == null && requests.hasNext()) {
+			DocWriteRequest<?> request = requests.next();
+			if(BulkChunks.isFull(chunk, request, bulkSettings)) {
+				next = request;
+			}else {
+				chunk.add(request);
+			}
+		}
+		bytes.addAndGet(chunk.estimatedSizeInBytes());
+		
+		DocWriteRequest<?> nextChunkFirst = next;
+		CompletableFuture<Void> sent = this.<BulkResponse>execute(listener -> esClient.bulkAsync(chunk, listener))
+				.thenAccept(responses::add);
+		if(nextChunkFirst == null) {
+			return sent;
+		}
+		return sent.thenCompose(v -> bulkChunksAsync(requests, nextChunkFirst, responses, bytes));
 	}
 	
-	private void addPageInformation(
-			final SearchSourceBuilder searchSourceBuilder,
-			final Page page) {
+	/**
+	 * Execute a bulk request asynchronously, see {@link #executeBulk(BulkRequest)}.
+	 * @param bulkRequest The bulk request
+	 * @return the future bulkResponse if the bulk was execute (if list have element)
+	 * @throws NullPointerException if {@code bulkRequest} is null 
+	 */
+	public CompletableFuture<Optional<BulkResponse>> executeBulkAsync(
+			final BulkRequest bulkRequest) {
 		
-		searchSourceBuilder.size(page.getLimit()).from(page.getOffset());
+		Objects.requireNonNull(bulkRequest);
+		
+		if(bulkRequest.numberOfActions() == 0) {
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+		
+		long start = System.nanoTime();
+		return this.<BulkResponse>execute(listener -> esClient.bulkAsync(bulkRequest, listener))
+				.whenComplete((r, e) -> bulkRequest.requests().forEach(request -> onWrite(request.id())))
+				.thenApply(r -> Optional.of(recordBulk(start, bulkRequest.estimatedSizeInBytes(), r)));
 	}
 	
-	private void addSortInformation(
-			final SearchSourceBuilder searchSourceBuilder,
-			final List<Sort> sorts) {
+	/**
+	 * Execute a bulk request split into chunks asynchronously, see {@link #executeBulkInChunks(BulkRequest)}.
+	 * The chunks are sent one after the other.
+	 * @param bulkRequest The bulk request
+	 * @return the future bulkResponse if the bulk was execute (if list have element)
+	 * @throws NullPointerException if {@code bulkRequest} is null 
+	 */
+	public CompletableFuture<Optional<BulkResponse>> executeBulkInChunksAsync(
+			final BulkRequest bulkRequest) {
 		
-		sorts.forEach(s -> searchSourceBuilder.sort(s.getField(), toSortOrder(s.getDirection())));
+		Objects.requireNonNull(bulkRequest);
+		
+		if(bulkRequest.numberOfActions() == 0) {
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+		
+		long start = System.nanoTime();
+		List<BulkResponse> responses = new ArrayList<>();
+		CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+		for (BulkRequest chunk : BulkChunks.split(bulkRequest, bulkSettings)) {
+			chain = chain
+					.thenCompose(v -> this.<BulkResponse>execute(listener -> esClient.bulkAsync(chunk, listener)))
+					.thenAccept(responses::add);
+		}
+		return chain
+				.whenComplete((v, e) -> bulkRequest.requests().forEach(r -> onWrite(r.id())))
+				.thenApply(v -> Optional.of(recordBulk(start, bulkRequest.estimatedSizeInBytes(), BulkChunks.merge(responses))));
 	}
 	
-	private <E> ScrollData<E> scroll(
-			final SearchSourceBuilder searchSourceBuilder,
-			final Function<SearchHit, E> hitMapper,
-			final ScrollInfo scrollInfo)
-		throws IOException{
+	private CompletableFuture<SearchResponse> executeSearchRequestAsync(
+			final Operation operation,
+			final SearchRequest searchRequest) {
 		
-		final Scroll scroll = new Scroll(TimeValue.timeValueSeconds(scrollInfo.getKeepAliveSecond()));
+		return this.<SearchResponse>execute(operation, listener -> esClient.searchAsync(searchRequest, listener))
+				.thenApply(response -> {
+					recordSearch(operation, response);
+					return response;
+				});
+	}
+	
+	/**
+	 * Execute an async call, the latency is recorded when the call completes.
+	 */
+	private <R> CompletableFuture<R> execute(
+			final Operation operation,
+			final Consumer<ActionListener<R>> asyncCall) {
 		
-		final SearchResponse searchResponse;
-		if(scrollInfo.getScrollId() != null) {
-			SearchScrollRequest searchScrollRequest = new SearchScrollRequest(scrollInfo.getScrollId());
-			searchScrollRequest.scroll(scroll);
-			searchResponse = esClient.searchScroll(searchScrollRequest);
-		}else {
-			searchResponse = executeSearchRequest(
-					addScrollInformation(
-							buildSearchRequest(searchSourceBuilder),
-							scroll));
+		long start = System.nanoTime();
+		return this.<R>execute(asyncCall)
+				.whenComplete((r, e) -> metrics.recordLatency(operation, System.nanoTime() - start));
+	}
+	
+	private <R> CompletableFuture<R> execute(
+			final Consumer<ActionListener<R>> asyncCall) {
+		
+		CompletableFuture<R> future = new CompletableFuture<>();
+		try {
+			asyncCall.accept(ActionListener.wrap(future::complete, future::completeExceptionally));
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
 		}
+		return future;
+	}
+    
+    // == hooks
+    
+    /**
+     * Called after each write operation on a document (index, update, delete, bulk), 
+     * even if the operation failed. Does nothing by default.
+     * @param id the id of the document, can be null for a new document
+     */
+    protected void onWrite(
+    		final String id) {
+    	
+    }
+    
+    // == utils functions
+	
+	@FunctionalInterface
+	private interface WriteRequestBuilder<E> {
 		
-		String scrollId = searchResponse.getScrollId();
-		SearchHit[] searchHits = searchResponse.getHits().getHits();
-
-		if(searchHits.length > 0) {
-			return new ScrollData<>(
-					scrollInfo.withScrollId(searchResponse.getScrollId()),
-					toDatas(searchHits, hitMapper)
-			);
-		}else {
-			clearScroll(scrollId);
-			return new ScrollData<>(
-				scrollInfo.withScrollId(searchResponse.getScrollId()),
-				Collections.emptyList()
-			);
-		}	
-
+		DocWriteRequest<?> build(E object) throws IOException;
 	}
-
-	private boolean clearScroll(
-			final String scrollId) 
+	
+	@FunctionalInterface
+	private interface IOCall<R> {
+		
+		R call() throws IOException;
+	}
+	
+	private <R> R timed(
+			final Operation operation,
+			final IOCall<R> call)
 		throws IOException {
 		
-		ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
-		clearScrollRequest.addScrollId(scrollId);
-		ClearScrollResponse response = esClient.clearScroll(clearScrollRequest);
-		return response.isSucceeded();
+		long start = System.nanoTime();
+		try {
+			return call.call();
+		} finally {
+			metrics.recordLatency(operation, System.nanoTime() - start);
+		}
 	}
 	
-	private SearchRequest buildSearchRequest(
-			SearchSourceBuilder searchSourceBuilder) {
+	private <R> R mapped(
+			final Operation operation,
+			final Supplier<R> mapping) {
 		
-		SearchRequest searchRequest = new SearchRequest(indexNameIndex.get()).types(typeName);
-		searchRequest.source(searchSourceBuilder);
-		return searchRequest;
+		long start = System.nanoTime();
+		try {
+			return mapping.get();
+		} finally {
+			metrics.recordMapping(operation, System.nanoTime() - start);
+		}
 	}
 	
-	private SearchResponse executeSearchRequest(
-			SearchRequest searchRequest)
+	private <R extends WriteRequest<R>> R withRefresh(
+			final R request,
+			final boolean immediate) {
+		
+		if(immediate) {
+			// with a group commit, the refresh is done after the response for all the writes of the window
+			request.setRefreshPolicy(refreshSettings.getRefreshPolicy());
+		}
+		return request;
+	}
+	
+	private <R extends DocWriteResponse> R awaitRefresh(
+			final R response,
+			final boolean immediate)
 		throws IOException {
 		
-		return esClient.search(searchRequest);
+		if(immediate && refreshSettings.isGroupCommit()) {
+			groupCommitRefresher.awaitRefresh(Collections.singleton(response.getIndex()), 
+					refreshSettings.getGroupCommitWindowMillis());
+		}
+		return response;
 	}
 	
-	private SearchRequest addScrollInformation(
-			final SearchRequest searchRequest,
-			final Scroll scroll) {
+	private <R extends DocWriteResponse> CompletableFuture<R> awaitRefreshAsync(
+			final R response,
+			final boolean immediate) {
 		
-		searchRequest.scroll(scroll);
-		return searchRequest;
+		if(immediate && refreshSettings.isGroupCommit()) {
+			return groupCommitRefresher.refresh(Collections.singleton(response.getIndex()), 
+					refreshSettings.getGroupCommitWindowMillis())
+					.thenApply(v -> response);
+		}
+		return CompletableFuture.completedFuture(response);
 	}
 	
-	// == bulk
-
-	/**
-	 * Save object with a bulk request.
-	 * @param objects objects to save
-	 * @param jsonMapper mapper to convert object into json
-	 * @param <E> the type of object to save, must be an {@code Identifiable}
-	 * @return the bulkResponse if the bulk was execute (if list have element)
-     * @throws IOException io probleme with elasticsearch
-	 * @throws NullPointerException if {@code objects} or {@code jsonMapper} is null 
-	 */
-    public <E extends Identifiable> Optional<BulkResponse> bulkSave(
-    		final java.util.List<E> objects,
-    		final Function<E, String> jsonMapper)
-    	throws IOException {
-
-		Objects.requireNonNull(objects);
-		Objects.requireNonNull(jsonMapper);
+	private BulkRequest withBulkRefresh(
+			final BulkRequest bulkRequest) {
 		
-    	if(objects.isEmpty()) {
-    		return Optional.empty();
-    	}
-    	BulkRequest bulkRequest = new BulkRequest();
-        for(E obj : objects) {
-        	IndexRequest indexRequest = new IndexRequest(indexNameIndex.get(), typeName, obj.getId())  
-        			.source(jsonMapper.apply(obj), XContentType.JSON);
-            bulkRequest.add(
-            		indexRequest
-            );
-        }
-        
-        return executeBulk(bulkRequest);
-    }
-    
-    /**
-     * Execute a bulk request.
-     * @param bulkRequest The bulk request
- 	 * @return the bulkResponse if the bulk was execute (if list have element)
-     * @throws IOException io probleme with elasticsearch
-	 * @throws NullPointerException if {@code bulkRequest} is null 
-     */
-    public Optional<BulkResponse> executeBulk(
-    		BulkRequest bulkRequest) 
-    	throws IOException {
-    	
-		Objects.requireNonNull(bulkRequest);
+		// the bulks of the repository keep no refresh with the default settings
+		if(immediate && refreshSettings != RefreshSettings.IMMEDIATE) {
+			bulkRequest.setRefreshPolicy(refreshSettings.getRefreshPolicy());
+		}
+		return bulkRequest;
+	}
+	
+	private BulkResponse awaitBulkRefresh(
+			final BulkResponse response)
+		throws IOException {
 		
-        if(bulkRequest.numberOfActions() > 0 ) {
-	        return Optional.of(esClient.bulk(bulkRequest));
-        }
-        return Optional.empty();
-    }
-    
-    /**
-     * Helper method to log failure
-     * @param bulkResponse the bulkresponse
-     * @param logConsumer the log consumer
-	 * @throws NullPointerException if {@code bulkResponse} or {@code logConsumer} is null 
-     */
-    public void bulkLogFailure(
-    		final BulkResponse bulkResponse,
-    		final Consumer<String> logConsumer) {
-    	
-		Objects.requireNonNull(bulkResponse);
-		Objects.requireNonNull(logConsumer);
+		if(immediate && refreshSettings.isGroupCommit()) {
+			groupCommitRefresher.awaitRefresh(writtenIndices(response), refreshSettings.getGroupCommitWindowMillis());
+		}
+		return response;
+	}
+	
+	private CompletableFuture<Optional<BulkResponse>> awaitBulkRefreshAsync(
+			final Optional<BulkResponse> response) {
 		
-		if(bulkResponse.hasFailures()) {
-			bulkLogFailureItems(bulkResponse.getItems(), logConsumer);
+		if(response.isPresent() && immediate && refreshSettings.isGroupCommit()) {
+			return groupCommitRefresher.refresh(writtenIndices(response.get()), refreshSettings.getGroupCommitWindowMillis())
+					.thenApply(v -> response);
 		}
-    }
-    
-    private void bulkLogFailureItems(
-    		final BulkItemResponse[] responses,
-    		final Consumer<String> logConsumer) {
-    	
-        for (BulkItemResponse response : responses) {
-            if (response.isFailed()) {
-            	logConsumer.accept(response.getFailureMessage());
-            }
-        }
-    }
-    
-    // == utils functions
+		return CompletableFuture.completedFuture(response);
+	}
+	
+	private static Set<String> writtenIndices(
+			final BulkResponse response) {
+		
+		return Arrays.stream(response.getItems())
+				.filter(item -> !item.isFailed())
+				.map(BulkItemResponse::getIndex)
+				.collect(Collectors.toSet());
+	}
+	
+	private <E> BytesReference toBytes(
+			final E object,
+			final DocumentWriter<E> documentWriter)
+		throws IOException {
+		
+		BytesStreamOutput out = new BytesStreamOutput();
+		documentWriter.write(object, out);
+		return out.bytes();
+	}
     
 	private SortOrder toSortOrder(
 			final SortDirection sd) {
@@ -564,9 +3078,15 @@ public class ElasticSearchRepository {
 		}
 	}
 	
+	private String[] toArray(
+			final List<String> values) {
+		
+		return values.isEmpty() ? null : values.toArray(new String[values.size()]);
+	}
+	
 	// == transform datas
 	
-	private <E> List<E> toDatas(
+	<E> List<E> toDatas(
 			final SearchHit[] hits,
 			final Function<SearchHit, E> hitMapper){
 		
@@ -575,6 +3095,22 @@ public class ElasticSearchRepository {
 		return datas;
 	}
 	
+	private <E> void appendDatas(
+			final MultiGetResponse response,
+			final Map<String, E> datasToAppend,
+			final Function<GetResponse, E> getMapper)
+		throws IOException {
+		
+		for (MultiGetItemResponse item : response.getResponses()) {
+			if(item.isFailed()) {
+				throw new IOException("multi get failure on id " + item.getId(), item.getFailure().getFailure());
+			}
+			if(item.getResponse().isExists()) {
+				datasToAppend.put(item.getId(), getMapper.apply(item.getResponse()));
+			}
+		}
+	}
+	
 	private <E> void appendDatas(
 			final SearchHit[] hits,
 			final List<E> datasToAppend,
@@ -0,0 +1,139 @@
+package fr.snasello.datas.es;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Internal use for the group commit of the immediate writes.
+ *
+ * <p>The first write of an index opens a window, the writes arriving during the window wait with it.
+ * At the end of the window, the index is refreshed once on a background thread and all the waiting writes are released.
+ * A write arriving during the refresh opens a new window, as the refresh may not see it.</p>
+ * <p>The windows are shared by all the users of the refresher, a repository and its copies.</p>
+ *
+ * @author Samuel Nasello
+ */
+class GroupCommitRefresher {
+
+	/**
+	 * Refresh an index.
+	 */
+	@FunctionalInterface
+	interface IndexRefresher {
+
+		void refresh(String index) throws IOException;
+	}
+
+	private static final long IDLE_SECONDS = 10;
+
+	private final IndexRefresher refresher;
+
+	private final ScheduledThreadPoolExecutor scheduler;
+
+	// guarded by this
+	private final Map<String, CompletableFuture<Void>> windows;
+
+	public GroupCommitRefresher(IndexRefresher refresher) {
+		super();
+
+		Objects.requireNonNull(refresher);
+
+		this.refresher = refresher;
+		this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "elasticsearch-group-commit");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// no thread kept while there is no write
+		this.scheduler.setKeepAliveTime(IDLE_SECONDS, TimeUnit.SECONDS);
+		this.scheduler.allowCoreThreadTimeOut(true);
+		this.windows = new HashMap<>();
+	}
+
+	/**
+	 * Wait until the indices are refreshed, must be called after the writes are done.
+	 * @param indices the indices written
+	 * @param windowMillis the duration of a window opened by this call
+	 * @throws IOException if a refresh failed
+	 * @throws InterruptedIOException if interrupted while waiting
+	 */
+	public void awaitRefresh(
+			final Collection<String> indices,
+			final long windowMillis)
+		throws IOException {
+
+		try {
+			refresh(indices, windowMillis).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while waiting the refresh of " + indices);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if(cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Join the windows of the indices, must be called after the writes are done.
+	 * @param indices the indices written
+	 * @param windowMillis the duration of a window opened by this call
+	 * @return the future completed when all the indices are refreshed
+	 */
+	public CompletableFuture<Void> refresh(
+			final Collection<String> indices,
+			final long windowMillis) {
+
+		CompletableFuture<?>[] joined = indices.stream()
+				.distinct()
+				.map(index -> join(index, windowMillis))
+				.toArray(CompletableFuture[]::new);
+		return CompletableFuture.allOf(joined);
+	}
+
+	private CompletableFuture<Void> join(
+			final String index,
+			final long windowMillis) {
+
+		CompletableFuture<Void> window;
+		synchronized (this) {
+			window = windows.get(index);
+			if(window != null) {
+				return window;
+			}
+			window = new CompletableFuture<>();
+			windows.put(index, window);
+		}
+		CompletableFuture<Void> opened = window;
+		scheduler.schedule(() -> refreshAtEndOfWindow(index, opened), windowMillis, TimeUnit.MILLISECONDS);
+		return opened;
+	}
+
+	private void refreshAtEndOfWindow(
+			final String index,
+			final CompletableFuture<Void> window) {
+
+		synchronized (this) {
+			windows.remove(index);
+		}
+		try {
+			refresher.refresh(index);
+			window.complete(null);
+		} catch (IOException | RuntimeException e) {
+			window.completeExceptionally(e);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package fr.snasello.datas.es;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A simple thread safe histogram of positive values, with a bucket by power of two.
+ * 
+ * <p>The percentiles are approximated by the upper bound of the bucket, so with an error up to 2x,
+ * enough to see the order of magnitude without external library.</p>
+ * 
+ * @author Samuel Nasello
+ */
+public class Histogram {
+
+	private static final int BUCKETS = 64;
+	
+	private final AtomicLongArray counts;
+	
+	private final AtomicLong count;
+	
+	private final AtomicLong sum;
+	
+	private final AtomicLong max;
+	
+	/**
+	 * Constructor.
+	 */
+	public Histogram() {
+		super();
+		
+		this.counts = new AtomicLongArray(BUCKETS);
+		this.count = new AtomicLong();
+		this.sum = new AtomicLong();
+		this.max = new AtomicLong();
+	}
+	
+	/**
+	 * Record a value, a negative value is recorded as 0.
+	 * @param value the value
+	 */
+	public void record(
+			final long value) {
+		
+		long positive = Math.max(value, 0L);
+		counts.incrementAndGet(bucket(positive));
+		count.incrementAndGet();
+		sum.addAndGet(positive);
+		max.accumulateAndGet(positive, Math::max);
+	}
+	
+	/**
+	 * the number of recorded values.
+	 * @return the count
+	 */
+	public long getCount() {
+		return count.get();
+	}
+	
+	/**
+	 * the sum of the recorded values.
+	 * @return the sum
+	 */
+	public long getSum() {
+		return sum.get();
+	}
+	
+	/**
+	 * the maximum recorded value.
+	 * @return the maximum, 0 if no value
+	 */
+	public long getMax() {
+		return max.get();
+	}
+	
+	/**
+	 * the mean of the recorded values.
+	 * @return the mean, 0 if no value
+	 */
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0d : (double) sum.get() / n;
+	}
+	
+	/**
+	 * An approximation of a percentile, the upper bound of the bucket containing the percentile.
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the approximated value, 0 if no value
+	 * @throws IllegalArgumentException if {@code percentile} is not between 0 and 100
+	 */
+	public long getPercentile(
+			final double percentile) {
+		
+		if(percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("percentile must be between 0 and 100");
+		}
+		long n = count.get();
+		if(n == 0) {
+			return 0L;
+		}
+		long rank = Math.max(1L, (long) Math.ceil(n * percentile / 100d));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if(seen >= rank) {
+				return Math.min(upperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+	
+	static int bucket(
+			final long value) {
+		
+		return value == 0 ? 0 : BUCKETS - Long.numberOfLeadingZeros(value) - 1;
+	}
+	
+	private static long upperBound(
+			final int bucket) {
+		
+		return bucket >= BUCKETS - 2 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1;
+	}
+}
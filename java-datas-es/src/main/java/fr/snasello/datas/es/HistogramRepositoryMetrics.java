@@ -0,0 +1,130 @@
+package fr.snasello.datas.es;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In process metrics, with a {@link Histogram} by operation for each metric.
+ * 
+ * @author Samuel Nasello
+ */
+public class HistogramRepositoryMetrics implements RepositoryMetrics {
+
+	private final Map<Operation, Histogram> latencies;
+	
+	private final Map<Operation, Histogram> tooks;
+	
+	private final Map<Operation, Histogram> hits;
+	
+	private final Map<Operation, Histogram> mappings;
+	
+	private final Map<Operation, Histogram> requestBytes;
+	
+	private final AtomicLong bulkFailures;
+	
+	/**
+	 * Constructor.
+	 */
+	public HistogramRepositoryMetrics() {
+		super();
+		
+		this.latencies = histograms();
+		this.tooks = histograms();
+		this.hits = histograms();
+		this.mappings = histograms();
+		this.requestBytes = histograms();
+		this.bulkFailures = new AtomicLong();
+	}
+	
+	@Override
+	public void recordLatency(Operation operation, long nanos) {
+		latencies.get(operation).record(nanos);
+	}
+	
+	@Override
+	public void recordTook(Operation operation, long millis) {
+		tooks.get(operation).record(millis);
+	}
+	
+	@Override
+	public void recordHits(Operation operation, long hits) {
+		this.hits.get(operation).record(hits);
+	}
+	
+	@Override
+	public void recordMapping(Operation operation, long nanos) {
+		mappings.get(operation).record(nanos);
+	}
+	
+	@Override
+	public void recordRequestBytes(Operation operation, long bytes) {
+		requestBytes.get(operation).record(bytes);
+	}
+	
+	@Override
+	public void recordBulkFailures(long failures) {
+		bulkFailures.addAndGet(failures);
+	}
+	
+	/**
+	 * the latencies in nanoseconds of an operation.
+	 * @param operation the operation
+	 * @return the histogram
+	 */
+	public Histogram getLatency(Operation operation) {
+		return latencies.get(operation);
+	}
+	
+	/**
+	 * the took in milliseconds of an operation.
+	 * @param operation the operation
+	 * @return the histogram
+	 */
+	public Histogram getTook(Operation operation) {
+		return tooks.get(operation);
+	}
+	
+	/**
+	 * the number of hits of an operation.
+	 * @param operation the operation
+	 * @return the histogram
+	 */
+	public Histogram getHits(Operation operation) {
+		return hits.get(operation);
+	}
+	
+	/**
+	 * the mapping time in nanoseconds of an operation.
+	 * @param operation the operation
+	 * @return the histogram
+	 */
+	public Histogram getMapping(Operation operation) {
+		return mappings.get(operation);
+	}
+	
+	/**
+	 * the request size in bytes of an operation.
+	 * @param operation the operation
+	 * @return the histogram
+	 */
+	public Histogram getRequestBytes(Operation operation) {
+		return requestBytes.get(operation);
+	}
+	
+	/**
+	 * the total number of failed items of bulks.
+	 * @return the number of failed items
+	 */
+	public long getBulkFailures() {
+		return bulkFailures.get();
+	}
+	
+	private static Map<Operation, Histogram> histograms() {
+		Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+		for (Operation operation : Operation.values()) {
+			histograms.put(operation, new Histogram());
+		}
+		return histograms;
+	}
+}
@@ -0,0 +1,235 @@
+package fr.snasello.datas.es;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded cache by id, with LRU eviction, a time to live and hit/miss statistics.
+ * 
+ * <p>To avoid caching a value read before a write, a value is put with the stamp taken before the read,
+ * it is ignored if the same id was invalidated since. The last invalidations are tracked by id, 
+ * up to {@code maxSize} ids, an older invalidation makes every put with an older stamp ignored.</p>
+ * <p>A value can be put with the source it was read from (an index), a get with another source is a miss, 
+ * the invalidation of an id removes the value whatever its source.</p>
+ * 
+ * @author Samuel Nasello
+ *
+ * @param <V> the type of the cached values
+ */
+public class IdCache<V> {
+
+	private static final class Entry<V> {
+		
+		private final String source;
+		
+		private final V value;
+		
+		private final long expireAt;
+
+		private Entry(String source, V value, long expireAt) {
+			this.source = source;
+			this.value = value;
+			this.expireAt = expireAt;
+		}
+	}
+	
+	private final int maxSize;
+	
+	private final long ttlMillis;
+	
+	private final LongSupplier clock;
+	
+	private final LinkedHashMap<String, Entry<V>> entries;
+	
+	private final LinkedHashMap<String, Long> invalidatedAt;
+	
+	private long sequence;
+	
+	private long floor;
+	
+	private long hitCount;
+	
+	private long missCount;
+	
+	private long evictionCount;
+	
+	/**
+	 * Constructor.
+	 * @param maxSize the maximum number of values
+	 * @param ttlMillis the time to live of a value in milliseconds
+	 * @throws IllegalArgumentException if {@code maxSize} or {@code ttlMillis} is lower than 1
+	 */
+	public IdCache(int maxSize, long ttlMillis) {
+		this(maxSize, ttlMillis, System::currentTimeMillis);
+	}
+	
+	IdCache(int maxSize, long ttlMillis, LongSupplier clock) {
+		super();
+		
+		Objects.requireNonNull(clock);
+		if(maxSize < 1 || ttlMillis < 1) {
+			throw new IllegalArgumentException("maxSize and ttlMillis must be greater than 0");
+		}
+		
+		this.maxSize = maxSize;
+		this.ttlMillis = ttlMillis;
+		this.clock = clock;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+		this.invalidatedAt = new LinkedHashMap<>();
+	}
+	
+	/**
+	 * Get a value put without source.
+	 * @param id the id
+	 * @return the value, or empty if absent or expired
+	 */
+	public Optional<V> get(
+			final String id) {
+		
+		return get(id, null);
+	}
+	
+	/**
+	 * Get a value read from a source.
+	 * @param id the id
+	 * @param source the source, null for a value put without source
+	 * @return the value, or empty if absent, expired or read from another source
+	 */
+	public synchronized Optional<V> get(
+			final String id,
+			final String source) {
+		
+		Entry<V> entry = entries.get(id);
+		if(entry != null && (entry.expireAt <= clock.getAsLong() || !Objects.equals(entry.source, source))) {
+			entries.remove(id);
+			entry = null;
+		}
+		if(entry == null) {
+			missCount++;
+			return Optional.empty();
+		}
+		hitCount++;
+		return Optional.of(entry.value);
+	}
+	
+	/**
+	 * Get the stamp to use for a put, must be taken before reading the value.
+	 * @return the stamp
+	 */
+	public synchronized long stamp() {
+		return sequence;
+	}
+	
+	/**
+	 * Put a value, ignored if the id was invalidated since the stamp.
+	 * @param id the id
+	 * @param value the value
+	 * @param stamp the stamp taken before reading the value
+	 * @throws NullPointerException if {@code id} or {@code value} is null
+	 */
+	public void put(
+			final String id,
+			final V value,
+			final long stamp) {
+		
+		put(id, null, value, stamp);
+	}
+	
+	/**
+	 * Put a value read from a source, ignored if the id was invalidated since the stamp.
+	 * @param id the id
+	 * @param source the source, null for no source
+	 * @param value the value
+	 * @param stamp the stamp taken before reading the value
+	 * @throws NullPointerException if {@code id} or {@code value} is null
+	 */
+	public synchronized void put(
+			final String id,
+			final String source,
+			final V value,
+			final long stamp) {
+		
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(value);
+		
+		Long invalidation = invalidatedAt.get(id);
+		if(stamp < floor || (invalidation != null && invalidation > stamp)) {
+			return;
+		}
+		entries.put(id, new Entry<>(source, value, clock.getAsLong() + ttlMillis));
+		Iterator<Map.Entry<String, Entry<V>>> iterator = entries.entrySet().iterator();
+		while(entries.size() > maxSize && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+			evictionCount++;
+		}
+	}
+	
+	/**
+	 * Remove a value.
+	 * @param id the id
+	 */
+	public synchronized void invalidate(
+			final String id) {
+		
+		sequence++;
+		if(id == null) {
+			return;
+		}
+		entries.remove(id);
+		invalidatedAt.remove(id);
+		invalidatedAt.put(id, sequence);
+		Iterator<Map.Entry<String, Long>> iterator = invalidatedAt.entrySet().iterator();
+		while(invalidatedAt.size() > maxSize && iterator.hasNext()) {
+			floor = Math.max(floor, iterator.next().getValue());
+			iterator.remove();
+		}
+	}
+	
+	/**
+	 * Remove all values.
+	 */
+	public synchronized void invalidateAll() {
+		sequence++;
+		floor = sequence;
+		entries.clear();
+		invalidatedAt.clear();
+	}
+	
+	/**
+	 * the number of values.
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * the number of get with a value.
+	 * @return the hit count
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * the number of get without value.
+	 * @return the miss count
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * the number of values removed because the cache was full.
+	 * @return the eviction count
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+	
+}
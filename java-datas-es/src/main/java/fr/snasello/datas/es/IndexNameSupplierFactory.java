@@ -1,13 +1,28 @@
 package fr.snasello.datas.es;
 
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 /**
  * Utility class to provide some common indexname pattern, like index by day, by month or by year.
  * 
+ * <p>The date formatter is compiled once per supplier and the index name is cached, 
+ * it is formatted again only when the date change.</p>
+ * 
  * @author Samuel Nasello
  *
  */
@@ -32,7 +47,7 @@ public final class IndexNameSupplierFactory {
 	 * @return the supplier for generating index name 
 	 */
 	public static final Supplier<String> dailyIndexNameSupplier(String prefix) {
-		return dailyIndexNameSupplier(prefix, localDateUTCSupplier());
+		return indexNameSupplier(prefix, "yyyy.MM.dd");
 	}
 
 	static final Supplier<String> dailyIndexNameSupplier(String prefix, Supplier<LocalDate> dateSupplier) {
@@ -45,7 +60,7 @@ public final class IndexNameSupplierFactory {
 	 * @return the supplier for generating index name 
 	 */
 	public static final Supplier<String> monthlyIndexNameSupplier(String prefix) {
-		return monthlyIndexNameSupplier(prefix, localDateUTCSupplier());
+		return indexNameSupplier(prefix, "yyyy.MM");
 	}
 
 	static final Supplier<String> monthlyIndexNameSupplier(String prefix, Supplier<LocalDate> dateSupplier) {
@@ -58,7 +73,7 @@ public final class IndexNameSupplierFactory {
 	 * @return the supplier for generating index name 
 	 */
 	public static final Supplier<String> yearlyIndexNameSupplier(String prefix) {
-		return yearlyIndexNameSupplier(prefix, localDateUTCSupplier());
+		return indexNameSupplier(prefix, "yyyy");
 	}
 
 	static final Supplier<String> yearlyIndexNameSupplier(String prefix, Supplier<LocalDate> dateSupplier) {
@@ -66,13 +81,18 @@ public final class IndexNameSupplierFactory {
 	}
 
 	/**
-	 * Base method for creating supplier
+	 * Base method for creating supplier, with the current date in TimeZone UTC.
+	 * The name is cached until the next day in UTC, so {@code get()} only read the clock.
 	 * @param prefix the prefix for the index name
 	 * @param pattern the date pattern
 	 * @return the supplier for generating index name 
 	 */
 	public static final Supplier<String> indexNameSupplier(String prefix, String pattern) {
-		return indexNameSupplier(prefix, pattern, localDateUTCSupplier());
+		return indexNameSupplier(prefix, pattern, System::currentTimeMillis);
+	}
+	
+	static final Supplier<String> indexNameSupplier(String prefix, String pattern, LongSupplier clockMillis) {
+		return new ClockIndexNameSupplier(prefix, DateTimeFormatter.ofPattern(pattern), clockMillis);
 	}
 	
 	/**
@@ -84,7 +104,85 @@ public final class IndexNameSupplierFactory {
 	 */
 	public static final Supplier<String> indexNameSupplier(String prefix, String pattern,
 			Supplier<LocalDate> dateSupplier) {
-		return () -> indexName(prefix, dateSupplier.get(), pattern);
+		return new DateIndexNameSupplier(prefix, DateTimeFormatter.ofPattern(pattern), dateSupplier);
+	}
+
+	/**
+	 * Daily index name of a document. the name will be prefix + yyyy.MM.dd of the document timestamp
+	 * @param prefix the prefix for the index name
+	 * @param timestampMillis the timestamp of the document, in milliseconds since epoch
+	 * @param <E> the type of document
+	 * @return the function for generating index name of a document
+	 */
+	public static final <E> Function<E, String> dailyIndexNameRouter(String prefix, ToLongFunction<E> timestampMillis) {
+		return indexNameRouter(prefix, "yyyy.MM.dd", timestampMillis);
+	}
+	
+	/**
+	 * Monthly index name of a document. the name will be prefix + yyyy.MM of the document timestamp
+	 * @param prefix the prefix for the index name
+	 * @param timestampMillis the timestamp of the document, in milliseconds since epoch
+	 * @param <E> the type of document
+	 * @return the function for generating index name of a document
+	 */
+	public static final <E> Function<E, String> monthlyIndexNameRouter(String prefix, ToLongFunction<E> timestampMillis) {
+		return indexNameRouter(prefix, "yyyy.MM", timestampMillis);
+	}
+	
+	/**
+	 * Yearly index name of a document. the name will be prefix + yyyy of the document timestamp
+	 * @param prefix the prefix for the index name
+	 * @param timestampMillis the timestamp of the document, in milliseconds since epoch
+	 * @param <E> the type of document
+	 * @return the function for generating index name of a document
+	 */
+	public static final <E> Function<E, String> yearlyIndexNameRouter(String prefix, ToLongFunction<E> timestampMillis) {
+		return indexNameRouter(prefix, "yyyy", timestampMillis);
+	}
+	
+	/**
+	 * Base method for creating index name of a document, from the date in TimeZone UTC of its timestamp.
+	 * The names are cached by day, the same day is formatted only once.
+	 * @param prefix the prefix for the index name
+	 * @param pattern the date pattern
+	 * @param timestampMillis the timestamp of the document, in milliseconds since epoch
+	 * @param <E> the type of document
+	 * @return the function for generating index name of a document
+	 */
+	public static final <E> Function<E, String> indexNameRouter(String prefix, String pattern, 
+			ToLongFunction<E> timestampMillis) {
+		
+		IndexNameRouter router = new IndexNameRouter(prefix, DateTimeFormatter.ofPattern(pattern));
+		return document -> router.indexName(timestampMillis.applyAsLong(document));
+	}
+
+	/**
+	 * The index names covering a time range, in TimeZone UTC. 
+	 * For example with the pattern yyyy.MM.dd, there is one name per day of the range.
+	 * @param prefix the prefix for the index name
+	 * @param pattern the date pattern
+	 * @param from the start of the range, inclusive
+	 * @param to the end of the range, inclusive
+	 * @return the index names, in chronological order
+	 * @throws NullPointerException if {@code from} or {@code to} is null
+	 * @throws IllegalArgumentException if {@code from} is after {@code to}
+	 */
+	public static final List<String> indexNames(String prefix, String pattern, Instant from, Instant to) {
+		Objects.requireNonNull(from);
+		Objects.requireNonNull(to);
+		if(from.isAfter(to)) {
+			throw new IllegalArgumentException("from must be before to");
+		}
+		
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+		LocalDate last = LocalDate.ofEpochDay(Math.floorDiv(to.toEpochMilli(), TimeUnit.DAYS.toMillis(1)));
+		Set<String> names = new LinkedHashSet<>();
+		for (LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(from.toEpochMilli(), TimeUnit.DAYS.toMillis(1))); 
+				!date.isAfter(last); 
+				date = date.plusDays(1)) {
+			names.add(prefix + formatter.format(date));
+		}
+		return new ArrayList<>(names);
 	}
 
 	/**
@@ -92,10 +190,122 @@ public final class IndexNameSupplierFactory {
 	 * @return the supplier for generating the current date
 	 */
 	public static final Supplier<LocalDate> localDateUTCSupplier() {
-		return () -> LocalDate.now(ZoneId.of("UTC"));
+		return () -> LocalDate.now(ZoneOffset.UTC);
 	}
 
-	private static final String indexName(String prefix, LocalDate date, String pattern) {
-		return prefix + date.format(DateTimeFormatter.ofPattern(pattern));
+	/**
+	 * Index name of a date.
+	 */
+	private static final class IndexName {
+		
+		private final LocalDate date;
+		
+		private final String name;
+		
+		private IndexName(LocalDate date, String name) {
+			this.date = date;
+			this.name = name;
+		}
+	}
+	
+	/**
+	 * Supplier with a date supplier, the name is formatted only when the date change.
+	 */
+	private static final class DateIndexNameSupplier implements Supplier<String> {
+		
+		private final String prefix;
+		
+		private final DateTimeFormatter formatter;
+		
+		private final Supplier<LocalDate> dateSupplier;
+		
+		private volatile IndexName current;
+		
+		private DateIndexNameSupplier(String prefix, DateTimeFormatter formatter, Supplier<LocalDate> dateSupplier) {
+			this.prefix = prefix;
+			this.formatter = formatter;
+			this.dateSupplier = dateSupplier;
+		}
+		
+		@Override
+		public String get() {
+			LocalDate date = dateSupplier.get();
+			IndexName indexName = current;
+			if(indexName == null || !indexName.date.equals(date)) {
+				indexName = new IndexName(date, prefix + formatter.format(date));
+				current = indexName;
+			}
+			return indexName.name;
+		}
+	}
+	
+	/**
+	 * Index names by day in UTC, the names are cached.
+	 */
+	private static final class IndexNameRouter {
+		
+		private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+		
+		private static final int MAX_CACHED_NAMES = 1024;
+		
+		private final String prefix;
+		
+		private final DateTimeFormatter formatter;
+		
+		private final Map<Long, String> names;
+		
+		private IndexNameRouter(String prefix, DateTimeFormatter formatter) {
+			this.prefix = prefix;
+			this.formatter = formatter;
+			this.names = new ConcurrentHashMap<>();
+		}
+		
+		private String indexName(long timestampMillis) {
+			long epochDay = Math.floorDiv(timestampMillis, MILLIS_PER_DAY);
+			String name = names.get(epochDay);
+			if(name == null) {
+				if(names.size() >= MAX_CACHED_NAMES) {
+					names.clear();
+				}
+				name = prefix + formatter.format(LocalDate.ofEpochDay(epochDay));
+				names.put(epochDay, name);
+			}
+			return name;
+		}
+	}
+	
+	/**
+	 * Supplier with a clock in UTC, the name is cached until the next day, 
+	 * so there is no allocation while the day is the same.
+	 */
+	private static final class ClockIndexNameSupplier implements Supplier<String> {
+		
+		private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+		
+		private final String prefix;
+		
+		private final DateTimeFormatter formatter;
+		
+		private final LongSupplier clockMillis;
+		
+		private volatile IndexName current;
+		
+		private ClockIndexNameSupplier(String prefix, DateTimeFormatter formatter, LongSupplier clockMillis) {
+			this.prefix = prefix;
+			this.formatter = formatter;
+			this.clockMillis = clockMillis;
+		}
+		
+		@Override
+		public String get() {
+			long epochDay = Math.floorDiv(clockMillis.getAsLong(), MILLIS_PER_DAY);
+			IndexName indexName = current;
+			if(indexName == null || indexName.date.toEpochDay() != epochDay) {
+				LocalDate date = LocalDate.ofEpochDay(epochDay);
+				indexName = new IndexName(date, prefix + formatter.format(date));
+				current = indexName;
+			}
+			return indexName.name;
+		}
 	}
 }
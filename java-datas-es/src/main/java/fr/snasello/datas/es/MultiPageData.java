@@ -0,0 +1,99 @@
+package fr.snasello.datas.es;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import fr.snasello.datas.model.PageData;
+
+/**
+ * Results of several {@code PageQuery} sent in one multi search request.
+ * 
+ * <p>Each query has its own result, a {@code PageData} or a failure.</p>
+ * 
+ * @author Samuel Nasello
+ */
+public class MultiPageData {
+
+	private final List<PageQuery<?>> queries;
+	
+	private final List<PageData<?>> datas;
+	
+	private final List<Exception> failures;
+
+	/**
+	 * Constructor.
+	 * @param queries the queries
+	 * @param datas the result of each query, null if failed
+	 * @param failures the failure of each query, null if succeeded
+	 * @throws NullPointerException if {@code queries}, {@code datas} or {@code failures} is null
+	 * @throws IllegalArgumentException if the lists have not the same size
+	 */
+	public MultiPageData(List<PageQuery<?>> queries, List<PageData<?>> datas, List<Exception> failures) {
+		super();
+		
+		Objects.requireNonNull(queries);
+		Objects.requireNonNull(datas);
+		Objects.requireNonNull(failures);
+		if(queries.size() != datas.size() || queries.size() != failures.size()) {
+			throw new IllegalArgumentException("queries, datas and failures must have the same size");
+		}
+		
+		this.queries = queries;
+		this.datas = datas;
+		this.failures = failures;
+	}
+	
+	/**
+	 * Get the result of a query.
+	 * @param query the query
+	 * @param <E> the type of object
+	 * @return the result
+	 * @throws IOException if the query failed
+	 * @throws IllegalArgumentException if the query is not part of the multi search
+	 */
+	@SuppressWarnings("unchecked")
+	public <E> PageData<E> get(
+			final PageQuery<E> query) 
+		throws IOException {
+		
+		int index = indexOf(query);
+		Exception failure = failures.get(index);
+		if(failure != null) {
+			throw new IOException("search failure", failure);
+		}
+		return (PageData<E>) datas.get(index);
+	}
+	
+	/**
+	 * Get the failure of a query.
+	 * @param query the query
+	 * @return the failure, or empty if the query succeeded
+	 * @throws IllegalArgumentException if the query is not part of the multi search
+	 */
+	public Optional<Exception> getFailure(
+			final PageQuery<?> query) {
+		
+		return Optional.ofNullable(failures.get(indexOf(query)));
+	}
+	
+	/**
+	 * has at least one failed query.
+	 * @return true if a query failed
+	 */
+	public boolean hasFailures() {
+		return failures.stream().anyMatch(Objects::nonNull);
+	}
+	
+	private int indexOf(
+			final PageQuery<?> query) {
+		
+		for (int i = 0; i < queries.size(); i++) {
+			if(queries.get(i) == query) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("unknown query");
+	}
+}
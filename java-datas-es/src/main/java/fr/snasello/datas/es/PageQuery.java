@@ -0,0 +1,111 @@
+package fr.snasello.datas.es;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchHit;
+
+import fr.snasello.datas.model.Page;
+import fr.snasello.datas.model.Sort;
+
+/**
+ * Define a search with Pagination, used to send several searches in one multi search request.
+ * 
+ * @author Samuel Nasello
+ *
+ * @param <E> the type of object
+ */
+public class PageQuery<E> {
+
+	private final QueryBuilder queryBuilder;
+	
+	private final Page page;
+	
+	private final List<Sort> sorts;
+	
+	private final Projection projection;
+	
+	private final Function<SearchHit, E> hitMapper;
+
+	/**
+	 * Constructor.
+	 * @param queryBuilder the elasticsearch query
+	 * @param page the pagination information
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @throws NullPointerException if {@code queryBuilder}, {@code page}, {@code sorts} or {@code hitMapper} is null 
+	 */
+	public PageQuery(QueryBuilder queryBuilder, Page page, List<Sort> sorts, Function<SearchHit, E> hitMapper) {
+		this(queryBuilder, page, sorts, Projection.ALL, hitMapper);
+	}
+	
+	/**
+	 * Constructor.
+	 * @param queryBuilder the elasticsearch query
+	 * @param page the pagination information
+	 * @param sorts sorts on field, pass a {@code java.util.Collections.emptyList()} if you don't want to sort
+	 * @param projection the part of the documents to return
+	 * @param hitMapper mapper to convert {@code SearchHit} into object
+	 * @throws NullPointerException if {@code queryBuilder}, {@code page}, {@code sorts}, 
+	 * {@code projection} or {@code hitMapper} is null 
+	 */
+	public PageQuery(QueryBuilder queryBuilder, Page page, List<Sort> sorts, Projection projection, 
+			Function<SearchHit, E> hitMapper) {
+		super();
+		
+		Objects.requireNonNull(queryBuilder);
+		Objects.requireNonNull(page);
+		Objects.requireNonNull(sorts);
+		Objects.requireNonNull(projection);
+		Objects.requireNonNull(hitMapper);
+		
+		this.queryBuilder = queryBuilder;
+		this.page = page;
+		this.sorts = sorts;
+		this.projection = projection;
+		this.hitMapper = hitMapper;
+	}
+
+	/**
+	 * the elasticsearch query.
+	 * @return the query
+	 */
+	public QueryBuilder getQueryBuilder() {
+		return queryBuilder;
+	}
+
+	/**
+	 * the pagination information.
+	 * @return the page
+	 */
+	public Page getPage() {
+		return page;
+	}
+
+	/**
+	 * the sorts.
+	 * @return the sorts
+	 */
+	public List<Sort> getSorts() {
+		return sorts;
+	}
+
+	/**
+	 * the part of the documents to return.
+	 * @return the projection
+	 */
+	public Projection getProjection() {
+		return projection;
+	}
+
+	/**
+	 * the mapper to convert {@code SearchHit} into object.
+	 * @return the hit mapper
+	 */
+	public Function<SearchHit, E> getHitMapper() {
+		return hitMapper;
+	}
+	
+}
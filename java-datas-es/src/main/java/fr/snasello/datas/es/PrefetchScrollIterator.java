@@ -0,0 +1,207 @@
+package fr.snasello.datas.es;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import fr.snasello.datas.es.ScrollIterator.ScrollCleaner;
+import fr.snasello.datas.es.ScrollIterator.ScrollFetcher;
+
+/**
+ * Internal use for scrolling datas lazily, with the next batches fetched in background.
+ *
+ * <p>The batches are fetched one after the other on the {@code executor}, at most {@code prefetchDepth}
+ * batches are waiting to be consumed, so at most {@code prefetchDepth + 2} batches are in memory 
+ * with the batch fetched and waiting for a place and the current one. The batches are mapped in the consumer thread,
+ * so the mapping of a batch and the fetch of the next ones are overlapped.</p>
+ * <p>If the iterator is closed before the end or a fetch fails, the fetch is stopped and the scroll context is cleared.
+ * The failure of a fetch is thrown by the consumer thread.</p>
+ *
+ * @author Samuel Nasello
+ *
+ * @param <R> the type of Object fetched
+ * @param <T> the type of Object in the dataset
+ */
+class PrefetchScrollIterator<R, T> implements Iterator<T>, Closeable {
+
+	private static final long POLL_MILLIS = 10;
+
+	private final ScrollFetcher<R> fetcher;
+
+	private final ScrollCleaner cleaner;
+
+	private final Function<List<R>, List<T>> mapper;
+
+	private final BlockingQueue<Fetched<R>> prefetched;
+
+	private volatile boolean closed;
+
+	private List<T> current;
+
+	private int index;
+
+	private boolean finished;
+
+	public PrefetchScrollIterator(ScrollData<R> first, ScrollFetcher<R> fetcher, ScrollCleaner cleaner,
+			Function<List<R>, List<T>> mapper, int prefetchDepth, Executor executor) {
+		super();
+
+		Objects.requireNonNull(first);
+		Objects.requireNonNull(fetcher);
+		Objects.requireNonNull(cleaner);
+		Objects.requireNonNull(mapper);
+		Objects.requireNonNull(executor);
+		if(prefetchDepth < 1) {
+			throw new IllegalArgumentException("prefetchDepth must be greater than 0 : " + prefetchDepth);
+		}
+
+		this.fetcher = fetcher;
+		this.cleaner = cleaner;
+		this.mapper = mapper;
+		this.prefetched = new ArrayBlockingQueue<>(prefetchDepth);
+		this.closed = false;
+		this.index = 0;
+		// an empty batch means the scroll was already cleared
+		this.finished = !first.hasNext();
+		this.current = mapper.apply(first.getDatas());
+		if(!finished) {
+			executor.execute(() -> prefetch(first.getInfo()));
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		while(index >= current.size()) {
+			if(finished) {
+				return false;
+			}
+			takeNext();
+		}
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return current.get(index++);
+	}
+
+	@Override
+	public void close() {
+		if(!closed) {
+			closed = true;
+			finished = true;
+			current = Collections.emptyList();
+			// unblock the fetch, it clears the scroll context
+			prefetched.clear();
+		}
+	}
+
+	private void takeNext() {
+		Fetched<R> next;
+		try {
+			next = prefetched.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			close();
+			throw new IllegalStateException("interrupted while waiting the next batch", e);
+		}
+		if(next.failure != null) {
+			finished = true;
+			if(next.failure instanceof IOException) {
+				throw new UncheckedIOException((IOException) next.failure);
+			}
+			if(next.failure instanceof Error) {
+				throw (Error) next.failure;
+			}
+			if(next.failure instanceof RuntimeException) {
+				throw (RuntimeException) next.failure;
+			}
+			throw new IllegalStateException(next.failure);
+		}
+		current = mapper.apply(next.data.getDatas());
+		index = 0;
+		finished = !next.data.hasNext();
+	}
+
+	private void prefetch(
+			final ScrollInfo first) {
+
+		ScrollInfo info = first;
+		try {
+			while(true) {
+				ScrollData<R> data = fetcher.fetch(info);
+				info = data.getInfo();
+				if(!offer(new Fetched<>(data, null))) {
+					if(data.hasNext()) {
+						clear(info);
+					}
+					return;
+				}
+				if(!data.hasNext()) {
+					return;
+				}
+			}
+		} catch (Throwable e) {
+			// the scroll context of the failed fetch is still alive
+			try {
+				clear(info);
+			} catch (Throwable suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			offer(new Fetched<>(null, e));
+		}
+	}
+	
+	private void clear(
+			final ScrollInfo info) 
+		throws IOException {
+		
+		if(info.getScrollId() != null) {
+			cleaner.clear(info.getScrollId());
+		}
+	}
+
+	/**
+	 * Wait for a place in the queue.
+	 * @return false if the iterator was closed
+	 */
+	private boolean offer(
+			final Fetched<R> fetched) {
+
+		try {
+			while(!closed) {
+				if(prefetched.offer(fetched, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return false;
+	}
+
+	private static final class Fetched<R> {
+
+		private final ScrollData<R> data;
+
+		private final Throwable failure;
+
+		private Fetched(ScrollData<R> data, Throwable failure) {
+			this.data = data;
+			this.failure = failure;
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package fr.snasello.datas.es;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+
+/**
+ * Define the part of the documents returned by a read operation.
+ *
+ * <p>It can filter the {@code _source} with include/exclude patterns, or disable the {@code _source}
+ * and return only docvalue fields or stored fields (read with {@code SearchHit.getFields()}).</p>
+ * <p>docvalue fields are not supported by the GET API, only the source filtering and stored fields are applied.</p>
+ *
+ * @author Samuel Nasello
+ */
+public class Projection {
+
+	/**
+	 * The full {@code _source}, no projection.
+	 */
+	public static final Projection ALL = new Projection(true, Strings.EMPTY_ARRAY, Strings.EMPTY_ARRAY,
+			Collections.emptyList(), Collections.emptyList());
+
+	private final boolean fetchSource;
+
+	private final String[] includes;
+
+	private final String[] excludes;
+
+	private final List<String> docValueFields;
+
+	private final List<String> storedFields;
+
+	private Projection(boolean fetchSource, String[] includes, String[] excludes,
+			List<String> docValueFields, List<String> storedFields) {
+		super();
+
+		this.fetchSource = fetchSource;
+		this.includes = includes;
+		this.excludes = excludes;
+		this.docValueFields = docValueFields;
+		this.storedFields = storedFields;
+	}
+
+	/**
+	 * Filter the {@code _source}.
+	 * @param includes the patterns of fields to include, empty for all
+	 * @param excludes the patterns of fields to exclude
+	 * @return the projection
+	 * @throws NullPointerException if {@code includes} or {@code excludes} is null
+	 */
+	public static Projection source(
+			final String[] includes,
+			final String[] excludes) {
+
+		Objects.requireNonNull(includes);
+		Objects.requireNonNull(excludes);
+
+		return new Projection(true, includes.clone(), excludes.clone(),
+				Collections.emptyList(), Collections.emptyList());
+	}
+
+	/**
+	 * Filter the {@code _source} with only some fields.
+	 * @param includes the patterns of fields to include
+	 * @return the projection
+	 */
+	public static Projection includes(
+			final String... includes) {
+
+		return source(includes, Strings.EMPTY_ARRAY);
+	}
+
+	/**
+	 * Filter the {@code _source} without some fields.
+	 * @param excludes the patterns of fields to exclude
+	 * @return the projection
+	 */
+	public static Projection excludes(
+			final String... excludes) {
+
+		return source(Strings.EMPTY_ARRAY, excludes);
+	}
+
+	/**
+	 * No {@code _source}, only docvalue fields.
+	 * @param fields the docvalue fields
+	 * @return the projection
+	 */
+	public static Projection docValueFields(
+			final String... fields) {
+
+		return new Projection(false, Strings.EMPTY_ARRAY, Strings.EMPTY_ARRAY,
+				Collections.unmodifiableList(Arrays.asList(fields.clone())), Collections.emptyList());
+	}
+
+	/**
+	 * No {@code _source}, only stored fields.
+	 * @param fields the stored fields
+	 * @return the projection
+	 */
+	public static Projection storedFields(
+			final String... fields) {
+
+		return new Projection(false, Strings.EMPTY_ARRAY, Strings.EMPTY_ARRAY,
+				Collections.emptyList(), Collections.unmodifiableList(Arrays.asList(fields.clone())));
+	}
+
+	/**
+	 * Apply on a search.
+	 * @param searchSourceBuilder the search
+	 * @return the search
+	 */
+	SearchSourceBuilder apply(
+			final SearchSourceBuilder searchSourceBuilder) {
+
+		if(this == ALL) {
+			return searchSourceBuilder;
+		}
+		searchSourceBuilder.fetchSource(fetchSourceContext());
+		docValueFields.forEach(searchSourceBuilder::docValueField);
+		if(!storedFields.isEmpty()) {
+			searchSourceBuilder.storedFields(storedFields);
+		}
+		return searchSourceBuilder;
+	}
+
+	/**
+	 * The source filtering for the GET API.
+	 * @return the source filtering
+	 */
+	FetchSourceContext fetchSourceContext() {
+		return new FetchSourceContext(fetchSource, includes, excludes);
+	}
+
+	/**
+	 * is the {@code _source} returned.
+	 * @return true if the {@code _source} is returned
+	 */
+	public boolean isFetchSource() {
+		return fetchSource;
+	}
+
+	/**
+	 * the patterns of fields to include.
+	 * @return the includes
+	 */
+	public String[] getIncludes() {
+		return includes.clone();
+	}
+
+	/**
+	 * the patterns of fields to exclude.
+	 * @return the excludes
+	 */
+	public String[] getExcludes() {
+		return excludes.clone();
+	}
+
+	/**
+	 * the docvalue fields.
+	 * @return the docvalue fields
+	 */
+	public List<String> getDocValueFields() {
+		return docValueFields;
+	}
+
+	/**
+	 * the stored fields.
+	 * @return the stored fields
+	 */
+	public List<String> getStoredFields() {
+		return storedFields;
+	}
+
+}
@@ -0,0 +1,82 @@
+package fr.snasello.datas.es;
+
+import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+
+/**
+ * Define how the immediate writes are made visible to the search.
+ *
+ * <ul>
+ * <li>{@link #IMMEDIATE} : each write forces a refresh, it creates a new segment per write.</li>
+ * <li>{@link #WAIT_UNTIL} : each write waits for the next periodic refresh of the index.</li>
+ * <li>{@link #groupCommit(long)} : the writes of a time window wait together, and a single refresh
+ * of the index is done at the end of the window. The windows are shared by a repository and its copies.</li>
+ * </ul>
+ * <p>The bulk writes of the repository ({@code bulkSave}, {@code bulkUpdate}, {@code bulkDelete}, the unit of work) 
+ * follow {@code WAIT_UNTIL} and {@code groupCommit}, with {@code IMMEDIATE} they are not refreshed. 
+ * The bulk requests given to {@code executeBulk} keep their own refresh policy.</p>
+ *
+ * @author Samuel Nasello
+ */
+public class RefreshSettings {
+
+	/**
+	 * A refresh for each write, the default.
+	 */
+	public static final RefreshSettings IMMEDIATE = new RefreshSettings(RefreshPolicy.IMMEDIATE, 0);
+
+	/**
+	 * Wait for the periodic refresh.
+	 */
+	public static final RefreshSettings WAIT_UNTIL = new RefreshSettings(RefreshPolicy.WAIT_UNTIL, 0);
+
+	private final RefreshPolicy refreshPolicy;
+
+	private final long groupCommitWindowMillis;
+
+	private RefreshSettings(RefreshPolicy refreshPolicy, long groupCommitWindowMillis) {
+		super();
+
+		this.refreshPolicy = refreshPolicy;
+		this.groupCommitWindowMillis = groupCommitWindowMillis;
+	}
+
+	/**
+	 * A single refresh for all the writes of a time window.
+	 * @param windowMillis the duration in milliseconds of the window
+	 * @return the settings
+	 * @throws IllegalArgumentException if {@code windowMillis} is lower than 1
+	 */
+	public static RefreshSettings groupCommit(
+			final long windowMillis) {
+
+		if(windowMillis < 1) {
+			throw new IllegalArgumentException("windowMillis must be greater than 0 : " + windowMillis);
+		}
+		return new RefreshSettings(RefreshPolicy.NONE, windowMillis);
+	}
+
+	/**
+	 * the refresh policy of the requests, {@code NONE} for a group commit as the refresh is done at the end of the window.
+	 * @return the refresh policy
+	 */
+	public RefreshPolicy getRefreshPolicy() {
+		return refreshPolicy;
+	}
+
+	/**
+	 * is it a group commit.
+	 * @return true for a group commit
+	 */
+	public boolean isGroupCommit() {
+		return groupCommitWindowMillis > 0;
+	}
+
+	/**
+	 * the duration in milliseconds of the window of a group commit, 0 if not a group commit.
+	 * @return the window
+	 */
+	public long getGroupCommitWindowMillis() {
+		return groupCommitWindowMillis;
+	}
+
+}
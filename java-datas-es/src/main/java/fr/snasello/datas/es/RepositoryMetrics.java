@@ -0,0 +1,86 @@
+package fr.snasello.datas.es;
+
+/**
+ * Hook to record the metrics of the operations of a {@link ElasticSearchRepository}.
+ * 
+ * <p>All methods do nothing by default, so an implementation can record only some metrics.
+ * The methods are called by the thread executing the operation, they must be fast and thread safe.</p>
+ * <p>The latency is the time of the request on the client side (network and elasticsearch), 
+ * the took is the time reported by elasticsearch, and the mapping is the time to convert the hits into objects.</p>
+ * 
+ * @author Samuel Nasello
+ * @see HistogramRepositoryMetrics
+ */
+public interface RepositoryMetrics {
+
+	/**
+	 * The operations measured.
+	 */
+	enum Operation {
+		SAVE,
+		UPDATE,
+		DELETE,
+		GET,
+		MULTI_GET,
+		EXISTS,
+		SEARCH_BY_ID,
+		SEARCH_PAGE,
+		MULTI_SEARCH,
+		COUNT,
+		SCROLL_PAGE,
+		BULK
+	}
+	
+	/**
+	 * Metrics doing nothing.
+	 */
+	RepositoryMetrics NOOP = new RepositoryMetrics() {
+	};
+	
+	/**
+	 * Record the latency of a request.
+	 * @param operation the operation
+	 * @param nanos the latency in nanoseconds
+	 */
+	default void recordLatency(Operation operation, long nanos) {
+	}
+	
+	/**
+	 * Record the time reported by elasticsearch.
+	 * @param operation the operation
+	 * @param millis the took in milliseconds
+	 */
+	default void recordTook(Operation operation, long millis) {
+	}
+	
+	/**
+	 * Record the number of hits returned by a search.
+	 * @param operation the operation
+	 * @param hits the number of hits
+	 */
+	default void recordHits(Operation operation, long hits) {
+	}
+	
+	/**
+	 * Record the time to convert the hits into objects.
+	 * @param operation the operation
+	 * @param nanos the mapping time in nanoseconds
+	 */
+	default void recordMapping(Operation operation, long nanos) {
+	}
+	
+	/**
+	 * Record the size of the source of a request.
+	 * @param operation the operation
+	 * @param bytes the size in bytes
+	 */
+	default void recordRequestBytes(Operation operation, long bytes) {
+	}
+	
+	/**
+	 * Record the number of failed items of a bulk.
+	 * @param failures the number of failed items
+	 */
+	default void recordBulkFailures(long failures) {
+	}
+}
@@ -1,22 +1,38 @@
 package fr.snasello.datas.es;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
  * Internal use for scrolling datas
  * 
+ * <p>Without scroll id, the batches are fetched with {@code search_after} on the sort values of the last hit.</p>
+ * 
  * @author Samuel Nasello
  */
 class ScrollInfo {
 
 	private final long keepAliveSecond;
 	private final String scrollId;
+	private final int batchSize;
+	private final List<Object> searchAfter;
 	
 	public ScrollInfo(long keepAliveSecond, String scrollId) {
+		this(keepAliveSecond, scrollId, 0);
+	}
+	
+	public ScrollInfo(long keepAliveSecond, String scrollId, int batchSize) {
+		this(keepAliveSecond, scrollId, batchSize, Collections.emptyList());
+	}
+	
+	private ScrollInfo(long keepAliveSecond, String scrollId, int batchSize, List<Object> searchAfter) {
 		super();
 		
 		this.keepAliveSecond = keepAliveSecond;
 		this.scrollId = scrollId;
+		this.batchSize = batchSize;
+		this.searchAfter = searchAfter;
 	}
 	
 	public ScrollInfo withScrollId(
@@ -24,7 +40,16 @@ class ScrollInfo {
 		
 		Objects.requireNonNull(scrollId);
 		
-		return new ScrollInfo(keepAliveSecond, scrollId);
+		return new ScrollInfo(keepAliveSecond, scrollId, batchSize, searchAfter);
+	}
+	
+	public ScrollInfo withSearchAfter(
+			final List<Object> searchAfter,
+			final int batchSize) {
+		
+		Objects.requireNonNull(searchAfter);
+		
+		return new ScrollInfo(keepAliveSecond, scrollId, batchSize, searchAfter);
 	}
 
 	public long getKeepAliveSecond() {
@@ -35,4 +60,20 @@ class ScrollInfo {
 		return scrollId;
 	}
 	
+	/**
+	 * the number of hits of the next batch, 0 for the default of elasticsearch.
+	 * @return the batch size
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+	
+	/**
+	 * the sort values of the last hit, empty for the first batch.
+	 * @return the sort values
+	 */
+	public List<Object> getSearchAfter() {
+		return searchAfter;
+	}
+	
 }
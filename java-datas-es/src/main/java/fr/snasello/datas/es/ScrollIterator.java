@@ -0,0 +1,109 @@
+package fr.snasello.datas.es;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Internal use for scrolling datas lazily.
+ *
+ * <p>Only one batch is kept in memory, the next one is fetched when the current batch is consumed.</p>
+ * <p>If the iterator is closed before the end, the scroll context is cleared.</p>
+ *
+ * @author Samuel Nasello
+ *
+ * @param <T> the type of Object in the dataset
+ */
+class ScrollIterator<T> implements Iterator<T>, Closeable {
+
+	/**
+	 * Fetch the next batch of a scroll.
+	 *
+	 * @param <T> the type of Object in the dataset
+	 */
+	@FunctionalInterface
+	interface ScrollFetcher<T> {
+
+		ScrollData<T> fetch(ScrollInfo scrollInfo) throws IOException;
+	}
+
+	/**
+	 * Clear a scroll context.
+	 */
+	@FunctionalInterface
+	interface ScrollCleaner {
+
+		void clear(String scrollId) throws IOException;
+	}
+
+	private final ScrollFetcher<T> fetcher;
+
+	private final ScrollCleaner cleaner;
+
+	private ScrollData<T> current;
+
+	private int index;
+
+	private boolean finished;
+
+	public ScrollIterator(ScrollData<T> first, ScrollFetcher<T> fetcher, ScrollCleaner cleaner) {
+		super();
+
+		Objects.requireNonNull(first);
+		Objects.requireNonNull(fetcher);
+		Objects.requireNonNull(cleaner);
+
+		this.current = first;
+		this.fetcher = fetcher;
+		this.cleaner = cleaner;
+		this.index = 0;
+		// an empty batch means the scroll was already cleared
+		this.finished = !first.hasNext();
+	}
+
+	@Override
+	public boolean hasNext() {
+		while(index >= current.getDatas().size()) {
+			if(finished) {
+				return false;
+			}
+			fetchNext();
+		}
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		List<T> datas = current.getDatas();
+		return datas.get(index++);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if(!finished) {
+			finished = true;
+			String scrollId = current.getInfo().getScrollId();
+			if(scrollId != null) {
+				cleaner.clear(scrollId);
+			}
+		}
+	}
+
+	private void fetchNext() {
+		try {
+			ScrollData<T> next = fetcher.fetch(current.getInfo());
+			current = next;
+			index = 0;
+			finished = !next.hasNext();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
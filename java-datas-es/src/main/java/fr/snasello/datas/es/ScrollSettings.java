@@ -0,0 +1,170 @@
+package fr.snasello.datas.es;
+
+/**
+ * Define the batches of a scroll.
+ *
+ * <p>With fixed settings, every batch has {@code batchSize} hits and the scroll context is kept
+ * {@code keepAliveSecond} seconds between two batches.</p>
+ * <p>With adaptive settings, the size of the next batch is computed from the previous response :
+ * halved if the latency is over the target, doubled if the batch was full and the latency under the half of the target,
+ * and always limited so that a batch is under {@code maxBatchBytes} of source. As elasticsearch fixes the size of a scroll
+ * on its first request, the adaptive batches are fetched with {@code search_after} on the sorts and {@code _id},
+ * there is no scroll context and no point in time snapshot.</p>
+ *
+ * @author Samuel Nasello
+ */
+public class ScrollSettings {
+
+	/**
+	 * Default settings : fixed batches of 500 hits, 30 seconds of keep alive.
+	 */
+	public static final ScrollSettings DEFAULT = new ScrollSettings(500, 30);
+
+	private final int batchSize;
+
+	private final long keepAliveSecond;
+
+	private final boolean adaptive;
+
+	private final int minBatchSize;
+
+	private final int maxBatchSize;
+
+	private final long maxBatchBytes;
+
+	private final long targetLatencyMillis;
+
+	/**
+	 * Constructor of fixed settings.
+	 * @param batchSize the number of hits of a batch
+	 * @param keepAliveSecond the time in seconds the scroll context is kept between two batches
+	 * @throws IllegalArgumentException if a value is lower than 1
+	 */
+	public ScrollSettings(int batchSize, long keepAliveSecond) {
+		this(batchSize, keepAliveSecond, false, batchSize, batchSize, Long.MAX_VALUE, Long.MAX_VALUE);
+	}
+
+	private ScrollSettings(int batchSize, long keepAliveSecond, boolean adaptive,
+			int minBatchSize, int maxBatchSize, long maxBatchBytes, long targetLatencyMillis) {
+		super();
+
+		if(batchSize < 1 || keepAliveSecond < 1 || minBatchSize < 1 || maxBatchBytes < 1 || targetLatencyMillis < 1) {
+			throw new IllegalArgumentException("scroll settings must be greater than 0");
+		}
+		if(maxBatchSize < minBatchSize) {
+			throw new IllegalArgumentException("maxBatchSize must be greater than minBatchSize");
+		}
+
+		this.batchSize = batchSize;
+		this.keepAliveSecond = keepAliveSecond;
+		this.adaptive = adaptive;
+		this.minBatchSize = minBatchSize;
+		this.maxBatchSize = maxBatchSize;
+		this.maxBatchBytes = maxBatchBytes;
+		this.targetLatencyMillis = targetLatencyMillis;
+	}
+
+	/**
+	 * Adaptive settings, the first batch has {@code minBatchSize} hits.
+	 * @param minBatchSize the minimum number of hits of a batch
+	 * @param maxBatchSize the maximum number of hits of a batch
+	 * @param maxBatchBytes the maximum size in bytes of the sources of a batch
+	 * @param targetLatencyMillis the target latency in milliseconds of a batch
+	 * @return the settings
+	 * @throws IllegalArgumentException if a value is lower than 1 or {@code maxBatchSize} is lower than {@code minBatchSize}
+	 */
+	public static ScrollSettings adaptive(
+			final int minBatchSize,
+			final int maxBatchSize,
+			final long maxBatchBytes,
+			final long targetLatencyMillis) {
+
+		return new ScrollSettings(minBatchSize, DEFAULT.keepAliveSecond, true,
+				minBatchSize, maxBatchSize, maxBatchBytes, targetLatencyMillis);
+	}
+
+	/**
+	 * The size of the next batch.
+	 * @param currentBatchSize the size asked for the previous batch
+	 * @param hits the number of hits of the previous batch
+	 * @param bytes the size in bytes of the sources of the previous batch
+	 * @param latencyMillis the latency of the previous batch
+	 * @return the size of the next batch
+	 */
+	int nextBatchSize(
+			final int currentBatchSize,
+			final int hits,
+			final long bytes,
+			final long latencyMillis) {
+
+		if(!adaptive || hits == 0) {
+			return currentBatchSize;
+		}
+		long next = currentBatchSize;
+		if(latencyMillis > targetLatencyMillis) {
+			next = currentBatchSize / 2;
+		}else if(hits >= currentBatchSize && latencyMillis * 2 < targetLatencyMillis) {
+			next = currentBatchSize * 2L;
+		}
+		long bytesPerHit = Math.max(1, bytes / hits);
+		next = Math.min(next, Math.min(maxBatchSize, maxBatchBytes / bytesPerHit));
+		return (int) Math.max(next, minBatchSize);
+	}
+
+	/**
+	 * the number of hits of a batch, the first one with adaptive settings.
+	 * @return the batch size
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * the time in seconds the scroll context is kept between two batches.
+	 * @return the keep alive
+	 */
+	public long getKeepAliveSecond() {
+		return keepAliveSecond;
+	}
+
+	/**
+	 * is the batch size adapted to the responses.
+	 * @return true if adaptive
+	 */
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	/**
+	 * the minimum number of hits of a batch.
+	 * @return the minimum batch size
+	 */
+	public int getMinBatchSize() {
+		return minBatchSize;
+	}
+
+	/**
+	 * the maximum number of hits of a batch.
+	 * @return the maximum batch size
+	 */
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	/**
+	 * the maximum size in bytes of the sources of a batch.
+	 * @return the maximum size in bytes
+	 */
+	public long getMaxBatchBytes() {
+		return maxBatchBytes;
+	}
+
+	/**
+	 * the target latency in milliseconds of a batch.
+	 * @return the target latency
+	 */
+	public long getTargetLatencyMillis() {
+		return targetLatencyMillis;
+	}
+
+}
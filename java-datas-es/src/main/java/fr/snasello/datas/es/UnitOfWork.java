@@ -0,0 +1,127 @@
+package fr.snasello.datas.es;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+
+/**
+ * Collect saves, updates and deletes, and execute them in one bulk request on {@link #flush()}.
+ *
+ * <p>The operations are executed in the order they were added, split into chunks according to the
+ * {@code BulkSettings} of the repository. A unit of work is not thread safe, it is meant to be used
+ * by one request, and can be reused after a flush.</p>
+ *
+ * @author Samuel Nasello
+ * @see ElasticSearchRepository#unitOfWork()
+ */
+public class UnitOfWork {
+
+	private final ElasticSearchRepository repository;
+
+	private BulkRequest bulkRequest;
+
+	UnitOfWork(ElasticSearchRepository repository) {
+		super();
+
+		Objects.requireNonNull(repository);
+
+		this.repository = repository;
+		this.bulkRequest = new BulkRequest();
+	}
+
+	/**
+	 * Add the save of an object.
+	 * @param id id of the object, if null then a new object will be created
+	 * @param object the object
+	 * @param jsonMapper the mapper to convert into json
+	 * @param <E> the type of object to save
+	 * @return this unit of work
+	 * @throws NullPointerException if {@code object} or {@code jsonMapper} is null
+	 */
+	public <E> UnitOfWork save(
+			final String id,
+			final E object,
+			final Function<E, String> jsonMapper) {
+
+		Objects.requireNonNull(object);
+		Objects.requireNonNull(jsonMapper);
+
+		bulkRequest.add(repository.buildIndexRequest(id, Objects.requireNonNull(jsonMapper.apply(object))));
+		return this;
+	}
+
+	/**
+	 * Add the update of an object, this is a partial update null value will not be save.
+	 * @param id id of the object
+	 * @param doc the object to update
+	 * @param jsonMapper to convert into json
+	 * @param <E> the type of object to update
+	 * @return this unit of work
+	 * @throws NullPointerException if {@code id}, {@code doc} or {@code jsonMapper} is null
+	 */
+	public <E> UnitOfWork update(
+			final String id,
+			final E doc,
+			final Function<E, String> jsonMapper) {
+
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(doc);
+		Objects.requireNonNull(jsonMapper);
+
+		bulkRequest.add(repository.buildUpdateRequest(id, Objects.requireNonNull(jsonMapper.apply(doc))));
+		return this;
+	}
+
+	/**
+	 * Add the delete of an object.
+	 * @param id id of the object to delete
+	 * @return this unit of work
+	 * @throws NullPointerException if {@code id} is null
+	 */
+	public UnitOfWork delete(
+			final String id) {
+
+		Objects.requireNonNull(id);
+
+		bulkRequest.add(repository.buildDeleteRequest(id));
+		return this;
+	}
+
+	/**
+	 * the number of operations waiting for the flush.
+	 * @return the number of operations
+	 */
+	public int size() {
+		return bulkRequest.numberOfActions();
+	}
+
+	/**
+	 * Execute the operations in a bulk request, the unit of work is empty after, even if the bulk failed.
+	 * <p>There is one result by operation, in the order the operations were added, 
+	 * the item id of a result is the position of its operation. 
+	 * A failure is in the result of its item, check {@link BulkItemResponse#isFailed()}.</p>
+	 * @return the results in the order of the operations, empty if there was no operation
+	 * @throws IOException io probleme with elasticsearch
+	 */
+	public List<BulkItemResponse> flush()
+		throws IOException {
+
+		BulkRequest flushed = bulkRequest;
+		bulkRequest = new BulkRequest();
+
+		Optional<BulkResponse> response = repository.executeUnitOfWork(flushed);
+		if(!response.isPresent()) {
+			return Collections.emptyList();
+		}
+		// the merged items are in the order of the operations
+		return Collections.unmodifiableList(Arrays.asList(response.get().getItems()));
+	}
+}
@@ -0,0 +1,107 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.elasticsearch.action.DocWriteRequest.OpType;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.jupiter.api.Test;
+
+public class BulkChunksTest {
+
+	@Test
+	public void splitUnderLimits() {
+		BulkRequest bulkRequest = bulkRequest(5, "{}");
+		List<BulkRequest> chunks = BulkChunks.split(bulkRequest, new BulkSettings(10, 1024 * 1024, 1));
+		assertEquals(1, chunks.size());
+		assertSame(bulkRequest, chunks.get(0));
+	}
+	
+	@Test
+	public void splitByActions() {
+		BulkRequest bulkRequest = bulkRequest(25, "{}");
+		bulkRequest.setRefreshPolicy(RefreshPolicy.WAIT_UNTIL);
+		List<BulkRequest> chunks = BulkChunks.split(bulkRequest, new BulkSettings(10, 1024 * 1024, 1));
+		assertEquals(3, chunks.size());
+		assertEquals(10, chunks.get(0).numberOfActions());
+		assertEquals(10, chunks.get(1).numberOfActions());
+		assertEquals(5, chunks.get(2).numberOfActions());
+		assertEquals(RefreshPolicy.WAIT_UNTIL, chunks.get(2).getRefreshPolicy());
+	}
+	
+	@Test
+	public void splitByBytes() {
+		char[] chars = new char[1000];
+		Arrays.fill(chars, 'a');
+		BulkRequest bulkRequest = bulkRequest(10, "{\"name\":\"" + new String(chars) + "\"}");
+		List<BulkRequest> chunks = BulkChunks.split(bulkRequest, new BulkSettings(1000, 3000, 1));
+		// about 1000 bytes by action, the size is checked before adding an action
+		assertEquals(5, chunks.size());
+		assertEquals(10, chunks.stream().mapToInt(BulkRequest::numberOfActions).sum());
+		assertTrue(chunks.stream().allMatch(chunk -> chunk.estimatedSizeInBytes() <= 3000));
+	}
+	
+	@Test
+	public void splitLargeAction() {
+		char[] chars = new char[5000];
+		Arrays.fill(chars, 'a');
+		BulkRequest bulkRequest = bulkRequest(3, "{\"name\":\"" + new String(chars) + "\"}");
+		List<BulkRequest> chunks = BulkChunks.split(bulkRequest, new BulkSettings(1000, 3000, 1));
+		assertEquals(3, chunks.size());
+		assertTrue(chunks.stream().allMatch(chunk -> chunk.numberOfActions() == 1));
+	}
+	
+	@Test
+	public void estimatedSizeInBytes() {
+		IndexRequest indexRequest = new IndexRequest("index", "type", "1").source("{\"name\":\"azerty\"}", XContentType.JSON);
+		assertEquals(new BulkRequest().add(indexRequest).estimatedSizeInBytes(), BulkChunks.estimatedSizeInBytes(indexRequest));
+		DeleteRequest deleteRequest = new DeleteRequest("index", "type", "1");
+		assertEquals(new BulkRequest().add(deleteRequest).estimatedSizeInBytes(), BulkChunks.estimatedSizeInBytes(deleteRequest));
+	}
+	
+	@Test
+	public void subset() {
+		BulkRequest bulkRequest = bulkRequest(5, "{}");
+		BulkRequest subset = BulkChunks.subset(bulkRequest, Arrays.asList(1, 3));
+		assertEquals(2, subset.numberOfActions());
+		assertEquals("1", subset.requests().get(0).id());
+		assertEquals("3", subset.requests().get(1).id());
+	}
+	
+	@Test
+	public void merge() {
+		BulkResponse response1 = new BulkResponse(new BulkItemResponse[] {failure(0, "1"), failure(1, "2")}, 10);
+		BulkResponse response2 = new BulkResponse(new BulkItemResponse[] {failure(0, "3")}, 5);
+		
+		BulkResponse merged = BulkChunks.merge(Arrays.asList(response1, response2));
+		assertEquals(3, merged.getItems().length);
+		assertEquals(15, merged.getTook().millis());
+		assertEquals(2, merged.getItems()[2].getItemId());
+		assertEquals("3", merged.getItems()[2].getId());
+		
+		assertSame(response1, BulkChunks.merge(Arrays.asList(response1)));
+	}
+	
+	private BulkItemResponse failure(int itemId, String id) {
+		return new BulkItemResponse(itemId, OpType.INDEX, 
+				new BulkItemResponse.Failure("test-index", "TestType", id, new IllegalStateException("fail")));
+	}
+	
+	private BulkRequest bulkRequest(int size, String json) {
+		BulkRequest bulkRequest = new BulkRequest();
+		for (int i = 0; i < size; i++) {
+			bulkRequest.add(new IndexRequest("test-index", "TestType", Integer.toString(i)).source(json, XContentType.JSON));
+		}
+		return bulkRequest;
+	}
+}
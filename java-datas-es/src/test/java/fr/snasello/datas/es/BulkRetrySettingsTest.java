@@ -0,0 +1,37 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class BulkRetrySettingsTest {
+
+	@Test
+	public void testNew() {
+		BulkRetrySettings settings = new BulkRetrySettings(10, 100, 1000);
+		assertEquals(10, settings.getInitialDelayMillis());
+		assertEquals(100, settings.getMaxDelayMillis());
+		assertEquals(1000, settings.getTimeBudgetMillis());
+	}
+	
+	@Test
+	public void testInvalid() {
+		assertThrows(IllegalArgumentException.class, () -> new BulkRetrySettings(-1, 100, 1000));
+		assertThrows(IllegalArgumentException.class, () -> new BulkRetrySettings(10, 5, 1000));
+		assertThrows(IllegalArgumentException.class, () -> new BulkRetrySettings(10, 100, -1));
+	}
+	
+	@Test
+	public void testDelay() {
+		BulkRetrySettings settings = new BulkRetrySettings(10, 100, 1000);
+		assertEquals(10, settings.delayMillis(0, 1));
+		assertEquals(20, settings.delayMillis(1, 1));
+		assertEquals(40, settings.delayMillis(2, 1));
+		assertEquals(80, settings.delayMillis(3, 1));
+		assertEquals(100, settings.delayMillis(4, 1));
+		assertEquals(100, settings.delayMillis(100, 1));
+		assertEquals(50, settings.delayMillis(100, 0.5));
+		assertEquals(0, settings.delayMillis(2, 0));
+	}
+}
@@ -0,0 +1,24 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class BulkSettingsTest {
+
+	@Test
+	public void testNew() {
+		BulkSettings settings = new BulkSettings(10, 1024, 2);
+		assertEquals(10, settings.getMaxActions());
+		assertEquals(1024, settings.getMaxBytes());
+		assertEquals(2, settings.getConcurrency());
+	}
+	
+	@Test
+	public void testInvalid() {
+		assertThrows(IllegalArgumentException.class, () -> new BulkSettings(0, 1024, 2));
+		assertThrows(IllegalArgumentException.class, () -> new BulkSettings(10, 0, 2));
+		assertThrows(IllegalArgumentException.class, () -> new BulkSettings(10, 1024, 0));
+	}
+}
@@ -0,0 +1,58 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.search.SearchHit;
+import org.junit.jupiter.api.Test;
+
+public class DocumentReaderTest {
+
+	private static final DocumentReader<String> READER = (id, source) -> 
+		id + ":" + (source == null ? null : source.utf8ToString());
+	
+	@Test
+	public void hitMapper() {
+		SearchHit hit = new SearchHit(1, "12", new Text("TestType"), Collections.emptyMap());
+		hit.sourceRef(new BytesArray("{\"name\":\"name 1\"}"));
+		assertEquals("12:{\"name\":\"name 1\"}", DocumentReader.hitMapper(READER).apply(hit));
+		
+		SearchHit hitWithoutSource = new SearchHit(2, "13", new Text("TestType"), Collections.emptyMap());
+		assertEquals("13:null", DocumentReader.hitMapper(READER).apply(hitWithoutSource));
+		
+		assertThrows(NullPointerException.class, () -> DocumentReader.hitMapper(null));
+	}
+	
+	@Test
+	public void getMapper() {
+		GetResponse response = new GetResponse(new GetResult("test", "TestType", "12", 1, true, 
+				new BytesArray("{\"name\":\"name 1\"}"), Collections.emptyMap()));
+		assertEquals("12:{\"name\":\"name 1\"}", DocumentReader.getMapper(READER).apply(response));
+		
+		GetResponse notFound = new GetResponse(new GetResult("test", "TestType", "13", -1, false, 
+				null, Collections.emptyMap()));
+		assertNull(notFound.getSourceAsBytesRef());
+		assertEquals("13:null", DocumentReader.getMapper(READER).apply(notFound));
+		
+		assertThrows(NullPointerException.class, () -> DocumentReader.getMapper(null));
+	}
+	
+	@Test
+	public void readerFailure() {
+		DocumentReader<String> reader = (id, source) -> {
+			throw new IOException("cannot read");
+		};
+		SearchHit hit = new SearchHit(1, "12", new Text("TestType"), Collections.emptyMap());
+		hit.sourceRef(new BytesArray("{}"));
+		assertThrows(UncheckedIOException.class, () -> DocumentReader.hitMapper(reader).apply(hit));
+	}
+}
@@ -0,0 +1,182 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+
+public class ElasticSearchBulkProcessorTest {
+
+    private static final Gson gson = new Gson();
+    
+    @Test
+    public void flushOnMaxActions() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		List<Integer> failures = new CopyOnWriteArrayList<>();
+    		ElasticSearchBulkProcessor processor = new ElasticSearchBulkProcessor(repository(esClient), 2, 0, 0, 0, listener(failures));
+    		processor.index("1", testObject("name 1"), gson::toJson);
+    		assertTrue(failures.isEmpty());
+    		processor.update("1", testObject("name 2"), gson::toJson);
+    		assertEquals(1, failures.size());
+    		assertEquals(2, failures.get(0).intValue());
+    		processor.delete("1");
+    		processor.close();
+    		assertEquals(2, failures.size());
+    		assertEquals(1, failures.get(1).intValue());
+    	}
+    }
+    
+    @Test
+    public void flushOnInterval() throws IOException, InterruptedException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		List<Integer> failures = new CopyOnWriteArrayList<>();
+    		ElasticSearchBulkProcessor processor = new ElasticSearchBulkProcessor(repository(esClient), 0, 0, 10, 1, listener(failures));
+    		processor.delete("1");
+    		long start = System.currentTimeMillis();
+    		while(failures.isEmpty() && System.currentTimeMillis() - start < 5000) {
+    			Thread.sleep(10);
+    		}
+    		assertEquals(1, failures.size());
+    		assertTrue(processor.awaitClose(5, TimeUnit.SECONDS));
+    		assertEquals(1, failures.size());
+    	}
+    }
+    
+    @Test
+    public void listenerFailure() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		List<Integer> failures = new CopyOnWriteArrayList<>();
+    		ElasticSearchBulkProcessor processor = new ElasticSearchBulkProcessor(respondingRepository(esClient), 1, 0, 0, 0,
+    				new ElasticSearchBulkProcessor.Listener() {
+    			@Override
+    			public void afterBulk(BulkRequest bulkRequest, BulkResponse bulkResponse) {
+    				throw new IllegalStateException("listener failure");
+    			}
+    			@Override
+    			public void afterBulk(BulkRequest bulkRequest, Exception failure) {
+    				failures.add(bulkRequest.numberOfActions());
+    			}
+    		});
+    		assertThrows(IllegalStateException.class, () -> processor.delete("1"));
+    		assertTrue(failures.isEmpty());
+    		processor.close();
+    	}
+    }
+    
+    @Test
+    public void scheduledFlushFailure() throws IOException, InterruptedException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		List<RuntimeException> failures = new CopyOnWriteArrayList<>();
+    		ElasticSearchBulkProcessor processor = new ElasticSearchBulkProcessor(respondingRepository(esClient), 0, 0, 10, 0,
+    				new ElasticSearchBulkProcessor.Listener() {
+    			@Override
+    			public void afterBulk(BulkRequest bulkRequest, BulkResponse bulkResponse) {
+    				throw new IllegalStateException("listener failure");
+    			}
+    			@Override
+    			public void afterScheduledFlush(RuntimeException failure) {
+    				failures.add(failure);
+    			}
+    		});
+    		for (int i = 1; i <= 2; i++) {
+    			processor.delete(Integer.toString(i));
+    			long start = System.currentTimeMillis();
+    			while(failures.size() < i && System.currentTimeMillis() - start < 5000) {
+    				Thread.sleep(10);
+    			}
+    			// the flushes are still scheduled after a failure
+    			assertEquals(i, failures.size());
+    		}
+    		assertTrue(processor.awaitClose(5, TimeUnit.SECONDS));
+    	}
+    }
+    
+    @Test
+    public void namedDaemonThreads() throws IOException, InterruptedException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		List<Thread> threads = new CopyOnWriteArrayList<>();
+    		ElasticSearchBulkProcessor processor = new ElasticSearchBulkProcessor(repository(esClient), 1, 0, 0, 1,
+    				new ElasticSearchBulkProcessor.Listener() {
+    			@Override
+    			public void afterBulk(BulkRequest bulkRequest, Exception failure) {
+    				threads.add(Thread.currentThread());
+    			}
+    		});
+    		processor.delete("1");
+    		assertTrue(processor.awaitClose(5, TimeUnit.SECONDS));
+    		assertEquals(1, threads.size());
+    		assertEquals("elasticsearch-bulk-processor-1", threads.get(0).getName());
+    		assertTrue(threads.get(0).isDaemon());
+    	}
+    }
+    
+    @Test
+    public void closed() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchBulkProcessor processor = new ElasticSearchBulkProcessor(repository(esClient), 10, 0, 0, 1, new ElasticSearchBulkProcessor.Listener() {});
+    		processor.close();
+    		assertThrows(IllegalStateException.class, () -> processor.delete("1"));
+    	}
+    }
+    
+    @Test
+    public void invalidArguments() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+    		assertThrows(NullPointerException.class, () -> new ElasticSearchBulkProcessor(null, 10, 0, 0, 1, new ElasticSearchBulkProcessor.Listener() {}));
+    		assertThrows(NullPointerException.class, () -> new ElasticSearchBulkProcessor(repository, 10, 0, 0, 1, null));
+    		assertThrows(IllegalArgumentException.class, () -> new ElasticSearchBulkProcessor(repository, -1, 0, 0, 1, new ElasticSearchBulkProcessor.Listener() {}));
+    	}
+    }
+    
+    private ElasticSearchBulkProcessor.Listener listener(List<Integer> failures) {
+    	return new ElasticSearchBulkProcessor.Listener() {
+    		@Override
+    		public void afterBulk(BulkRequest bulkRequest, Exception failure) {
+    			failures.add(bulkRequest.numberOfActions());
+    		}
+		};
+    }
+    
+    private TestObject testObject(String name) {
+    	TestObject to = new TestObject();
+    	to.setName(name);
+    	return to;
+    }
+    
+    private ElasticSearchRepository repository(
+    		final RestHighLevelClient esClient) {
+    	
+    	return new ElasticSearchRepository(esClient, () -> "test-index", () -> "test-search", "TestType", false);
+    }
+    
+    private ElasticSearchRepository respondingRepository(
+    		final RestHighLevelClient esClient) {
+    	
+    	return new ElasticSearchRepository(esClient, () -> "test-index", () -> "test-search", "TestType", false) {
+    		@Override
+    		public Optional<BulkResponse> executeBulk(BulkRequest bulkRequest) {
+    			return Optional.of(new BulkResponse(new BulkItemResponse[0], 1));
+    		}
+    	};
+    }
+    
+    private RestHighLevelClient esClient() {
+    	return new RestHighLevelClient(RestClient.builder(new HttpHost("localhost", 9999, "http")));
+    }
+}
@@ -9,15 +9,24 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import org.apache.http.HttpHost;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
@@ -40,6 +49,8 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import com.google.gson.Gson;
 
 import fr.snasello.datas.es.ElasticSearchRepository;
+import fr.snasello.datas.model.CursorPage;
+import fr.snasello.datas.model.CursorPageData;
 import fr.snasello.datas.model.Page;
 import fr.snasello.datas.model.PageData;
 import fr.snasello.datas.model.Sort;
@@ -98,6 +109,26 @@ public class ElasticSearchRepositoryITest {
     	}
     }
     
+    @Test
+    public void saveUpdateWithDocumentWriter() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		cleanAndCreateIndex(esClient, TEST_INDEX);
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		
+    		String objId = repository.saveDocument(null, testObject("this is a name"), documentWriter());
+    		assertEquals("this is a name", repository.getById(objId, getMapper()).get().getName());
+    		
+    		repository.updateDocument(objId, testObject("name update"), documentWriter());
+    		assertEquals("name update", repository.getById(objId, getMapper()).get().getName());
+    		
+    		List<TestObject> objects = IntStream.range(1, 17).mapToObj(i -> testObject("name " + i)).collect(Collectors.toList());
+    		Optional<BulkResponse> responses = repository.bulkSaveDocuments(objects, documentWriter());
+    		assertTrue(responses.isPresent());
+    		assertFalse(responses.get().hasFailures());
+    		assertEquals(16, responses.get().getItems().length);
+    	}
+    }
+    
     @Test
     public void searchById() throws IOException {
     	try(RestHighLevelClient esClient = esClient()){
@@ -113,6 +144,46 @@ public class ElasticSearchRepositoryITest {
     	}
     }
     
+    @Test
+    public void getByIds() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		cleanAndCreateIndex(esClient, TEST_INDEX);
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		
+    		assertFalse(repository.getById("123456", getMapper()).isPresent());
+    		
+    		String id1 = repository.save(null, testObject("test name 1"), false, jsonMapper());
+    		String id2 = repository.save(null, testObject("test name 2"), false, jsonMapper());
+    		Optional<TestObject> testObject1 = repository.getById(id1, getMapper());
+    		assertTrue(testObject1.isPresent());
+    		assertEquals("test name 1", testObject1.get().getName());
+    		
+    		Map<String, TestObject> testObjects = repository.getByIds(Arrays.asList(id2, "123456", id1), 2, getMapper());
+    		assertEquals(Arrays.asList(id2, id1), new ArrayList<>(testObjects.keySet()));
+    		assertEquals("test name 2", testObjects.get(id2).getName());
+    	}
+    }
+    
+    @Test
+    public void cachingRepository() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		cleanAndCreateIndex(esClient, TEST_INDEX);
+    		CachingElasticSearchRepository repository = new CachingElasticSearchRepository(esClient, () -> TEST_ALIAS_INDEX, () -> TEST_ALIAS_SEARCH, TEST_TYPE, true, BulkSettings.DEFAULT, 100, 60000);
+    		
+    		String id = repository.save(null, testObject("test name"), jsonMapper());
+    		assertEquals("test name", repository.getById(id, getMapper()).get().getName());
+    		assertEquals("test name", repository.getById(id, getMapper()).get().getName());
+    		assertEquals(1, repository.getGetCache().getHitCount());
+    		
+    		repository.update(id, testObject("name update"), jsonMapper());
+    		assertEquals("name update", repository.getById(id, getMapper()).get().getName());
+    		assertEquals("name update", repository.searchById(id, hitMapper()).get().getName());
+    		
+    		repository.delete(id);
+    		assertFalse(repository.getById(id, getMapper()).isPresent());
+    	}
+    }
+    
     @Test
     public void searchTestSort() throws IOException {
     	try(RestHighLevelClient esClient = esClient()){
@@ -175,6 +246,136 @@ public class ElasticSearchRepositoryITest {
     	}
     }
     
+    @Test
+    public void searchPageDataWithoutTotalWithDatas() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		cleanAndCreateIndex(esClient, TEST_INDEX);
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		IntStream.range(1, 17).forEach(i -> {
+				try {
+					repository.save(String.valueOf(i), testObject("name " + i), true, jsonMapper());
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+    		
+    		PageData<TestObject> datas = repository.searchPageDataWithoutTotal(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), hitMapper());
+    		assertEquals(10, datas.getDatas().size());
+    		assertEquals(10, datas.getTotalSize());
+    		assertFalse(datas.isTotalSizeExact());
+    		
+    		PageData<TestObject> lastDatas = repository.searchPageDataWithoutTotal(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10).nextPage(), Collections.emptyList(), hitMapper());
+    		assertEquals(6, lastDatas.getDatas().size());
+    		assertEquals(16, lastDatas.getTotalSize());
+    		assertTrue(lastDatas.isTotalSizeExact());
+    		
+    		assertEquals(16, repository.count(QueryBuilders.matchAllQuery()));
+    		assertEquals(1, repository.count(QueryBuilders.matchQuery("name", "1")));
+    		assertTrue(repository.exists("1"));
+    		assertFalse(repository.exists("unknown"));
+    	}
+    }
+    
+    @Test
+    public void searchWithDocumentReader() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		cleanAndCreateIndex(esClient, TEST_INDEX);
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		IntStream.range(1, 17).forEach(i -> {
+				try {
+					repository.save(String.valueOf(i), testObject("name " + i), true, jsonMapper());
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+    		
+    		PageData<TestObject> datas = repository.searchPageData(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), DocumentReader.hitMapper(documentReader()));
+    		assertEquals(10, datas.getDatas().size());
+    		datas.getDatas().forEach(o -> assertNotNull(o.getId()));
+    		
+    		Optional<TestObject> byId = repository.searchById("3", DocumentReader.hitMapper(documentReader()));
+    		assertEquals("name 3", byId.get().getName());
+    		assertEquals("3", byId.get().getId());
+    		assertEquals("name 4", repository.getById("4", DocumentReader.getMapper(documentReader())).get().getName());
+    	}
+    }
+    
+    @Test
+    public void searchMultiPageDataWithDatas() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		cleanAndCreateIndex(esClient, TEST_INDEX);
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		IntStream.range(1, 17).forEach(i -> {
+				try {
+					repository.save(null, testObject("name " + i), true, jsonMapper());
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+    		
+    		PageQuery<TestObject> query1 = new PageQuery<>(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), hitMapper());
+    		PageQuery<String> query2 = new PageQuery<>(QueryBuilders.matchQuery("name", "1"), Page.firstPageWithLimit(10), Collections.emptyList(), SearchHit::getId);
+    		MultiPageData multiPageData = repository.searchMultiPageData(Arrays.asList(query1, query2));
+    		assertFalse(multiPageData.hasFailures());
+    		
+    		PageData<TestObject> datas1 = multiPageData.get(query1);
+    		assertEquals(10, datas1.getDatas().size());
+    		assertEquals(16, datas1.getTotalSize());
+    		PageData<String> datas2 = multiPageData.get(query2);
+    		assertEquals(1, datas2.getTotalSize());
+    	}
+    }
+    
+    @Test
+    public void searchWithProjection() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		cleanAndCreateIndex(esClient, TEST_INDEX);
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		String id = repository.save(null, testObject("test name"), jsonMapper());
+    		
+    		Optional<TestObject> included = repository.searchById(id, Projection.includes("name"), hitMapper());
+    		assertEquals("test name", included.get().getName());
+    		Optional<TestObject> excluded = repository.searchById(id, Projection.excludes("name"), hitMapper());
+    		assertEquals(null, excluded.get().getName());
+    		
+    		PageData<Map<String, Object>> sources = repository.searchPageData(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), Projection.excludes("name"), SearchHit::getSourceAsMap);
+    		assertTrue(sources.getDatas().get(0).isEmpty());
+    		
+    		try(Stream<String> names = repository.streamScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.includes("name"), hit -> (String) hit.getSourceAsMap().get("name"))){
+    			assertEquals(Arrays.asList("test name"), names.collect(Collectors.toList()));
+    		}
+    		
+    		Optional<TestObject> got = repository.getById(id, Projection.excludes("name"), getMapper());
+    		assertEquals(null, got.get().getName());
+    	}
+    }
+    
+    @Test
+    public void searchCursorPageDataWithDatas() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		cleanAndCreateIndex(esClient, TEST_INDEX);
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		IntStream.range(1, 17).forEach(i -> {
+				try {
+					repository.save(null, testObject("name " + i), true, jsonMapper());
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+    		
+    		List<Sort> sorts = Arrays.asList(new Sort("name", SortDirection.ASC));
+    		CursorPageData<TestObject> datasPage1 = repository.searchCursorPageData(QueryBuilders.matchAllQuery(), CursorPage.firstPageWithLimit(10), sorts, hitMapper());
+    		assertEquals(10, datasPage1.getDatas().size());
+    		assertEquals(16, datasPage1.getTotalSize());
+    		assertTrue(datasPage1.getNextPage().isPresent());
+    		
+    		CursorPageData<TestObject> datasPage2 = repository.searchCursorPageData(QueryBuilders.matchAllQuery(), datasPage1.getNextPage().get(), sorts, hitMapper());
+    		assertEquals(6, datasPage2.getDatas().size());
+    		assertEquals(16, datasPage2.getTotalSize());
+    		assertFalse(datasPage2.getNextPage().isPresent());
+    	}
+    }
+    
     @Test
     public void searchScrollWithNoDatas() throws IOException {
     	try(RestHighLevelClient esClient = esClient()){
@@ -206,6 +407,52 @@ public class ElasticSearchRepositoryITest {
     	}
     }
     
+    @Test
+    public void streamScrollWithDatas() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		cleanAndCreateIndex(esClient, TEST_INDEX);
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		IntStream.range(1, 17).forEach(i -> {
+				try {
+					repository.save(null, testObject("name " + i), true, jsonMapper());
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+    		
+    		try(Stream<TestObject> stream = repository.streamScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), hitMapper())){
+    			assertEquals(16, stream.count());
+    		}
+    		try(Stream<TestObject> stream = repository.streamScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), hitMapper())){
+    			assertEquals(3, stream.limit(3).count());
+    		}
+    	}
+    }
+    
+    @Test
+    public void parallelScrollWithDatas() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		cleanAndCreateIndex(esClient, TEST_INDEX);
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		IntStream.range(1, 17).forEach(i -> {
+				try {
+					repository.save(null, testObject("name " + i), true, jsonMapper());
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+    		
+    		ExecutorService executor = Executors.newFixedThreadPool(2);
+    		try {
+    			List<TestObject> datas = Collections.synchronizedList(new ArrayList<>());
+    			repository.parallelScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), 2, executor, hitMapper(), datas::add);
+    			assertEquals(16, datas.size());
+    		} finally {
+    			executor.shutdown();
+    		}
+    	}
+    }
+    
     @Test
     public void bulkSaveEmpty() throws IOException {
     	try(RestHighLevelClient esClient = esClient()){
@@ -235,6 +482,52 @@ public class ElasticSearchRepositoryITest {
     	}	
     }
     
+    @Test
+    public void bulkSaveWithIndexRouter() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		Function<TestObject, String> indexRouter = IndexNameSupplierFactory.dailyIndexNameRouter("test-routed-", 
+    				o -> TimeUnit.DAYS.toMillis(Integer.parseInt(o.getId()) % 2));
+    		
+    		List<TestObject> objects = IntStream.range(1, 17).mapToObj(i -> testObject(i, "name " + i)).collect(Collectors.toList());
+    		Optional<BulkResponse> responses = repository.bulkSave(objects, indexRouter, jsonMapper());
+    		assertTrue(responses.isPresent());
+    		assertFalse(responses.get().hasFailures());
+    		
+    		assertTrue(esClient.get(new GetRequest("test-routed-1970.01.01", TEST_TYPE, "2")).isExists());
+    		assertTrue(esClient.get(new GetRequest("test-routed-1970.01.02", TEST_TYPE, "1")).isExists());
+    		assertFalse(esClient.get(new GetRequest("test-routed-1970.01.02", TEST_TYPE, "2")).isExists());
+    		
+    		String id = repository.save("17", testObject(17, "name 17"), indexRouter, jsonMapper());
+    		assertTrue(esClient.get(new GetRequest("test-routed-1970.01.02", TEST_TYPE, id)).isExists());
+    	}	
+    }
+    
+    @Test
+    public void searchOnTimeRange() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		Function<TestObject, String> indexRouter = IndexNameSupplierFactory.dailyIndexNameRouter("test-range-", 
+    				o -> TimeUnit.DAYS.toMillis(Integer.parseInt(o.getId()) % 3));
+    		IntStream.range(1, 10).forEach(i -> {
+				try {
+					repository.save(String.valueOf(i), testObject(i, "name " + i), true, indexRouter, jsonMapper());
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+    		
+    		ElasticSearchRepository rangeRepository = repository.searchOnTimeRange("test-range-", "yyyy.MM.dd", 
+    				Instant.EPOCH, Instant.EPOCH.plus(1, ChronoUnit.DAYS));
+    		assertEquals(6, rangeRepository.count(QueryBuilders.matchAllQuery()));
+    		
+    		ElasticSearchRepository missingRepository = repository.searchOnTimeRange("test-range-", "yyyy.MM.dd", 
+    				Instant.EPOCH.plus(2, ChronoUnit.DAYS), Instant.EPOCH.plus(10, ChronoUnit.DAYS));
+    		PageData<TestObject> datas = missingRepository.searchPageData(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), hitMapper());
+    		assertEquals(3, datas.getTotalSize());
+    	}	
+    }
+    
     @Test
     public void bulkSaveWithFailures() throws IOException {
     	try(RestHighLevelClient esClient = esClient()){
@@ -272,6 +565,30 @@ public class ElasticSearchRepositoryITest {
     	};
     }
     
+    private Function<GetResponse, TestObject> getMapper() {
+    	return response -> {
+    		TestObject to = gson.fromJson(response.getSourceAsString(), TestObject.class);
+    		to.setId(response.getId());
+    		return to;
+    	};
+    }
+    
+    private DocumentWriter<TestObject> documentWriter(){
+    	return (e, out) -> {
+    		Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    		gson.toJson(e, writer);
+    		writer.flush();
+    	};
+    }
+    
+    private DocumentReader<TestObject> documentReader(){
+    	return (id, source) -> {
+    		TestObject to = gson.fromJson(new InputStreamReader(source.streamInput(), StandardCharsets.UTF_8), TestObject.class);
+    		to.setId(id);
+    		return to;
+    	};
+    }
+    
     private Function<TestObject, String> jsonMapper(){
     	return e -> gson.toJson(e);
     }
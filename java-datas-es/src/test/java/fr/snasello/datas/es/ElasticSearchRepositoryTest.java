@@ -1,17 +1,30 @@
 package fr.snasello.datas.es;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import org.apache.http.HttpHost;
 import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
@@ -23,6 +36,7 @@ import org.junit.jupiter.api.Test;
 
 import com.google.gson.Gson;
 
+import fr.snasello.datas.model.CursorPage;
 import fr.snasello.datas.model.Page;
 
 public class ElasticSearchRepositoryTest {
@@ -51,6 +65,100 @@ public class ElasticSearchRepositoryTest {
     	}
     }
     
+    @Test
+    public void saveWithIndexRouter() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		assertThrows(IOException.class, () -> repository.save("1234", testObject("name 1"), o -> TEST_ALIAS_INDEX, jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.save("1234", null, o -> TEST_ALIAS_INDEX, jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.save("1234", testObject("name 1"), null, jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.save("1234", testObject("name 1"), true, o -> TEST_ALIAS_INDEX, null));
+    		
+    		List<TestObject> objects = IntStream.range(1, 17).mapToObj(i -> testObject("name " + i)).collect(Collectors.toList());
+    		assertThrows(IOException.class, () -> repository.bulkSave(objects, o -> TEST_ALIAS_INDEX, jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.bulkSave(null, o -> TEST_ALIAS_INDEX, jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.bulkSave(objects, null, jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.bulkSave(objects, o -> TEST_ALIAS_INDEX, null));
+    	}
+    }
+    
+    @Test
+    public void refreshSettings() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		ElasticSearchRepository waitUntil = repository.withRefreshSettings(RefreshSettings.WAIT_UNTIL);
+    		assertThrows(IOException.class, () -> waitUntil.save("1234", testObject("name 1"), jsonMapper()));
+    		ElasticSearchRepository groupCommit = repository.withRefreshSettings(RefreshSettings.groupCommit(10));
+    		assertThrows(IOException.class, () -> groupCommit.save("1234", testObject("name 1"), jsonMapper()));
+    		assertThrows(IOException.class, () -> groupCommit.update("1234", testObject("name 1"), jsonMapper()));
+    		assertThrows(IOException.class, () -> groupCommit.delete("1234"));
+    		assertThrows(NullPointerException.class, () -> repository.withRefreshSettings(null));
+    	}
+    }
+    
+    @Test
+    public void upsertAndConditionalWrites() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE).withRetryOnConflict(3);
+    		Map<String, Object> params = Collections.singletonMap("count", 1);
+    		String script = "ctx._source.count += params.count";
+    		assertThrows(IOException.class, () -> repository.upsert("1234", testObject("name 1"), jsonMapper()));
+    		assertThrows(IOException.class, () -> repository.upsert("1234", testObject("name 1"), true, jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.upsert(null, testObject("name 1"), jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.upsert("1234", null, jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.upsert("1234", testObject("name 1"), null));
+    		
+    		assertThrows(IOException.class, () -> repository.updateWithScript("1234", script, params));
+    		assertThrows(IOException.class, () -> repository.upsertWithScript("1234", script, params, testObject("name 1"), jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.updateWithScript(null, script, params));
+    		assertThrows(NullPointerException.class, () -> repository.updateWithScript("1234", null, params));
+    		assertThrows(NullPointerException.class, () -> repository.updateWithScript("1234", script, null));
+    		assertThrows(NullPointerException.class, () -> repository.upsertWithScript("1234", script, params, null, jsonMapper()));
+    		
+    		assertThrows(IOException.class, () -> repository.saveIfAbsent("1234", testObject("name 1"), jsonMapper()));
+    		assertThrows(IOException.class, () -> repository.saveIfVersion("1234", testObject("name 1"), 1, jsonMapper()));
+    		assertThrows(IOException.class, () -> repository.updateIfVersion("1234", testObject("name 1"), 1, jsonMapper()));
+    		assertThrows(IOException.class, () -> repository.deleteIfVersion("1234", 1));
+    		assertThrows(NullPointerException.class, () -> repository.saveIfAbsent(null, testObject("name 1"), jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.saveIfVersion("1234", null, 1, jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.updateIfVersion("1234", testObject("name 1"), 1, null));
+    		assertThrows(NullPointerException.class, () -> repository.deleteIfVersion(null, 1));
+    		
+    		assertThrows(IllegalArgumentException.class, () -> repository.withRetryOnConflict(-1));
+    	}
+    }
+    
+    @Test
+    public void metrics() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		HistogramRepositoryMetrics metrics = new HistogramRepositoryMetrics();
+    		ElasticSearchRepository repository = new ElasticSearchRepository(esClient, () -> TEST_ALIAS_INDEX, () -> TEST_ALIAS_SEARCH, 
+    				TEST_TYPE, true, BulkSettings.DEFAULT, metrics);
+    		assertThrows(IOException.class, () -> repository.save("1234", testObject("name 1"), jsonMapper()));
+    		assertEquals(1, metrics.getLatency(RepositoryMetrics.Operation.SAVE).getCount());
+    		assertEquals(1, metrics.getRequestBytes(RepositoryMetrics.Operation.SAVE).getCount());
+    		assertTrue(metrics.getRequestBytes(RepositoryMetrics.Operation.SAVE).getMax() > 0);
+    		
+    		assertThrows(IOException.class, () -> repository.searchPageData(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), hitMapper()));
+    		assertEquals(1, metrics.getLatency(RepositoryMetrics.Operation.SEARCH_PAGE).getCount());
+    		assertEquals(0, metrics.getTook(RepositoryMetrics.Operation.SEARCH_PAGE).getCount());
+    		
+    		assertFailedWithIOException(repository.saveAsync("1234", testObject("name 1"), jsonMapper()));
+    		assertEquals(2, metrics.getLatency(RepositoryMetrics.Operation.SAVE).getCount());
+    		assertEquals(2, metrics.getRequestBytes(RepositoryMetrics.Operation.SAVE).getCount());
+    		
+    		assertFailedWithIOException(repository.searchPageDataAsync(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), hitMapper()));
+    		assertEquals(2, metrics.getLatency(RepositoryMetrics.Operation.SEARCH_PAGE).getCount());
+    		assertEquals(0, metrics.getTook(RepositoryMetrics.Operation.SEARCH_PAGE).getCount());
+    		
+    		assertThrows(IOException.class, () -> repository.getByIds(Arrays.asList("1", "2"), getMapper()));
+    		assertEquals(1, metrics.getLatency(RepositoryMetrics.Operation.MULTI_GET).getCount());
+    		
+    		assertThrows(NullPointerException.class, () -> new ElasticSearchRepository(esClient, () -> TEST_ALIAS_INDEX, () -> TEST_ALIAS_SEARCH, 
+    				TEST_TYPE, true, BulkSettings.DEFAULT, null));
+    	}
+    }
+    
     @Test
     public void update() throws IOException {
     	try(RestHighLevelClient esClient = esClient()){
@@ -91,6 +199,28 @@ public class ElasticSearchRepositoryTest {
     	}
     }
     
+    @Test
+    public void getById() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		assertThrows(IOException.class, () -> repository.getById("1234", getMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.getById(null, getMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.getById("1234", null));
+    	}
+    }
+    
+    @Test
+    public void getByIds() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		assertThrows(IOException.class, () -> repository.getByIds(Arrays.asList("1234"), getMapper()));
+    		assertTrue(repository.getByIds(Collections.emptyList(), getMapper()).isEmpty());
+    		assertThrows(NullPointerException.class, () -> repository.getByIds(null, getMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.getByIds(Arrays.asList("1234"), null));
+    		assertThrows(IllegalArgumentException.class, () -> repository.getByIds(Arrays.asList("1234"), 0, getMapper()));
+    	}
+    }
+    
     @Test
     public void searchPageData() throws IOException {
     	try(RestHighLevelClient esClient = esClient()){
@@ -103,6 +233,68 @@ public class ElasticSearchRepositoryTest {
     	}
     }
     
+    @Test
+    public void searchOnTimeRange() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		Instant now = Instant.now();
+    		ElasticSearchRepository rangeRepository = repository.searchOnTimeRange("test-", "yyyy.MM.dd", now.minusSeconds(7200), now);
+    		assertThrows(IOException.class, () -> rangeRepository.searchPageData(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.searchOnTimeRange(null, "yyyy.MM.dd", now, now));
+    		assertThrows(NullPointerException.class, () -> repository.searchOnTimeRange("test-", "yyyy.MM.dd", null, now));
+    		assertThrows(IllegalArgumentException.class, () -> repository.searchOnTimeRange("test-", "yyyy.MM.dd", now, now.minusSeconds(1)));
+    		assertThrows(NullPointerException.class, () -> repository.searchOnIndices((String[]) null));
+    		assertThrows(IllegalArgumentException.class, () -> repository.searchOnIndices());
+    	}
+    }
+    
+    @Test
+    public void searchPageDataWithoutTotal() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		assertThrows(IOException.class, () -> repository.searchPageDataWithoutTotal(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.searchPageDataWithoutTotal(null, Page.firstPageWithLimit(10), Collections.emptyList(), hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.searchPageDataWithoutTotal(QueryBuilders.matchAllQuery(), null, Collections.emptyList(), hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.searchPageDataWithoutTotal(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), null, hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.searchPageDataWithoutTotal(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), null));
+    	}
+    }
+    
+    @Test
+    public void countAndExists() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		assertThrows(IOException.class, () -> repository.count(QueryBuilders.matchAllQuery()));
+    		assertThrows(NullPointerException.class, () -> repository.count(null));
+    		assertThrows(IOException.class, () -> repository.exists("1234"));
+    		assertThrows(NullPointerException.class, () -> repository.exists(null));
+    	}
+    }
+    
+    @Test
+    public void searchMultiPageData() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		PageQuery<TestObject> query = new PageQuery<>(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), hitMapper());
+    		assertThrows(IOException.class, () -> repository.searchMultiPageData(Arrays.asList(query)));
+    		assertFalse(repository.searchMultiPageData(Collections.emptyList()).hasFailures());
+    		assertThrows(NullPointerException.class, () -> repository.searchMultiPageData(null));
+    	}
+    }
+    
+    @Test
+    public void searchCursorPageData() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		assertThrows(IOException.class, () -> repository.searchCursorPageData(QueryBuilders.matchAllQuery(), CursorPage.firstPageWithLimit(10), Collections.emptyList(), hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.searchCursorPageData(null, null, null, null));
+    		assertThrows(NullPointerException.class, () -> repository.searchCursorPageData(QueryBuilders.matchAllQuery(), null, null, null));
+    		assertThrows(NullPointerException.class, () -> repository.searchCursorPageData(QueryBuilders.matchAllQuery(), CursorPage.firstPageWithLimit(10), null, null));
+    		assertThrows(NullPointerException.class, () -> repository.searchCursorPageData(QueryBuilders.matchAllQuery(), CursorPage.firstPageWithLimit(10), Collections.emptyList(), null));
+    		assertThrows(NullPointerException.class, () -> repository.searchCursorPageData(QueryBuilders.matchAllQuery(), CursorPage.firstPageWithLimit(10), Collections.emptyList(), null, hitMapper()));
+    	}
+    }
+    
     @Test
     public void searchScroll() throws IOException {
     	try(RestHighLevelClient esClient = esClient()){
@@ -114,6 +306,72 @@ public class ElasticSearchRepositoryTest {
     	}
     }
     
+    @Test
+    public void streamScroll() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		assertThrows(IOException.class, () -> repository.streamScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.streamScroll(null, null, null));
+    		assertThrows(NullPointerException.class, () -> repository.streamScroll(QueryBuilders.matchAllQuery(), null, null));
+    		assertThrows(NullPointerException.class, () -> repository.streamScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), null));
+    	}
+    }
+    
+    @Test
+    public void scrollWithSettings() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		ScrollSettings settings = ScrollSettings.adaptive(100, 5000, 1024 * 1024, 200);
+    		assertThrows(IOException.class, () -> repository.searchScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.ALL, settings, hitMapper()));
+    		assertThrows(IOException.class, () -> repository.streamScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.ALL, new ScrollSettings(1000, 60), hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.searchScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.ALL, null, hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.searchScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.ALL, settings, null));
+    		assertThrows(NullPointerException.class, () -> repository.streamScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.ALL, null, hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.streamScroll(null, Collections.emptyList(), Projection.ALL, settings, hitMapper()));
+    	}
+    }
+    
+    @Test
+    public void prefetchScroll() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		ExecutorService executor = Executors.newSingleThreadExecutor();
+    		try {
+    			assertThrows(IOException.class, () -> repository.streamScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.ALL, ScrollSettings.DEFAULT, 2, executor, hitMapper()));
+    			assertThrows(IOException.class, () -> repository.searchScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.ALL, ScrollSettings.DEFAULT, 2, executor, hitMapper()));
+    			assertThrows(IllegalArgumentException.class, () -> repository.streamScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.ALL, ScrollSettings.DEFAULT, 0, executor, hitMapper()));
+    			assertThrows(NullPointerException.class, () -> repository.streamScroll(null, Collections.emptyList(), Projection.ALL, ScrollSettings.DEFAULT, 2, executor, hitMapper()));
+    			assertThrows(NullPointerException.class, () -> repository.streamScroll(QueryBuilders.matchAllQuery(), null, Projection.ALL, ScrollSettings.DEFAULT, 2, executor, hitMapper()));
+    			assertThrows(NullPointerException.class, () -> repository.streamScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), null, ScrollSettings.DEFAULT, 2, executor, hitMapper()));
+    			assertThrows(NullPointerException.class, () -> repository.streamScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.ALL, null, 2, executor, hitMapper()));
+    			assertThrows(NullPointerException.class, () -> repository.streamScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.ALL, ScrollSettings.DEFAULT, 2, executor, null));
+    			assertThrows(NullPointerException.class, () -> repository.streamScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.ALL, ScrollSettings.DEFAULT, 2, null, hitMapper()));
+    		} finally {
+    			executor.shutdown();
+    		}
+    	}
+    }
+    
+    @Test
+    public void parallelScroll() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		ExecutorService executor = Executors.newFixedThreadPool(2);
+    		try {
+    			assertThrows(IOException.class, () -> repository.parallelScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), 2, executor, hitMapper(), o -> {}));
+    			assertThrows(IllegalArgumentException.class, () -> repository.parallelScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), 0, executor, hitMapper(), o -> {}));
+    			assertThrows(NullPointerException.class, () -> repository.parallelScroll(null, Collections.emptyList(), 2, executor, hitMapper(), o -> {}));
+    			assertThrows(NullPointerException.class, () -> repository.parallelScroll(QueryBuilders.matchAllQuery(), null, 2, executor, hitMapper(), o -> {}));
+    			assertThrows(NullPointerException.class, () -> repository.parallelScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), 2, null, hitMapper(), o -> {}));
+    			assertThrows(NullPointerException.class, () -> repository.parallelScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), 2, executor, null, o -> {}));
+    			assertThrows(NullPointerException.class, () -> repository.parallelScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), 2, executor, hitMapper(), null));
+    			assertThrows(NullPointerException.class, () -> repository.parallelScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.ALL, null, 2, executor, hitMapper(), o -> {}));
+    		} finally {
+    			executor.shutdown();
+    		}
+    	}
+    }
+    
     @Test
     public void bulkSave() throws IOException {
     	try(RestHighLevelClient esClient = esClient()){
@@ -125,6 +383,66 @@ public class ElasticSearchRepositoryTest {
     	}
     }
     
+    @Test
+    public void bulkUpdateAndDelete() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		List<TestObject> objects = IntStream.range(1, 17).mapToObj(i -> testObject("name " + i)).collect(Collectors.toList());
+    		objects.forEach(o -> o.setId(o.getName()));
+    		assertThrows(IOException.class, () -> repository.bulkUpdate(objects, jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.bulkUpdate(null, jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.bulkUpdate(objects, null));
+    		assertFalse(repository.bulkUpdate(Collections.emptyList(), jsonMapper()).isPresent());
+    		
+    		assertThrows(IOException.class, () -> repository.bulkDelete(Arrays.asList("1", "2")));
+    		assertThrows(NullPointerException.class, () -> repository.bulkDelete(null));
+    		assertFalse(repository.bulkDelete(Collections.emptyList()).isPresent());
+    	}
+    }
+    
+    @Test
+    public void unitOfWork() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		UnitOfWork unitOfWork = repository.unitOfWork();
+    		assertTrue(unitOfWork.flush().isEmpty());
+    		
+    		unitOfWork.save("1", testObject("name 1"), jsonMapper())
+    			.update("2", testObject("name 2"), jsonMapper())
+    			.delete("3");
+    		assertEquals(3, unitOfWork.size());
+    		assertThrows(IOException.class, () -> unitOfWork.flush());
+    		assertEquals(0, unitOfWork.size());
+    		
+    		assertThrows(NullPointerException.class, () -> unitOfWork.save("1", null, jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> unitOfWork.save("1", testObject("name 1"), null));
+    		assertThrows(NullPointerException.class, () -> unitOfWork.save("1", testObject("name 1"), e -> null));
+    		assertThrows(NullPointerException.class, () -> unitOfWork.update(null, testObject("name 1"), jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> unitOfWork.update("1", testObject("name 1"), null));
+    		assertThrows(NullPointerException.class, () -> unitOfWork.delete(null));
+    		assertEquals(0, unitOfWork.size());
+    	}
+    }
+    
+    @Test
+    public void documentWriter() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		assertThrows(IOException.class, () -> repository.saveDocument("1234", testObject("name 1"), documentWriter()));
+    		assertThrows(NullPointerException.class, () -> repository.saveDocument("1234", null, documentWriter()));
+    		assertThrows(NullPointerException.class, () -> repository.saveDocument("1234", testObject("name 1"), true, null));
+    		
+    		assertThrows(IOException.class, () -> repository.updateDocument("1234", testObject("name 1"), documentWriter()));
+    		assertThrows(NullPointerException.class, () -> repository.updateDocument(null, testObject("name 1"), documentWriter()));
+    		assertThrows(NullPointerException.class, () -> repository.updateDocument("1234", testObject("name 1"), true, null));
+    		
+    		List<TestObject> objects = IntStream.range(1, 17).mapToObj(i -> testObject("name " + i)).collect(Collectors.toList());
+    		assertThrows(IOException.class, () -> repository.bulkSaveDocuments(objects, documentWriter()));
+    		assertThrows(NullPointerException.class, () -> repository.bulkSaveDocuments(null, documentWriter()));
+    		assertThrows(NullPointerException.class, () -> repository.bulkSaveDocuments(objects, null));
+    	}
+    }
+    
     @Test
     public void executeBulk() throws IOException {
     	try(RestHighLevelClient esClient = esClient()){
@@ -132,13 +450,72 @@ public class ElasticSearchRepositoryTest {
     		assertThrows(NullPointerException.class, () -> repository.executeBulk(null));
     		BulkRequest bulkRequest = new BulkRequest();
     		assertFalse(repository.executeBulk(bulkRequest).isPresent());
+    		assertThrows(NullPointerException.class, () -> repository.executeBulkInChunks(null));
+    		assertFalse(repository.executeBulkInChunks(bulkRequest).isPresent());
     		IndexRequest indexRequest = new IndexRequest(TEST_ALIAS_INDEX, TEST_TYPE);
     		indexRequest.source("{}", XContentType.JSON);
     		bulkRequest.add(indexRequest);
     		assertThrows(IOException.class, () -> repository.executeBulk(bulkRequest));
+    		assertThrows(IOException.class, () -> repository.executeBulkInChunks(bulkRequest));
+    	}
+    }
+    
+    @Test
+    public void executeBulkWithRetry() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		assertThrows(NullPointerException.class, () -> repository.executeBulkWithRetry(null, BulkRetrySettings.DEFAULT));
+    		BulkRequest bulkRequest = new BulkRequest();
+    		assertThrows(NullPointerException.class, () -> repository.executeBulkWithRetry(bulkRequest, null));
+    		assertFalse(repository.executeBulkWithRetry(bulkRequest, BulkRetrySettings.DEFAULT).isPresent());
+    		IndexRequest indexRequest = new IndexRequest(TEST_ALIAS_INDEX, TEST_TYPE);
+    		indexRequest.source("{}", XContentType.JSON);
+    		bulkRequest.add(indexRequest);
+    		assertThrows(IOException.class, () -> repository.executeBulkWithRetry(bulkRequest, BulkRetrySettings.DEFAULT));
     	}
     }
     
+    @Test
+    public void async() throws IOException {
+    	try(RestHighLevelClient esClient = esClient()){
+    		ElasticSearchRepository repository = repository(esClient, TEST_ALIAS_INDEX, TEST_ALIAS_SEARCH, TEST_TYPE);
+    		assertFailedWithIOException(repository.saveAsync("1234", testObject("name 1"), jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.saveAsync("1234", null, jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.saveAsync("1234", testObject("name 1"), null));
+    		
+    		assertFailedWithIOException(repository.updateAsync("1234", testObject("name 1"), jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.updateAsync(null, testObject("name 1"), jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.updateAsync("1234", null, jsonMapper()));
+    		
+    		assertFailedWithIOException(repository.deleteAsync("1234"));
+    		assertThrows(NullPointerException.class, () -> repository.deleteAsync(null));
+    		
+    		assertFailedWithIOException(repository.getByIdAsync("1234", getMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.getByIdAsync(null, getMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.getByIdAsync("1234", Projection.ALL, getMapper(), null));
+    		
+    		assertFailedWithIOException(repository.searchByIdAsync("1234", hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.searchByIdAsync(null, hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.searchByIdAsync("1234", Projection.ALL, hitMapper(), null));
+    		
+    		assertFailedWithIOException(repository.searchPageDataAsync(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.searchPageDataAsync(null, Page.firstPageWithLimit(10), Collections.emptyList(), hitMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.searchPageDataAsync(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), Projection.ALL, hitMapper(), null));
+    		
+    		assertFailedWithIOException(repository.bulkSaveAsync(Arrays.asList(testObject("name 1")), jsonMapper()));
+    		assertThrows(NullPointerException.class, () -> repository.bulkSaveAsync(null, jsonMapper()));
+    		assertFalse(repository.executeBulkAsync(new BulkRequest()).join().isPresent());
+    		assertThrows(NullPointerException.class, () -> repository.executeBulkAsync(null));
+    		assertFalse(repository.executeBulkInChunksAsync(new BulkRequest()).join().isPresent());
+    		assertThrows(NullPointerException.class, () -> repository.executeBulkInChunksAsync(null));
+    	}
+    }
+    
+    private void assertFailedWithIOException(CompletableFuture<?> future) {
+    	ExecutionException e = assertThrows(ExecutionException.class, () -> future.get());
+    	assertTrue(e.getCause() instanceof IOException);
+    }
+    
     private TestObject testObject(String name) {
     	TestObject to = new TestObject();
     	to.setName(name);
@@ -153,6 +530,22 @@ public class ElasticSearchRepositoryTest {
     	};
     }
     
+    private Function<GetResponse, TestObject> getMapper() {
+    	return response -> {
+    		TestObject to = gson.fromJson(response.getSourceAsString(), TestObject.class);
+    		to.setId(response.getId());
+    		return to;
+    	};
+    }
+    
+    private DocumentWriter<TestObject> documentWriter(){
+    	return (e, out) -> {
+    		Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    		gson.toJson(e, writer);
+    		writer.flush();
+    	};
+    }
+    
     private Function<TestObject, String> jsonMapper(){
     	return e -> gson.toJson(e);
     }
@@ -0,0 +1,1374 @@
+package fr.snasello.datas.es;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand-in of an elasticsearch 6 node, for tests without docker.
+ *
+ * <p>It implements the endpoints used by {@link ElasticSearchRepository}: index, update, delete, get and exists
+ * of a document, {@code _search}, {@code _search/scroll}, clear scroll, {@code _bulk}, {@code _mget},
+ * {@code _msearch} and {@code _refresh}, on an in-memory store.</p>
+ * <p>It is not a search engine: documents are visible immediately (the refresh is only counted), there is no
+ * mapping nor analysis, {@code term} is an exact match, {@code match} a case insensitive match of one word,
+ * and only the queries {@code match_all}, {@code match_none}, {@code ids}, {@code term}, {@code terms},
+ * {@code range}, {@code exists}, {@code match}, {@code bool} and {@code constant_score} are supported.
+ * Source filtering is applied on the first level fields. The scripts of the updates are limited to statements
+ * {@code ctx._source.field = value}, {@code +=} and {@code -=}, with a value from the params or a literal.
+ * The version of the writes is checked with the internal versioning, there is never a concurrent conflict.</p>
+ * <p>A latency and a rejection rate (status 429) can be injected, for the whole requests and for the items
+ * of the bulk requests. The random is seeded, a single thread scenario is reproducible.</p>
+ *
+ * @author Samuel Nasello
+ */
+public class FakeElasticSearchServer implements Closeable {
+
+	private static final int MAX_RESULT_WINDOW = 10000;
+
+	private static final Pattern NEW_LINE = Pattern.compile("\n");
+
+	private static final Pattern SCRIPT_STATEMENT = Pattern.compile(
+			"ctx\\._source\\.(\\w+)\\s*([+-]?=)\\s*(params\\.(\\w+)|-?\\d+(\\.\\d+)?|'([^']*)')");
+
+	private final HttpServer httpServer;
+
+	private final ExecutorService executor;
+
+	private final Random random;
+
+	// guarded by this
+	private final Map<String, Map<String, Document>> indices = new HashMap<>();
+
+	private final Map<String, String> aliases = new ConcurrentHashMap<>();
+
+	private final Map<String, ScrollContext> scrolls = new ConcurrentHashMap<>();
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private final AtomicLong rejections = new AtomicLong();
+
+	private final Map<String, AtomicLong> refreshes = new ConcurrentHashMap<>();
+
+	private final AtomicInteger concurrentRequests = new AtomicInteger();
+
+	private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+
+	private volatile long latencyMillis;
+
+	private volatile long latencyJitterMillis;
+
+	private volatile double rejectionRate;
+
+	private volatile double bulkItemRejectionRate;
+
+	/**
+	 * Start a server on a free port of the loopback address.
+	 * @throws IOException if the server cannot be started
+	 */
+	public FakeElasticSearchServer() throws IOException {
+		this(42L);
+	}
+
+	/**
+	 * Start a server on a free port of the loopback address.
+	 * @param seed the seed of the random used for the latency and the rejections
+	 * @throws IOException if the server cannot be started
+	 */
+	public FakeElasticSearchServer(long seed) throws IOException {
+		super();
+
+		this.random = new Random(seed);
+		this.executor = Executors.newCachedThreadPool();
+		this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		this.httpServer.setExecutor(executor);
+		this.httpServer.createContext("/", this::handle);
+		this.httpServer.start();
+	}
+
+	/**
+	 * Add a latency to each request.
+	 * @param millis the latency in milliseconds
+	 * @param jitterMillis a random latency added, between 0 and this value
+	 * @return this server
+	 */
+	public FakeElasticSearchServer withLatency(long millis, long jitterMillis) {
+		this.latencyMillis = millis;
+		this.latencyJitterMillis = jitterMillis;
+		return this;
+	}
+
+	/**
+	 * Reject a part of the requests with a status 429.
+	 * @param rate the rate of rejected requests, between 0 and 1
+	 * @return this server
+	 */
+	public FakeElasticSearchServer withRejectionRate(double rate) {
+		this.rejectionRate = rate;
+		return this;
+	}
+
+	/**
+	 * Reject a part of the bulk items with a status 429, the other items are executed.
+	 * @param rate the rate of rejected items, between 0 and 1
+	 * @return this server
+	 */
+	public FakeElasticSearchServer withBulkItemRejectionRate(double rate) {
+		this.bulkItemRejectionRate = rate;
+		return this;
+	}
+
+	/**
+	 * Add an alias on an index.
+	 * @param alias the alias
+	 * @param index the index
+	 * @return this server
+	 */
+	public FakeElasticSearchServer withAlias(String alias, String index) {
+		aliases.put(alias, index);
+		return this;
+	}
+
+	/**
+	 * the address of the server.
+	 * @return the address
+	 */
+	public HttpHost getHttpHost() {
+		InetSocketAddress address = httpServer.getAddress();
+		return new HttpHost(address.getHostString(), address.getPort(), "http");
+	}
+
+	/**
+	 * A new client on this server, to close.
+	 * @return the client
+	 */
+	public RestHighLevelClient esClient() {
+		return new RestHighLevelClient(RestClient.builder(getHttpHost()));
+	}
+
+	/**
+	 * the number of documents of an index or alias.
+	 * @param index the index or alias
+	 * @return the number of documents, 0 if the index does not exist
+	 */
+	public synchronized int count(String index) {
+		Map<String, Document> documents = indices.get(aliases.getOrDefault(index, index));
+		return documents == null ? 0 : documents.size();
+	}
+
+	/**
+	 * Delete all the indices and the scroll contexts.
+	 */
+	public synchronized void clear() {
+		indices.clear();
+		scrolls.clear();
+	}
+
+	/**
+	 * the number of requests received.
+	 * @return the number of requests
+	 */
+	public long getRequestCount() {
+		return requests.get();
+	}
+
+	/**
+	 * the number of {@code _refresh} requests of an index.
+	 * @param index the index or alias
+	 * @return the number of refreshes
+	 */
+	public long getRefreshCount(String index) {
+		AtomicLong count = refreshes.get(aliases.getOrDefault(index, index));
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * the number of requests and bulk items rejected.
+	 * @return the number of rejections
+	 */
+	public long getRejectionCount() {
+		return rejections.get();
+	}
+
+	/**
+	 * the maximum number of requests executed at the same time.
+	 * @return the maximum number of concurrent requests
+	 */
+	public int getMaxConcurrentRequests() {
+		return maxConcurrentRequests.get();
+	}
+
+	/**
+	 * the number of open scroll contexts.
+	 * @return the number of scroll contexts
+	 */
+	public int getOpenScrollCount() {
+		return scrolls.size();
+	}
+
+	/**
+	 * Stop the server.
+	 */
+	@Override
+	public void close() {
+		httpServer.stop(0);
+		executor.shutdownNow();
+	}
+
+	// == http
+
+	private void handle(
+			final HttpExchange exchange)
+		throws IOException {
+
+		requests.incrementAndGet();
+		maxConcurrentRequests.accumulateAndGet(concurrentRequests.incrementAndGet(), Math::max);
+		try {
+			String body = readBody(exchange.getRequestBody());
+			sleep();
+			Response response;
+			if(isRejected(rejectionRate)) {
+				response = error(429, "es_rejected_execution_exception", "rejected execution of the request");
+			}else {
+				response = dispatch(exchange.getRequestMethod(),
+						segments(exchange.getRequestURI().getPath()),
+						params(exchange.getRequestURI().getRawQuery()),
+						body);
+			}
+			send(exchange, response);
+		} finally {
+			concurrentRequests.decrementAndGet();
+			exchange.close();
+		}
+	}
+
+	private Response dispatch(
+			final String method,
+			final List<String> segments,
+			final Map<String, String> params,
+			final String body) {
+
+		try {
+			int size = segments.size();
+			String last = size == 0 ? "" : segments.get(size - 1);
+			if("_bulk".equals(last)) {
+				return bulk(size > 1 ? segments.get(0) : null, size > 2 ? segments.get(1) : null, body);
+			}
+			if("_mget".equals(last)) {
+				return multiGet(parse(body));
+			}
+			if("_msearch".equals(last)) {
+				return multiSearch(size > 1 ? segments.get(0) : null, body);
+			}
+			if("_refresh".equals(last)) {
+				return refresh(size > 1 ? segments.get(0) : "_all");
+			}
+			if(size == 2 && "_search".equals(segments.get(0)) && "scroll".equals(last)) {
+				return "DELETE".equals(method) ? clearScroll(parse(body)) : scroll(parse(body));
+			}
+			if("_search".equals(last)) {
+				return search(size > 1 ? segments.get(0) : "_all", params, parse(body));
+			}
+			if(size == 2 && "POST".equals(method)) {
+				return index(segments.get(0), segments.get(1), null, params, parse(body));
+			}
+			if(size == 3) {
+				switch (method) {
+				case "PUT":
+				case "POST":
+					return index(segments.get(0), segments.get(1), segments.get(2), params, parse(body));
+				case "GET":
+					return get(segments.get(0), segments.get(1), segments.get(2), params);
+				case "HEAD":
+					return new Response(get(segments.get(0), segments.get(1), segments.get(2), params).status, null);
+				case "DELETE":
+					return delete(segments.get(0), segments.get(1), segments.get(2), params);
+				default:
+					break;
+				}
+			}
+			if(size == 4 && "_create".equals(last)) {
+				Map<String, String> createParams = new HashMap<>(params);
+				createParams.put("op_type", "create");
+				return index(segments.get(0), segments.get(1), segments.get(2), createParams, parse(body));
+			}
+			if(size == 4 && "_update".equals(last)) {
+				return update(segments.get(0), segments.get(1), segments.get(2), params, parse(body));
+			}
+			return error(400, "illegal_argument_exception", "no handler found for uri [" + String.join("/", segments) + "] and method [" + method + "]");
+		} catch (IllegalArgumentException e) {
+			return error(400, "parsing_exception", e.getMessage());
+		} catch (RuntimeException e) {
+			return error(500, "exception", String.valueOf(e));
+		}
+	}
+
+	// == documents
+
+	private Response refresh(
+			final String indexName) {
+
+		for (String index : indexName.split(",")) {
+			refreshes.computeIfAbsent(aliases.getOrDefault(index, index), k -> new AtomicLong()).incrementAndGet();
+		}
+		Map<String, Object> shards = new LinkedHashMap<>();
+		shards.put("total", 1);
+		shards.put("successful", 1);
+		shards.put("failed", 0);
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("_shards", shards);
+		return new Response(200, response);
+	}
+
+	private synchronized Response index(
+			final String indexName,
+			final String type,
+			final String id,
+			final Map<String, String> params,
+			final Map<String, Object> source) {
+
+		String index = writeIndex(indexName);
+		String docId = id != null ? id : UUID.randomUUID().toString();
+		Map<String, Document> documents = indices.computeIfAbsent(index, k -> new LinkedHashMap<>());
+		Document previous = documents.get(docId);
+		if(previous != null && "create".equals(params.get("op_type"))) {
+			return error(409, "version_conflict_engine_exception", "[" + type + "][" + docId + "]: version conflict, document already exists");
+		}
+		if(isVersionConflict(previous, params)) {
+			return versionConflict(type, docId, previous, params);
+		}
+		Document document = new Document(type, source, previous);
+		documents.put(docId, document);
+		return new Response(previous == null ? 201 : 200,
+				writeResult(index, type, docId, document, previous == null ? "created" : "updated"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private synchronized Response update(
+			final String indexName,
+			final String type,
+			final String id,
+			final Map<String, String> params,
+			final Map<String, Object> body) {
+
+		String index = writeIndex(indexName);
+		Map<String, Document> documents = indices.computeIfAbsent(index, k -> new LinkedHashMap<>());
+		Map<String, Object> doc = (Map<String, Object>) body.getOrDefault("doc", Collections.emptyMap());
+		Map<String, Object> script = (Map<String, Object>) body.get("script");
+		Document previous = documents.get(id);
+		if(previous != null && isVersionConflict(previous, params)) {
+			return versionConflict(type, id, previous, params);
+		}
+		if(previous == null) {
+			Map<String, Object> upsert = (Map<String, Object>) body.get("upsert");
+			if(upsert == null && Boolean.TRUE.equals(body.get("doc_as_upsert"))) {
+				upsert = doc;
+			}
+			if(upsert == null) {
+				return error(404, "document_missing_exception", "[" + type + "][" + id + "]: document missing");
+			}
+			Document document = new Document(type, upsert, null);
+			documents.put(id, document);
+			return new Response(201, writeResult(index, type, id, document, "created"));
+		}
+		Map<String, Object> merged = script == null ? merge(previous.source, doc) : execute(script, previous.source);
+		if(merged.equals(previous.source) && !Boolean.FALSE.equals(body.get("detect_noop"))) {
+			return new Response(200, writeResult(index, type, id, previous, "noop"));
+		}
+		Document document = new Document(type, merged, previous);
+		documents.put(id, document);
+		return new Response(200, writeResult(index, type, id, document, "updated"));
+	}
+
+	private synchronized Response delete(
+			final String indexName,
+			final String type,
+			final String id,
+			final Map<String, String> params) {
+
+		String index = writeIndex(indexName);
+		Map<String, Document> documents = indices.get(index);
+		Document previous = documents == null ? null : documents.get(id);
+		if(isVersionConflict(previous, params)) {
+			return versionConflict(type, id, previous, params);
+		}
+		if(previous != null) {
+			documents.remove(id);
+		}
+		if(previous == null) {
+			return new Response(404, writeResult(index, type, id, new Document(type, Collections.emptyMap(), null), "not_found"));
+		}
+		return new Response(200, writeResult(index, type, id, new Document(type, previous.source, previous), "deleted"));
+	}
+
+	private synchronized Response get(
+			final String indexName,
+			final String type,
+			final String id,
+			final Map<String, String> params) {
+
+		String index = writeIndex(indexName);
+		Map<String, Document> documents = indices.get(index);
+		Document document = documents == null ? null : documents.get(id);
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("_index", index);
+		result.put("_type", type);
+		result.put("_id", id);
+		if(document == null) {
+			result.put("found", false);
+			return new Response(404, result);
+		}
+		result.put("_version", document.version);
+		result.put("found", true);
+		if(!"false".equals(params.get("_source"))) {
+			result.put("_source", filterSource(document.source,
+					list(params.getOrDefault("_source_includes", params.get("_source_include"))),
+					list(params.getOrDefault("_source_excludes", params.get("_source_exclude")))));
+		}
+		return new Response(200, result);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Response multiGet(
+			final Map<String, Object> body) {
+
+		List<Object> docs = new ArrayList<>();
+		for (Object item : (List<Object>) body.getOrDefault("docs", Collections.emptyList())) {
+			Map<String, Object> doc = (Map<String, Object>) item;
+			Map<String, String> params = new HashMap<>();
+			if(Boolean.FALSE.equals(doc.get("_source"))) {
+				params.put("_source", "false");
+			}
+			docs.add(get((String) doc.get("_index"), (String) doc.get("_type"), (String) doc.get("_id"), params).body);
+		}
+		return new Response(200, Collections.singletonMap("docs", docs));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Response bulk(
+			final String defaultIndex,
+			final String defaultType,
+			final String body) {
+
+		long start = System.nanoTime();
+		List<Object> items = new ArrayList<>();
+		boolean errors = false;
+		List<String> lines = lines(body);
+		for (int i = 0; i < lines.size(); i++) {
+			Map<String, Object> action = parse(lines.get(i));
+			String opType = action.keySet().iterator().next();
+			Map<String, Object> meta = (Map<String, Object>) action.get(opType);
+			String index = (String) meta.getOrDefault("_index", defaultIndex);
+			String type = (String) meta.getOrDefault("_type", defaultType);
+			String id = (String) meta.get("_id");
+			Map<String, Object> source = "delete".equals(opType) ? null : parse(lines.get(++i));
+			Map<String, String> params = new HashMap<>();
+			if(meta.containsKey("version")) {
+				params.put("version", String.valueOf(meta.get("version")));
+			}
+
+			Response response;
+			if(isRejected(bulkItemRejectionRate)) {
+				response = error(429, "es_rejected_execution_exception", "rejected execution of the bulk item");
+			}else {
+				switch (opType) {
+				case "index":
+					response = index(index, type, id, params, source);
+					break;
+				case "create":
+					params.put("op_type", "create");
+					response = index(index, type, id, params, source);
+					break;
+				case "update":
+					response = update(index, type, id, params, source);
+					break;
+				case "delete":
+					response = delete(index, type, id, params);
+					break;
+				default:
+					throw new IllegalArgumentException("unknown bulk action [" + opType + "]");
+				}
+			}
+
+			Map<String, Object> item;
+			if(response.status >= 400 && !("delete".equals(opType) && response.status == 404)) {
+				errors = true;
+				item = new LinkedHashMap<>();
+				item.put("_index", writeIndex(index));
+				item.put("_type", type);
+				item.put("_id", id);
+				item.put("status", response.status);
+				item.put("error", response.body.get("error"));
+			}else {
+				item = new LinkedHashMap<>(response.body);
+				item.put("status", response.status);
+			}
+			items.add(Collections.singletonMap(opType, item));
+		}
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("took", (System.nanoTime() - start) / 1_000_000);
+		result.put("errors", errors);
+		result.put("items", items);
+		return new Response(200, result);
+	}
+
+	// == search
+
+	private Response search(
+			final String indexExpression,
+			final Map<String, String> params,
+			final Map<String, Object> body) {
+
+		long start = System.nanoTime();
+		int from = ((Number) body.getOrDefault("from", 0)).intValue();
+		int size = ((Number) body.getOrDefault("size", 10)).intValue();
+		String scroll = params.get("scroll");
+		if(scroll == null && from + size > MAX_RESULT_WINDOW) {
+			return error(400, "query_phase_execution_exception",
+					"Result window is too large, from + size must be less than or equal to: [" + MAX_RESULT_WINDOW + "]");
+		}
+		List<String> searchIndices = searchIndices(indexExpression, "true".equals(params.get("ignore_unavailable")));
+		if(searchIndices == null) {
+			return error(404, "index_not_found_exception", "no such index [" + indexExpression + "]");
+		}
+
+		List<SortField> sorts = sortFields(body.get("sort"));
+		List<Hit> hits = matchingHits(searchIndices, body, sorts);
+		long total = hits.size();
+
+		Map<String, Object> result = new LinkedHashMap<>();
+		if(scroll != null) {
+			String scrollId = "scroll-" + sequence.incrementAndGet();
+			ScrollContext context = new ScrollContext(hits, size, keepAlive(scroll), body.get("_source"));
+			scrolls.put(scrollId, context);
+			result.put("_scroll_id", scrollId);
+			hits = context.next();
+		}else {
+			hits = hits.subList(Math.min(from, hits.size()), Math.min(from + size, hits.size()));
+		}
+		if(Boolean.FALSE.equals(body.get("track_total_hits"))) {
+			total = -1L;
+		}
+		result.putAll(searchResult(start, total, hits, body.get("_source")));
+		return new Response(200, result);
+	}
+
+	private Response scroll(
+			final Map<String, Object> body) {
+
+		long start = System.nanoTime();
+		String scrollId = (String) body.get("scroll_id");
+		ScrollContext context = scrolls.get(scrollId);
+		if(context == null || context.isExpired()) {
+			scrolls.remove(scrollId);
+			return error(404, "search_context_missing_exception", "No search context found for id [" + scrollId + "]");
+		}
+		if(body.get("scroll") != null) {
+			context.keepAlive(keepAlive((String) body.get("scroll")));
+		}
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("_scroll_id", scrollId);
+		result.putAll(searchResult(start, context.hits.size(), context.next(), context.source));
+		return new Response(200, result);
+	}
+
+	private Response clearScroll(
+			final Map<String, Object> body) {
+
+		Object scrollIds = body.get("scroll_id");
+		Collection<?> ids = scrollIds instanceof Collection ? (Collection<?>) scrollIds : Collections.singletonList(scrollIds);
+		int freed = 0;
+		for (Object id : ids) {
+			if("_all".equals(id)) {
+				freed += scrolls.size();
+				scrolls.clear();
+			}else if(scrolls.remove(id) != null) {
+				freed++;
+			}
+		}
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("succeeded", true);
+		result.put("num_freed", freed);
+		return new Response(200, result);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Response multiSearch(
+			final String defaultIndex,
+			final String body) {
+
+		long start = System.nanoTime();
+		List<Object> responses = new ArrayList<>();
+		List<String> lines = lines(body);
+		for (int i = 0; i + 1 < lines.size(); i += 2) {
+			Map<String, Object> header = parse(lines.get(i));
+			Object index = header.get("index");
+			String indexExpression = index instanceof List ? String.join(",", (List<String>) index)
+					: (String) (index != null ? index : defaultIndex != null ? defaultIndex : "_all");
+			Map<String, String> params = new HashMap<>();
+			if(header.get("ignore_unavailable") != null) {
+				params.put("ignore_unavailable", String.valueOf(header.get("ignore_unavailable")));
+			}
+			Response response = search(indexExpression, params, parse(lines.get(i + 1)));
+			Map<String, Object> item = new LinkedHashMap<>(response.body);
+			item.put("status", response.status);
+			responses.add(item);
+		}
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("took", (System.nanoTime() - start) / 1_000_000);
+		result.put("responses", responses);
+		return new Response(200, result);
+	}
+
+	@SuppressWarnings("unchecked")
+	private synchronized List<Hit> matchingHits(
+			final List<String> searchIndices,
+			final Map<String, Object> body,
+			final List<SortField> sorts) {
+
+		Map<String, Object> query = (Map<String, Object>) body.getOrDefault("query", Collections.emptyMap());
+		List<Hit> hits = new ArrayList<>();
+		for (String index : searchIndices) {
+			for (Map.Entry<String, Document> entry : indices.get(index).entrySet()) {
+				Hit hit = new Hit(index, entry.getKey(), entry.getValue());
+				if(matches(query, hit)) {
+					hit.sortValues = sorts.stream().map(s -> s.value(hit)).collect(Collectors.toList());
+					hits.add(hit);
+				}
+			}
+		}
+		Comparator<Hit> comparator = (h1, h2) -> compareSortValues(h1.sortValues, h2.sortValues, sorts);
+		hits.sort(comparator.thenComparingLong(h -> h.document.order));
+
+		List<Object> searchAfter = (List<Object>) body.get("search_after");
+		if(searchAfter != null) {
+			hits.removeIf(h -> compareSortValues(h.sortValues, searchAfter, sorts) <= 0);
+		}
+		return hits;
+	}
+
+	private Map<String, Object> searchResult(
+			final long start,
+			final long total,
+			final List<Hit> hits,
+			final Object sourceFilter) {
+
+		List<Object> hitList = new ArrayList<>(hits.size());
+		for (Hit hit : hits) {
+			Map<String, Object> searchHit = new LinkedHashMap<>();
+			searchHit.put("_index", hit.index);
+			searchHit.put("_type", hit.document.type);
+			searchHit.put("_id", hit.id);
+			searchHit.put("_score", 1.0f);
+			if(!Boolean.FALSE.equals(sourceFilter)) {
+				searchHit.put("_source", filterSource(hit.document.source, sourceFilter));
+			}
+			if(!hit.sortValues.isEmpty()) {
+				searchHit.put("sort", hit.sortValues);
+			}
+			hitList.add(searchHit);
+		}
+		Map<String, Object> shards = new LinkedHashMap<>();
+		shards.put("total", 1);
+		shards.put("successful", 1);
+		shards.put("skipped", 0);
+		shards.put("failed", 0);
+		Map<String, Object> searchHits = new LinkedHashMap<>();
+		searchHits.put("total", total);
+		searchHits.put("max_score", 1.0f);
+		searchHits.put("hits", hitList);
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("took", (System.nanoTime() - start) / 1_000_000);
+		result.put("timed_out", false);
+		result.put("_shards", shards);
+		result.put("hits", searchHits);
+		return result;
+	}
+
+	// == queries
+
+	@SuppressWarnings("unchecked")
+	private boolean matches(
+			final Map<String, Object> query,
+			final Hit hit) {
+
+		if(query.isEmpty()) {
+			return true;
+		}
+		String type = query.keySet().iterator().next();
+		Map<String, Object> clause = (Map<String, Object>) query.get(type);
+		switch (type) {
+		case "match_all":
+			return true;
+		case "match_none":
+			return false;
+		case "ids":
+			return ((List<Object>) clause.get("values")).contains(hit.id);
+		case "term":
+			return anyValue(clause, hit, (field, value) ->
+				values(hit, field).stream().anyMatch(v -> equalsValue(v, termValue(value))));
+		case "terms":
+			return anyValue(clause, hit, (field, value) ->
+				values(hit, field).stream().anyMatch(v -> ((List<Object>) value).stream().anyMatch(t -> equalsValue(v, t))));
+		case "match":
+			return anyValue(clause, hit, (field, value) ->
+				values(hit, field).stream().anyMatch(v -> matchesText(v, termValue(value))));
+		case "range":
+			return anyValue(clause, hit, (field, value) ->
+				values(hit, field).stream().anyMatch(v -> inRange(v, (Map<String, Object>) value)));
+		case "exists":
+			return !values(hit, (String) clause.get("field")).isEmpty();
+		case "constant_score":
+			return matches((Map<String, Object>) clause.get("filter"), hit);
+		case "bool":
+			return matchesBool(clause, hit);
+		default:
+			throw new IllegalArgumentException("no [query] registered for [" + type + "]");
+		}
+	}
+
+	private boolean matchesBool(
+			final Map<String, Object> clause,
+			final Hit hit) {
+
+		List<Map<String, Object>> must = clauses(clause.get("must"));
+		must.addAll(clauses(clause.get("filter")));
+		List<Map<String, Object>> should = clauses(clause.get("should"));
+		List<Map<String, Object>> mustNot = clauses(clause.get("must_not"));
+
+		Object minimumShouldMatch = clause.get("minimum_should_match");
+		int minimumShould = minimumShouldMatch != null ? Integer.parseInt(minimumShouldMatch.toString())
+				: must.isEmpty() && !should.isEmpty() ? 1 : 0;
+
+		return must.stream().allMatch(q -> matches(q, hit))
+				&& mustNot.stream().noneMatch(q -> matches(q, hit))
+				&& should.stream().filter(q -> matches(q, hit)).count() >= minimumShould;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Map<String, Object>> clauses(
+			final Object clauses) {
+
+		List<Map<String, Object>> result = new ArrayList<>();
+		if(clauses instanceof List) {
+			((List<Object>) clauses).forEach(c -> result.add((Map<String, Object>) c));
+		}else if(clauses != null) {
+			result.add((Map<String, Object>) clauses);
+		}
+		return result;
+	}
+
+	private interface FieldPredicate {
+
+		boolean test(String field, Object value);
+	}
+
+	private boolean anyValue(
+			final Map<String, Object> clause,
+			final Hit hit,
+			final FieldPredicate predicate) {
+
+		return clause.entrySet().stream()
+				.filter(e -> !"boost".equals(e.getKey()) && !"_name".equals(e.getKey()))
+				.allMatch(e -> predicate.test(e.getKey(), e.getValue()));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object termValue(
+			final Object value) {
+
+		if(value instanceof Map) {
+			Map<String, Object> options = (Map<String, Object>) value;
+			return options.containsKey("value") ? options.get("value") : options.get("query");
+		}
+		return value;
+	}
+
+	private boolean matchesText(
+			final Object value,
+			final Object text) {
+
+		List<String> words = Arrays.asList(String.valueOf(value).toLowerCase().split("\\W+"));
+		return Arrays.stream(String.valueOf(text).toLowerCase().split("\\W+")).anyMatch(words::contains);
+	}
+
+	private boolean inRange(
+			final Object value,
+			final Map<String, Object> range) {
+
+		Object lower = range.containsKey("gte") ? range.get("gte") : range.containsKey("gt") ? range.get("gt") : range.get("from");
+		Object upper = range.containsKey("lte") ? range.get("lte") : range.containsKey("lt") ? range.get("lt") : range.get("to");
+		boolean includeLower = range.containsKey("gte") || (!range.containsKey("gt") && !Boolean.FALSE.equals(range.get("include_lower")));
+		boolean includeUpper = range.containsKey("lte") || (!range.containsKey("lt") && !Boolean.FALSE.equals(range.get("include_upper")));
+		if(lower != null) {
+			int compare = compareValues(value, lower);
+			if(compare < 0 || (compare == 0 && !includeLower)) {
+				return false;
+			}
+		}
+		if(upper != null) {
+			int compare = compareValues(value, upper);
+			if(compare > 0 || (compare == 0 && !includeUpper)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// == sorts
+
+	private static final class SortField {
+
+		private final String field;
+
+		private final boolean ascending;
+
+		private SortField(String field, boolean ascending) {
+			this.field = field;
+			this.ascending = ascending;
+		}
+
+		private Object value(Hit hit) {
+			if("_doc".equals(field)) {
+				return hit.document.order;
+			}
+			List<Object> values = values(hit, field);
+			if(values.isEmpty()) {
+				return null;
+			}
+			Comparator<Object> comparator = FakeElasticSearchServer::compareValues;
+			return ascending ? Collections.min(values, comparator) : Collections.max(values, comparator);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<SortField> sortFields(
+			final Object sort) {
+
+		List<SortField> sorts = new ArrayList<>();
+		if(sort == null) {
+			return sorts;
+		}
+		for (Object item : sort instanceof List ? (List<Object>) sort : Collections.singletonList(sort)) {
+			if(item instanceof String) {
+				if(!"_score".equals(item)) {
+					sorts.add(new SortField((String) item, true));
+				}
+				continue;
+			}
+			Map.Entry<String, Object> entry = ((Map<String, Object>) item).entrySet().iterator().next();
+			Object order = entry.getValue() instanceof Map ? ((Map<String, Object>) entry.getValue()).get("order") : entry.getValue();
+			if(!"_score".equals(entry.getKey())) {
+				sorts.add(new SortField(entry.getKey(), !"desc".equals(order)));
+			}
+		}
+		return sorts;
+	}
+
+	private static int compareSortValues(
+			final List<Object> values1,
+			final List<Object> values2,
+			final List<SortField> sorts) {
+
+		for (int i = 0; i < sorts.size(); i++) {
+			Object value1 = values1.get(i);
+			Object value2 = values2.get(i);
+			int compare;
+			if(value1 == null || value2 == null) {
+				// missing values are last
+				compare = value1 == value2 ? 0 : value1 == null ? 1 : -1;
+			}else {
+				compare = compareValues(value1, value2);
+				if(!sorts.get(i).ascending) {
+					compare = -compare;
+				}
+			}
+			if(compare != 0) {
+				return compare;
+			}
+		}
+		return 0;
+	}
+
+	private static int compareValues(
+			final Object value1,
+			final Object value2) {
+
+		if(value1 instanceof Number && value2 instanceof Number) {
+			return Double.compare(((Number) value1).doubleValue(), ((Number) value2).doubleValue());
+		}
+		if(value1 instanceof Number || value2 instanceof Number) {
+			try {
+				return Double.compare(Double.parseDouble(value1.toString()), Double.parseDouble(value2.toString()));
+			} catch (NumberFormatException e) {
+				// compared as string
+			}
+		}
+		return String.valueOf(value1).compareTo(String.valueOf(value2));
+	}
+
+	private static boolean equalsValue(
+			final Object value1,
+			final Object value2) {
+
+		if(value1 instanceof Number || value2 instanceof Number) {
+			try {
+				return Double.compare(Double.parseDouble(value1.toString()), Double.parseDouble(value2.toString())) == 0;
+			} catch (NumberFormatException e) {
+				return false;
+			}
+		}
+		return String.valueOf(value1).equals(String.valueOf(value2));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Object> values(
+			final Hit hit,
+			final String field) {
+
+		if("_id".equals(field)) {
+			return Collections.singletonList(hit.id);
+		}
+		List<Object> values = Collections.singletonList(hit.document.source);
+		for (String name : field.split("\\.")) {
+			List<Object> next = new ArrayList<>();
+			for (Object value : values) {
+				if(value instanceof Map && ((Map<String, Object>) value).get(name) != null) {
+					Object child = ((Map<String, Object>) value).get(name);
+					if(child instanceof List) {
+						next.addAll((List<Object>) child);
+					}else {
+						next.add(child);
+					}
+				}
+			}
+			values = next;
+		}
+		return values;
+	}
+
+	// == utils
+
+	private String writeIndex(
+			final String index) {
+
+		return aliases.getOrDefault(index, index);
+	}
+
+	private synchronized List<String> searchIndices(
+			final String indexExpression,
+			final boolean ignoreUnavailable) {
+
+		List<String> result = new ArrayList<>();
+		for (String expression : indexExpression.split(",")) {
+			if("_all".equals(expression) || expression.contains("*")) {
+				Pattern pattern = Pattern.compile(("_all".equals(expression) ? "*" : expression).replace(".", "\\.").replace("*", ".*"));
+				indices.keySet().stream().filter(i -> pattern.matcher(i).matches()).sorted().forEach(result::add);
+				aliases.entrySet().stream()
+					.filter(a -> pattern.matcher(a.getKey()).matches() && indices.containsKey(a.getValue()))
+					.forEach(a -> result.add(a.getValue()));
+			}else if(indices.containsKey(writeIndex(expression))) {
+				result.add(writeIndex(expression));
+			}else if(!ignoreUnavailable) {
+				return null;
+			}
+		}
+		return result.stream().distinct().collect(Collectors.toList());
+	}
+
+	private Map<String, Object> writeResult(
+			final String index,
+			final String type,
+			final String id,
+			final Document document,
+			final String result) {
+
+		Map<String, Object> shards = new LinkedHashMap<>();
+		shards.put("total", 1);
+		shards.put("successful", 1);
+		shards.put("failed", 0);
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("_index", index);
+		response.put("_type", type);
+		response.put("_id", id);
+		response.put("_version", document.version);
+		response.put("result", result);
+		response.put("_shards", shards);
+		response.put("_seq_no", document.seqNo);
+		response.put("_primary_term", 1);
+		return response;
+	}
+
+	private static boolean isVersionConflict(
+			final Document previous,
+			final Map<String, String> params) {
+
+		String version = params.get("version");
+		return version != null && (previous == null || previous.version != Long.parseLong(version));
+	}
+
+	private static Response versionConflict(
+			final String type,
+			final String id,
+			final Document previous,
+			final Map<String, String> params) {
+
+		return error(409, "version_conflict_engine_exception", "[" + type + "][" + id + "]: version conflict, "
+				+ (previous == null ? "document does not exist" : "current version [" + previous.version + "] is different")
+				+ " than the one provided [" + params.get("version") + "]");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> execute(
+			final Map<String, Object> script,
+			final Map<String, Object> source) {
+
+		Map<String, Object> params = (Map<String, Object>) script.getOrDefault("params", Collections.emptyMap());
+		Map<String, Object> result = new LinkedHashMap<>(source);
+		for (String statement : String.valueOf(script.get("source")).split(";")) {
+			if(statement.trim().isEmpty()) {
+				continue;
+			}
+			Matcher matcher = SCRIPT_STATEMENT.matcher(statement.trim());
+			if(!matcher.matches()) {
+				throw new IllegalArgumentException("unsupported script statement [" + statement.trim() + "]");
+			}
+			Object value;
+			if(matcher.group(4) != null) {
+				value = params.get(matcher.group(4));
+			}else if(matcher.group(6) != null) {
+				value = matcher.group(6);
+			}else {
+				value = matcher.group(5) != null ? (Object) Double.valueOf(matcher.group(3)) : (Object) Long.valueOf(matcher.group(3));
+			}
+			String field = matcher.group(1);
+			String operator = matcher.group(2);
+			if("=".equals(operator)) {
+				result.put(field, value);
+			}else {
+				Number current = (Number) result.getOrDefault(field, 0);
+				Number operand = (Number) value;
+				double sign = "-=".equals(operator) ? -1 : 1;
+				if(isIntegral(current) && isIntegral(operand)) {
+					result.put(field, current.longValue() + (long) sign * operand.longValue());
+				}else {
+					result.put(field, current.doubleValue() + sign * operand.doubleValue());
+				}
+			}
+		}
+		return result;
+	}
+
+	private static boolean isIntegral(
+			final Number number) {
+
+		return number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> merge(
+			final Map<String, Object> source,
+			final Map<String, Object> doc) {
+
+		Map<String, Object> merged = new LinkedHashMap<>(source);
+		for (Map.Entry<String, Object> entry : doc.entrySet()) {
+			Object previous = merged.get(entry.getKey());
+			if(previous instanceof Map && entry.getValue() instanceof Map) {
+				merged.put(entry.getKey(), merge((Map<String, Object>) previous, (Map<String, Object>) entry.getValue()));
+			}else {
+				merged.put(entry.getKey(), entry.getValue());
+			}
+		}
+		return merged;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> filterSource(
+			final Map<String, Object> source,
+			final Object sourceFilter) {
+
+		if(sourceFilter instanceof Map) {
+			Map<String, Object> filter = (Map<String, Object>) sourceFilter;
+			return filterSource(source,
+					(List<String>) filter.getOrDefault("includes", Collections.emptyList()),
+					(List<String>) filter.getOrDefault("excludes", Collections.emptyList()));
+		}
+		if(sourceFilter instanceof List) {
+			return filterSource(source, (List<String>) sourceFilter, Collections.emptyList());
+		}
+		return source;
+	}
+
+	private static Map<String, Object> filterSource(
+			final Map<String, Object> source,
+			final List<String> includes,
+			final List<String> excludes) {
+
+		if(includes.isEmpty() && excludes.isEmpty()) {
+			return source;
+		}
+		Map<String, Object> filtered = new LinkedHashMap<>();
+		source.forEach((field, value) -> {
+			if((includes.isEmpty() || includes.stream().anyMatch(p -> matchesPattern(field, p)))
+					&& excludes.stream().noneMatch(p -> matchesPattern(field, p))) {
+				filtered.put(field, value);
+			}
+		});
+		return filtered;
+	}
+
+	private static boolean matchesPattern(
+			final String field,
+			final String pattern) {
+
+		String firstLevel = pattern.split("\\.")[0];
+		return field.matches(firstLevel.replace("*", ".*"));
+	}
+
+	private boolean isRejected(
+			final double rate) {
+
+		if(rate > 0 && random.nextDouble() < rate) {
+			rejections.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	private void sleep() {
+		long millis = latencyMillis;
+		long jitter = latencyJitterMillis;
+		if(jitter > 0) {
+			millis += (long) (random.nextDouble() * jitter);
+		}
+		if(millis > 0) {
+			try {
+				Thread.sleep(millis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static long keepAlive(
+			final String scroll) {
+
+		return TimeValue.parseTimeValue(scroll, "scroll").millis();
+	}
+
+	private static Response error(
+			final int status,
+			final String type,
+			final String reason) {
+
+		Map<String, Object> cause = new LinkedHashMap<>();
+		cause.put("type", type);
+		cause.put("reason", reason);
+		Map<String, Object> error = new LinkedHashMap<>(cause);
+		error.put("root_cause", Collections.singletonList(cause));
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("error", error);
+		body.put("status", status);
+		return new Response(status, body);
+	}
+
+	private static Map<String, Object> parse(
+			final String json) {
+
+		if(json.trim().isEmpty()) {
+			return Collections.emptyMap();
+		}
+		return XContentHelper.convertToMap(XContentType.JSON.xContent(), json, true);
+	}
+
+	private static List<String> lines(
+			final String body) {
+
+		return NEW_LINE.splitAsStream(body).filter(l -> !l.trim().isEmpty()).collect(Collectors.toList());
+	}
+
+	private static List<String> list(
+			final String value) {
+
+		return value == null ? Collections.emptyList() : Arrays.asList(value.split(","));
+	}
+
+	private static List<String> segments(
+			final String path) {
+
+		return Arrays.stream(path.split("/")).filter(s -> !s.isEmpty()).collect(Collectors.toList());
+	}
+
+	private static Map<String, String> params(
+			final String query)
+		throws IOException {
+
+		Map<String, String> params = new HashMap<>();
+		if(query != null) {
+			for (String param : query.split("&")) {
+				int separator = param.indexOf('=');
+				String name = separator < 0 ? param : param.substring(0, separator);
+				String value = separator < 0 ? "" : param.substring(separator + 1);
+				params.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+			}
+		}
+		return params;
+	}
+
+	private static String readBody(
+			final InputStream in)
+		throws IOException {
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while((read = in.read(buffer)) > 0) {
+			out.write(buffer, 0, read);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static void send(
+			final HttpExchange exchange,
+			final Response response)
+		throws IOException {
+
+		if(response.body == null) {
+			exchange.sendResponseHeaders(response.status, -1);
+			return;
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		XContentBuilder builder = XContentFactory.jsonBuilder(bytes);
+		builder.map(response.body);
+		builder.close();
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+		exchange.sendResponseHeaders(response.status, bytes.size());
+		try(OutputStream out = exchange.getResponseBody()){
+			bytes.writeTo(out);
+		}
+	}
+
+	private static final class Response {
+
+		private final int status;
+
+		private final Map<String, Object> body;
+
+		private Response(int status, Map<String, Object> body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+
+	private final class Document {
+
+		private final String type;
+
+		private final Map<String, Object> source;
+
+		private final long version;
+
+		private final long seqNo;
+
+		private final long order;
+
+		private Document(String type, Map<String, Object> source, Document previous) {
+			this.type = type;
+			this.source = Objects.requireNonNull(source);
+			this.version = previous == null ? 1 : previous.version + 1;
+			this.seqNo = sequence.incrementAndGet();
+			this.order = previous == null ? seqNo : previous.order;
+		}
+	}
+
+	private static final class Hit {
+
+		private final String index;
+
+		private final String id;
+
+		private final Document document;
+
+		private List<Object> sortValues = Collections.emptyList();
+
+		private Hit(String index, String id, Document document) {
+			this.index = index;
+			this.id = id;
+			this.document = document;
+		}
+	}
+
+	private final class ScrollContext {
+
+		private final List<Hit> hits;
+
+		private final int size;
+
+		private final Object source;
+
+		private int position;
+
+		private volatile long expireAt;
+
+		private ScrollContext(List<Hit> hits, int size, long keepAliveMillis, Object source) {
+			this.hits = hits;
+			this.size = size;
+			this.source = source;
+			keepAlive(keepAliveMillis);
+		}
+
+		private void keepAlive(long keepAliveMillis) {
+			this.expireAt = System.currentTimeMillis() + keepAliveMillis;
+		}
+
+		private boolean isExpired() {
+			return System.currentTimeMillis() > expireAt;
+		}
+
+		private synchronized List<Hit> next() {
+			List<Hit> next = hits.subList(Math.min(position, hits.size()), Math.min(position + size, hits.size()));
+			position += next.size();
+			return next;
+		}
+	}
+}
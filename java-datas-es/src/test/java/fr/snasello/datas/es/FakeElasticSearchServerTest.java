@@ -0,0 +1,567 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchHit;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+
+import fr.snasello.datas.model.CursorPage;
+import fr.snasello.datas.model.CursorPageData;
+import fr.snasello.datas.model.Page;
+import fr.snasello.datas.model.PageData;
+import fr.snasello.datas.model.Sort;
+import fr.snasello.datas.model.SortDirection;
+
+public class FakeElasticSearchServerTest {
+
+    private static final Gson gson = new Gson();
+
+    private static final String TEST_INDEX = "test";
+
+    private static final String TEST_ALIAS = "test-alias";
+
+    private static final String TEST_TYPE = "TestType";
+
+    @Test
+    public void saveGetUpdateDelete() throws IOException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+
+    		String objId = repository.save(null, testObject("this is a name"), jsonMapper());
+    		assertEquals("this is a name", repository.getById(objId, getMapper()).get().getName());
+    		assertEquals(1, server.count(TEST_INDEX));
+
+    		repository.update(objId, testObject("name update"), jsonMapper());
+    		assertEquals("name update", repository.getById(objId, getMapper()).get().getName());
+    		assertTrue(repository.exists(objId));
+
+    		repository.delete(objId);
+    		assertFalse(repository.getById(objId, getMapper()).isPresent());
+    		assertFalse(repository.exists(objId));
+    		assertEquals(0, server.count(TEST_INDEX));
+
+    		ElasticsearchStatusException e = assertThrows(ElasticsearchStatusException.class,
+    				() -> repository.update("unknown", testObject("name"), jsonMapper()));
+    		assertEquals(RestStatus.NOT_FOUND, e.status());
+    	}
+    }
+
+    @Test
+    public void searchPageData() throws IOException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+    		repository.bulkSave(testObjects(25), jsonMapper());
+
+    		List<Sort> sorts = Collections.singletonList(new Sort("name", SortDirection.DSC));
+    		PageData<TestObject> page = repository.searchPageData(QueryBuilders.matchAllQuery(), new Page(10, 10), sorts, hitMapper());
+    		assertEquals(25, page.getTotalSize());
+    		assertEquals(10, page.getDatas().size());
+    		assertEquals("name 14", page.getDatas().get(0).getName());
+
+    		PageData<TestObject> last = repository.searchPageDataWithoutTotal(QueryBuilders.matchAllQuery(), new Page(20, 10), sorts, hitMapper());
+    		assertEquals(5, last.getDatas().size());
+    		assertEquals(25, last.getTotalSize());
+    		assertTrue(last.isTotalSizeExact());
+
+    		PageData<TestObject> empty = repository.searchPageDataWithoutTotal(QueryBuilders.matchAllQuery(), new Page(30, 10), sorts, hitMapper());
+    		assertTrue(empty.getDatas().isEmpty());
+    		assertEquals(30, empty.getTotalSize());
+    		assertTrue(empty.isTotalSizeExact());
+
+    		PageData<TestObject> filtered = repository.searchPageData(
+    				QueryBuilders.boolQuery().filter(QueryBuilders.termsQuery("name", "name 03", "name 04")),
+    				Page.firstPageWithLimit(10), sorts, hitMapper());
+    		assertEquals(Arrays.asList("name 04", "name 03"),
+    				filtered.getDatas().stream().map(TestObject::getName).collect(Collectors.toList()));
+
+    		assertEquals(25, repository.count(QueryBuilders.matchAllQuery()));
+    		assertEquals(1, repository.count(QueryBuilders.idsQuery().addIds("7")));
+    	}
+    }
+
+    @Test
+    public void searchCursorPageData() throws IOException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+    		repository.bulkSave(testObjects(25), jsonMapper());
+
+    		List<Sort> sorts = Collections.singletonList(new Sort("name", SortDirection.ASC));
+    		CursorPageData<TestObject> page = repository.searchCursorPageData(QueryBuilders.matchAllQuery(),
+    				CursorPage.firstPageWithLimit(10), sorts, hitMapper());
+    		int count = page.getDatas().size();
+    		while(page.getNextPage().isPresent()) {
+    			page = repository.searchCursorPageData(QueryBuilders.matchAllQuery(), page.getNextPage().get(), sorts, hitMapper());
+    			count += page.getDatas().size();
+    		}
+    		assertEquals(25, count);
+    		assertEquals("name 24", page.getDatas().get(page.getDatas().size() - 1).getName());
+    	}
+    }
+
+    @Test
+    public void searchScroll() throws IOException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+    		repository.bulkSave(testObjects(25), jsonMapper());
+
+    		List<TestObject> datas = repository.searchScroll(QueryBuilders.matchAllQuery(),
+    				Collections.singletonList(new Sort("name", SortDirection.ASC)), hitMapper());
+    		assertEquals(25, datas.size());
+    		assertEquals("name 00", datas.get(0).getName());
+    		assertEquals(0, server.getOpenScrollCount());
+    	}
+    }
+
+    @Test
+    public void bulkSaveAsyncInChunks() throws Exception {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = new ElasticSearchRepository(esClient, () -> TEST_ALIAS, () -> TEST_ALIAS, TEST_TYPE, true, new BulkSettings(10, 1024 * 1024, 1));
+
+    		long requests = server.getRequestCount();
+    		BulkResponse response = repository.bulkSaveAsync(testObjects(25), jsonMapper()).get(5, TimeUnit.SECONDS).get();
+    		assertEquals(3, server.getRequestCount() - requests);
+    		assertEquals(25, response.getItems().length);
+    		assertEquals(24, response.getItems()[24].getItemId());
+    		assertEquals(25, server.count(TEST_INDEX));
+    		assertFalse(repository.bulkSaveAsync(Collections.<TestObject>emptyList(), jsonMapper()).get().isPresent());
+    	}
+    }
+
+    @Test
+    public void scrollWithSettings() throws IOException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+    		repository.bulkSave(testObjects(95), jsonMapper());
+    		List<Sort> sorts = Collections.singletonList(new Sort("name", SortDirection.ASC));
+
+    		long requests = server.getRequestCount();
+    		List<TestObject> datas = repository.searchScroll(QueryBuilders.matchAllQuery(), sorts, Projection.ALL, new ScrollSettings(10, 60), hitMapper());
+    		assertEquals(95, datas.size());
+    		// 10 batches and the last empty one, then the clear scroll
+    		assertEquals(12, server.getRequestCount() - requests);
+
+    		requests = server.getRequestCount();
+    		datas = repository.searchScroll(QueryBuilders.matchAllQuery(), sorts, Projection.ALL, hitMapper());
+    		assertEquals(95, datas.size());
+    		assertEquals(3, server.getRequestCount() - requests);
+
+    		requests = server.getRequestCount();
+    		try(Stream<TestObject> stream = repository.streamScroll(QueryBuilders.matchAllQuery(), sorts, Projection.ALL,
+    				ScrollSettings.adaptive(5, 40, 1024 * 1024, 10_000), hitMapper())){
+    			datas = stream.collect(Collectors.toList());
+    		}
+    		assertEquals(95, datas.size());
+    		assertEquals(95, datas.stream().map(TestObject::getId).distinct().count());
+    		assertEquals("name 00", datas.get(0).getName());
+    		assertEquals("name 94", datas.get(94).getName());
+    		// 5, 10, 20, 40, 40 hits and the last empty batch
+    		assertEquals(6, server.getRequestCount() - requests);
+    		assertEquals(0, server.getOpenScrollCount());
+    	}
+    }
+
+    @Test
+    public void parallelScrollWithSettings() throws IOException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+    		repository.bulkSave(testObjects(95), jsonMapper());
+    		ExecutorService executor = Executors.newFixedThreadPool(2);
+    		try {
+    			List<TestObject> datas = Collections.synchronizedList(new ArrayList<>());
+    			long requests = server.getRequestCount();
+    			repository.parallelScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), Projection.ALL, new ScrollSettings(10, 60),
+    					1, executor, hitMapper(), datas::add);
+    			assertEquals(95, datas.size());
+    			// 10 batches and the last empty one, then the clear scroll
+    			assertEquals(12, server.getRequestCount() - requests);
+
+    			// a failure of the consumer is thrown as is
+    			assertThrows(IllegalStateException.class, () -> repository.parallelScroll(QueryBuilders.matchAllQuery(), Collections.emptyList(), 2, executor, hitMapper(),
+    					o -> { throw new IllegalStateException("fail"); }));
+    		} finally {
+    			executor.shutdown();
+    		}
+    		assertEquals(0, server.getOpenScrollCount());
+    	}
+    }
+
+    @Test
+    public void prefetchScroll() throws IOException, InterruptedException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+    		repository.bulkSave(testObjects(95), jsonMapper());
+    		List<Sort> sorts = Collections.singletonList(new Sort("name", SortDirection.ASC));
+
+    		ExecutorService executor = Executors.newSingleThreadExecutor();
+    		List<TestObject> datas = repository.searchScroll(QueryBuilders.matchAllQuery(), sorts, Projection.ALL, ScrollSettings.DEFAULT, 2, executor, hitMapper());
+    		assertEquals(95, datas.size());
+    		assertEquals("name 00", datas.get(0).getName());
+    		assertEquals("name 94", datas.get(94).getName());
+
+    		try(Stream<TestObject> stream = repository.streamScroll(QueryBuilders.matchAllQuery(), sorts, Projection.ALL, new ScrollSettings(10, 60), 2, executor, hitMapper())){
+    			assertEquals(15, stream.limit(15).count());
+    		}
+
+    		List<TestObject> adaptive = repository.searchScroll(QueryBuilders.matchAllQuery(), sorts, Projection.ALL,
+    				ScrollSettings.adaptive(5, 40, 1024 * 1024, 10_000), 2, executor, hitMapper());
+    		assertEquals(95, adaptive.size());
+    		assertEquals("name 94", adaptive.get(94).getName());
+    		executor.shutdown();
+    		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    		assertEquals(0, server.getOpenScrollCount());
+    	}
+    }
+
+    @Test
+    public void rejection() throws IOException {
+    	try(FakeElasticSearchServer server = server().withRejectionRate(1.0);
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+
+    		ElasticsearchStatusException e = assertThrows(ElasticsearchStatusException.class,
+    				() -> repository.save(null, testObject("name"), jsonMapper()));
+    		assertEquals(RestStatus.TOO_MANY_REQUESTS, e.status());
+    		assertEquals(1, server.getRejectionCount());
+    	}
+    }
+
+    @Test
+    public void bulkItemRejection() throws IOException {
+    	try(FakeElasticSearchServer server = server().withBulkItemRejectionRate(0.5);
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+
+    		Optional<BulkResponse> response = repository.bulkSave(testObjects(100), jsonMapper());
+    		assertTrue(response.get().hasFailures());
+    		long failures = Arrays.stream(response.get().getItems()).filter(i -> i.isFailed()).count();
+    		assertEquals(failures, server.getRejectionCount());
+    		assertEquals(100 - failures, server.count(TEST_INDEX));
+
+    		BulkRequest bulkRequest = new BulkRequest();
+    		testObjects(100).forEach(o -> bulkRequest.add(repository.buildIndexRequest(o.getId(), gson.toJson(o))));
+    		BulkResult result = repository.executeBulkWithRetry(bulkRequest, new BulkRetrySettings(1, 10, 10000)).get();
+    		assertFalse(result.hasFailures());
+    		assertTrue(result.getAttempts() > 1);
+    		assertEquals(100, server.count(TEST_INDEX));
+    	}
+    }
+
+    @Test
+    public void latencyAndConcurrency() throws IOException {
+    	try(FakeElasticSearchServer server = server().withLatency(20, 0);
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+
+    		long start = System.nanoTime();
+    		repository.getById("1", getMapper());
+    		assertTrue(System.nanoTime() - start >= 20_000_000L);
+
+    		try(ElasticSearchBulkProcessor processor = new ElasticSearchBulkProcessor(repository, 10, 0, 0, 2,
+    				new ElasticSearchBulkProcessor.Listener() {})){
+    			testObjects(200).forEach(o -> processor.index(o.getId(), o, jsonMapper()));
+    		}
+    		assertEquals(200, server.count(TEST_INDEX));
+    		assertTrue(server.getMaxConcurrentRequests() <= 2);
+    	}
+    }
+
+    @Test
+    public void bulkUpdateAndDelete() throws IOException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+    		List<TestObject> objects = testObjects(20);
+    		repository.bulkSave(objects, jsonMapper());
+
+    		objects.forEach(o -> o.setName(o.getName() + " updated"));
+    		Optional<BulkResponse> updated = repository.bulkUpdate(objects, jsonMapper());
+    		assertFalse(updated.get().hasFailures());
+    		assertEquals("name 07 updated", repository.getById("7", getMapper()).get().getName());
+
+    		long requests = server.getRequestCount();
+    		Optional<BulkResponse> deleted = repository.bulkDelete(Arrays.asList("1", "2", "3", "unknown"));
+    		assertFalse(deleted.get().hasFailures());
+    		assertEquals(requests + 1, server.getRequestCount());
+    		assertEquals(17, server.count(TEST_INDEX));
+    	}
+    }
+
+    @Test
+    public void unitOfWork() throws IOException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+    		repository.bulkSave(testObjects(3), jsonMapper());
+    		long requests = server.getRequestCount();
+
+    		UnitOfWork unitOfWork = repository.unitOfWork()
+    				.save("10", testObject("name 10"), jsonMapper())
+    				.save(null, testObject("new name"), jsonMapper())
+    				.update("1", testObject("name 01 updated"), jsonMapper())
+    				.update("unknown", testObject("name"), jsonMapper())
+    				.delete("2");
+    		List<BulkItemResponse> results = unitOfWork.flush();
+    		assertEquals(requests + 1, server.getRequestCount());
+    		assertEquals(0, unitOfWork.size());
+
+    		assertEquals(5, results.size());
+    		assertEquals(DocWriteRequest.OpType.INDEX, results.get(0).getOpType());
+    		assertEquals("10", results.get(0).getId());
+    		assertFalse(results.get(0).isFailed());
+    		assertEquals(DocWriteRequest.OpType.INDEX, results.get(1).getOpType());
+    		assertEquals(1, results.get(1).getItemId());
+    		assertFalse(results.get(1).isFailed());
+    		assertFalse(results.get(2).isFailed());
+    		assertTrue(results.get(3).isFailed());
+    		assertEquals(RestStatus.NOT_FOUND, results.get(3).status());
+    		assertEquals(DocWriteRequest.OpType.DELETE, results.get(4).getOpType());
+    		assertEquals(4, server.count(TEST_INDEX));
+    		assertEquals("name 01 updated", repository.getById("1", getMapper()).get().getName());
+
+    		List<BulkItemResponse> last = unitOfWork.save("1", testObject("name 01 saved"), jsonMapper())
+    				.delete("1")
+    				.flush();
+    		assertEquals(2, last.size());
+    		assertEquals(DocWriteRequest.OpType.INDEX, last.get(0).getOpType());
+    		assertEquals(DocWriteRequest.OpType.DELETE, last.get(1).getOpType());
+    		assertFalse(repository.getById("1", getMapper()).isPresent());
+    	}
+    }
+
+    @Test
+    public void upsertAndScript() throws IOException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient).withRetryOnConflict(3);
+
+    		repository.upsert("1", testObject("name 1"), jsonMapper());
+    		repository.upsert("1", testObject("name 1 upserted"), jsonMapper());
+    		assertEquals("name 1 upserted", repository.getById("1", getMapper()).get().getName());
+    		assertEquals(Long.valueOf(2), repository.getById("1", GetResponse::getVersion).get());
+
+    		String script = "ctx._source.count += params.count; ctx._source.name = params.name";
+    		Map<String, Object> params = new HashMap<>();
+    		params.put("count", 2);
+    		params.put("name", "counter");
+    		Map<String, Object> upsert = Collections.singletonMap("count", 2);
+    		repository.upsertWithScript("counter", script, params, upsert, gson::toJson);
+    		repository.upsertWithScript("counter", script, params, upsert, gson::toJson);
+    		repository.updateWithScript("counter", script, params);
+    		assertEquals(Long.valueOf(6), repository.getById("counter", r -> ((Number) r.getSourceAsMap().get("count")).longValue()).get());
+    		assertEquals("counter", repository.getById("counter", getMapper()).get().getName());
+
+    		ElasticsearchStatusException e = assertThrows(ElasticsearchStatusException.class,
+    				() -> repository.updateWithScript("unknown", script, params));
+    		assertEquals(RestStatus.NOT_FOUND, e.status());
+    	}
+    }
+
+    @Test
+    public void conditionalWrites() throws IOException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+
+    		assertTrue(repository.saveIfAbsent("1", testObject("name 1"), jsonMapper()));
+    		assertFalse(repository.saveIfAbsent("1", testObject("name 1 again"), jsonMapper()));
+    		long version = repository.getById("1", GetResponse::getVersion).get();
+
+    		assertTrue(repository.saveIfVersion("1", testObject("name 1 saved"), version, jsonMapper()));
+    		assertFalse(repository.saveIfVersion("1", testObject("name 1 stale"), version, jsonMapper()));
+    		assertFalse(repository.saveIfVersion("2", testObject("name 2"), 1, jsonMapper()));
+
+    		assertTrue(repository.updateIfVersion("1", testObject("name 1 updated"), version + 1, jsonMapper()));
+    		assertFalse(repository.updateIfVersion("1", testObject("name 1 stale"), version + 1, jsonMapper()));
+    		assertEquals("name 1 updated", repository.getById("1", getMapper()).get().getName());
+
+    		assertFalse(repository.deleteIfVersion("1", version));
+    		assertTrue(repository.deleteIfVersion("1", version + 2));
+    		assertFalse(repository.getById("1", getMapper()).isPresent());
+    		assertFalse(repository.deleteIfVersion("1", version + 2));
+    	}
+    }
+
+    @Test
+    public void groupCommitRefresh() throws IOException, InterruptedException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+    		repository.save(null, testObject("name"), jsonMapper());
+    		assertEquals(0, server.getRefreshCount(TEST_INDEX));
+
+    		ElasticSearchRepository groupCommit = repository.withRefreshSettings(RefreshSettings.groupCommit(50));
+    		groupCommit.save(null, testObject("name"), false, jsonMapper());
+    		assertEquals(0, server.getRefreshCount(TEST_INDEX));
+
+    		ExecutorService executor = Executors.newFixedThreadPool(8);
+    		try {
+    			List<TestObject> objects = testObjects(40);
+    			objects.forEach(o -> executor.execute(() -> {
+    				try {
+    					groupCommit.save(o.getId(), o, jsonMapper());
+    				} catch (IOException e) {
+    					throw new IllegalStateException(e);
+    				}
+    			}));
+    		} finally {
+    			executor.shutdown();
+    		}
+    		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    		assertEquals(42, server.count(TEST_INDEX));
+    		long refreshes = server.getRefreshCount(TEST_INDEX);
+    		assertTrue(refreshes >= 1 && refreshes < 40, "refreshes " + refreshes);
+
+    		groupCommit.delete("0");
+    		assertEquals(refreshes + 1, server.getRefreshCount(TEST_INDEX));
+    	}
+    }
+
+    @Test
+    public void groupCommitSharedByCopies() throws Exception {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		ElasticSearchRepository repository = repository(esClient);
+    		ElasticSearchRepository first = repository.withRefreshSettings(RefreshSettings.groupCommit(500));
+    		ElasticSearchRepository second = repository.withRefreshSettings(RefreshSettings.groupCommit(500)).withRetryOnConflict(1);
+
+    		// the copies join the same window
+    		CompletableFuture<String> async = first.saveAsync("1", testObject("1", "name"), jsonMapper());
+    		second.save("2", testObject("2", "name"), jsonMapper());
+    		assertEquals("1", async.get(5, TimeUnit.SECONDS));
+    		assertEquals(1, server.getRefreshCount(TEST_INDEX));
+
+    		// the bulk writes follow the refresh settings
+    		first.bulkSave(testObjects(3), jsonMapper());
+    		assertEquals(2, server.getRefreshCount(TEST_INDEX));
+    		first.unitOfWork().delete("1").flush();
+    		assertEquals(3, server.getRefreshCount(TEST_INDEX));
+
+    		// the bulk writes keep no refresh with the default settings
+    		repository.bulkSave(testObjects(3), jsonMapper());
+    		assertEquals(3, server.getRefreshCount(TEST_INDEX));
+    	}
+    }
+
+    @Test
+    public void cachingCopies() throws IOException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		CachingElasticSearchRepository repository = new CachingElasticSearchRepository(esClient, () -> TEST_ALIAS, () -> TEST_ALIAS, TEST_TYPE, true, BulkSettings.DEFAULT, 100, 60000);
+    		repository.save("1", testObject("1", "name"), jsonMapper());
+    		assertEquals("name", repository.getById("1", getMapper()).get().getName());
+
+    		ElasticSearchRepository copy = repository.withRetryOnConflict(3).searchOnIndices(TEST_INDEX);
+    		assertTrue(copy instanceof CachingElasticSearchRepository);
+    		assertEquals("name", copy.getById("1", getMapper()).get().getName());
+    		assertEquals(1, repository.getGetCache().getHitCount());
+
+    		copy.update("1", testObject("1", "name update"), jsonMapper());
+    		assertEquals("name update", repository.getById("1", getMapper()).get().getName());
+    	}
+    }
+
+    @Test
+    public void cachingRollover() throws IOException {
+    	try(FakeElasticSearchServer server = server();
+    			RestHighLevelClient esClient = server.esClient()){
+    		AtomicReference<String> writeIndex = new AtomicReference<>("test-1");
+    		CachingElasticSearchRepository repository = new CachingElasticSearchRepository(esClient, writeIndex::get, () -> "test-*", TEST_TYPE, true, BulkSettings.DEFAULT, 100, 60000);
+    		repository.save("1", testObject("1", "name"), jsonMapper());
+    		assertEquals("name", repository.getById("1", getMapper()).get().getName());
+
+    		// written in the next index by another application
+    		new ElasticSearchRepository(esClient, () -> "test-2", () -> "test-2", TEST_TYPE, true)
+    			.save("1", testObject("1", "name next"), jsonMapper());
+    		writeIndex.set("test-2");
+    		assertEquals("name next", repository.getById("1", getMapper()).get().getName());
+    		assertEquals(0, repository.getGetCache().getHitCount());
+    	}
+    }
+
+    private Function<SearchHit, TestObject> hitMapper() {
+    	return hit -> {
+    		TestObject to = gson.fromJson(hit.getSourceAsString(), TestObject.class);
+    		to.setId(hit.getId());
+    		return to;
+    	};
+    }
+
+    private Function<GetResponse, TestObject> getMapper() {
+    	return response -> {
+    		TestObject to = gson.fromJson(response.getSourceAsString(), TestObject.class);
+    		to.setId(response.getId());
+    		return to;
+    	};
+    }
+
+    private Function<TestObject, String> jsonMapper(){
+    	return e -> gson.toJson(e);
+    }
+
+    private List<TestObject> testObjects(int count) {
+    	return IntStream.range(0, count)
+    			.mapToObj(i -> testObject(Integer.toString(i), String.format("name %02d", i)))
+    			.collect(Collectors.toList());
+    }
+
+    private TestObject testObject(String id, String name) {
+    	TestObject to = new TestObject();
+    	to.setId(id);
+    	to.setName(name);
+    	return to;
+    }
+
+    private TestObject testObject(String name) {
+    	return testObject(null, name);
+    }
+
+    private FakeElasticSearchServer server() throws IOException {
+    	return new FakeElasticSearchServer().withAlias(TEST_ALIAS, TEST_INDEX);
+    }
+
+    private ElasticSearchRepository repository(
+    		final RestHighLevelClient esClient) {
+
+    	return new ElasticSearchRepository(esClient, () -> TEST_ALIAS, () -> TEST_ALIAS, TEST_TYPE, true);
+    }
+}
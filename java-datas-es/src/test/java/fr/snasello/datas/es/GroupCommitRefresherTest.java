@@ -0,0 +1,111 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class GroupCommitRefresherTest {
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void setUp() {
+		executor = Executors.newFixedThreadPool(8);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testSingleRefreshByWindow() throws Exception {
+		List<String> refreshed = new CopyOnWriteArrayList<>();
+		GroupCommitRefresher refresher = new GroupCommitRefresher(refreshed::add);
+
+		List<Future<?>> waiters = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			waiters.add(executor.submit(() -> { refresher.awaitRefresh(Collections.singleton("index"), 200); return null; }));
+		}
+		for (Future<?> waiter : waiters) {
+			waiter.get(5, TimeUnit.SECONDS);
+		}
+		// the waiters arriving after the first refresh open a new window
+		assertTrue(refreshed.size() >= 1 && refreshed.size() < 8, "refreshes " + refreshed.size());
+		assertTrue(refreshed.stream().allMatch("index"::equals));
+
+		refreshed.clear();
+		refresher.awaitRefresh(Collections.singleton("index"), 200);
+		assertEquals(1, refreshed.size());
+	}
+
+	@Test
+	public void testWindowByIndex() throws Exception {
+		List<String> refreshed = new CopyOnWriteArrayList<>();
+		GroupCommitRefresher refresher = new GroupCommitRefresher(refreshed::add);
+
+		Future<?> first = executor.submit(() -> { refresher.awaitRefresh(Collections.singleton("index-1"), 50); return null; });
+		refresher.awaitRefresh(Collections.singleton("index-2"), 50);
+		first.get(5, TimeUnit.SECONDS);
+		assertEquals(2, refreshed.size());
+		assertTrue(refreshed.contains("index-1"));
+		assertTrue(refreshed.contains("index-2"));
+	}
+
+	@Test
+	public void testSeveralIndices() throws Exception {
+		List<String> refreshed = new CopyOnWriteArrayList<>();
+		GroupCommitRefresher refresher = new GroupCommitRefresher(refreshed::add);
+
+		refresher.awaitRefresh(Arrays.asList("index-1", "index-2", "index-1"), 10);
+		assertEquals(2, refreshed.size());
+		assertTrue(refreshed.contains("index-1"));
+		assertTrue(refreshed.contains("index-2"));
+	}
+
+	@Test
+	public void testRefreshOnBackgroundThread() throws Exception {
+		List<String> threads = new CopyOnWriteArrayList<>();
+		GroupCommitRefresher refresher = new GroupCommitRefresher(index -> threads.add(Thread.currentThread().getName()));
+
+		CompletableFuture<Void> refresh = refresher.refresh(Collections.singleton("index"), 200);
+		// the caller is not blocked by the window
+		assertFalse(refresh.isDone());
+		refresh.get(5, TimeUnit.SECONDS);
+		assertEquals(Collections.singletonList("elasticsearch-group-commit"), threads);
+	}
+
+	@Test
+	public void testInterrupted() {
+		GroupCommitRefresher refresher = new GroupCommitRefresher(index -> {});
+
+		Thread.currentThread().interrupt();
+		assertThrows(InterruptedIOException.class, () -> refresher.awaitRefresh(Collections.singleton("index"), 5000));
+		// the interrupt status is kept
+		assertTrue(Thread.interrupted());
+	}
+
+	@Test
+	public void testRefreshFailure() {
+		GroupCommitRefresher refresher = new GroupCommitRefresher(index -> { throw new IOException("fail"); });
+		assertThrows(IOException.class, () -> refresher.awaitRefresh(Collections.singleton("index"), 10));
+	}
+}
@@ -0,0 +1,45 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class HistogramTest {
+
+	@Test
+	public void empty() {
+		Histogram histogram = new Histogram();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+		assertEquals(0d, histogram.getMean());
+		assertEquals(0, histogram.getPercentile(99));
+	}
+	
+	@Test
+	public void record() {
+		Histogram histogram = new Histogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+		histogram.record(-5);
+		assertEquals(101, histogram.getCount());
+		assertEquals(5050, histogram.getSum());
+		assertEquals(100, histogram.getMax());
+		assertEquals(50d, histogram.getMean(), 0.5d);
+		assertEquals(63, histogram.getPercentile(50));
+		assertEquals(100, histogram.getPercentile(99));
+		assertEquals(1, histogram.getPercentile(0));
+		assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(101));
+	}
+	
+	@Test
+	public void bucket() {
+		assertEquals(0, Histogram.bucket(0));
+		assertEquals(0, Histogram.bucket(1));
+		assertEquals(1, Histogram.bucket(2));
+		assertEquals(1, Histogram.bucket(3));
+		assertEquals(10, Histogram.bucket(1024));
+		assertEquals(62, Histogram.bucket(Long.MAX_VALUE));
+	}
+}
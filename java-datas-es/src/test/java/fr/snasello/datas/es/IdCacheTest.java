@@ -0,0 +1,125 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class IdCacheTest {
+
+	@Test
+	public void testGetPut() {
+		IdCache<String> cache = new IdCache<>(10, 1000);
+		assertFalse(cache.get("1").isPresent());
+		cache.put("1", "azerty", cache.stamp());
+		assertEquals("azerty", cache.get("1").get());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+	
+	@Test
+	public void testSource() {
+		IdCache<String> cache = new IdCache<>(10, 1000);
+		cache.put("1", "index-1", "a", cache.stamp());
+		assertEquals("a", cache.get("1", "index-1").get());
+		// the value of the previous source is removed
+		assertFalse(cache.get("1", "index-2").isPresent());
+		assertFalse(cache.get("1", "index-1").isPresent());
+		assertEquals(0, cache.size());
+
+		cache.put("2", "index-1", "b", cache.stamp());
+		cache.invalidate("2");
+		assertFalse(cache.get("2", "index-1").isPresent());
+	}
+	
+	@Test
+	public void testEviction() {
+		IdCache<String> cache = new IdCache<>(2, 1000);
+		cache.put("1", "a", cache.stamp());
+		cache.put("2", "b", cache.stamp());
+		cache.get("1");
+		cache.put("3", "c", cache.stamp());
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertFalse(cache.get("2").isPresent());
+		assertEquals("a", cache.get("1").get());
+	}
+	
+	@Test
+	public void testTtl() {
+		AtomicLong clock = new AtomicLong(0);
+		IdCache<String> cache = new IdCache<>(10, 100, clock::get);
+		cache.put("1", "a", cache.stamp());
+		clock.set(99);
+		assertEquals("a", cache.get("1").get());
+		clock.set(100);
+		assertFalse(cache.get("1").isPresent());
+		assertEquals(0, cache.size());
+	}
+	
+	@Test
+	public void testInvalidate() {
+		IdCache<String> cache = new IdCache<>(10, 1000);
+		cache.put("1", "a", cache.stamp());
+		cache.put("2", "b", cache.stamp());
+		cache.invalidate("1");
+		assertFalse(cache.get("1").isPresent());
+		assertEquals("b", cache.get("2").get());
+		cache.invalidateAll();
+		assertEquals(0, cache.size());
+	}
+	
+	@Test
+	public void testStaleStamp() {
+		IdCache<String> cache = new IdCache<>(10, 1000);
+		long stamp = cache.stamp();
+		cache.invalidate("1");
+		cache.put("1", "stale", stamp);
+		assertFalse(cache.get("1").isPresent());
+	}
+	
+	@Test
+	public void testStampById() {
+		IdCache<String> cache = new IdCache<>(10, 1000);
+		long stamp = cache.stamp();
+		cache.invalidate("2");
+		cache.invalidate(null);
+		cache.put("1", "a", stamp);
+		assertEquals("a", cache.get("1").get());
+		cache.put("2", "stale", stamp);
+		assertFalse(cache.get("2").isPresent());
+		cache.put("2", "b", cache.stamp());
+		assertEquals("b", cache.get("2").get());
+	}
+	
+	@Test
+	public void testStaleStampAfterForgottenInvalidation() {
+		IdCache<String> cache = new IdCache<>(2, 1000);
+		long stamp = cache.stamp();
+		cache.invalidate("1");
+		cache.invalidate("2");
+		cache.invalidate("3");
+		cache.put("1", "stale", stamp);
+		assertFalse(cache.get("1").isPresent());
+		cache.put("1", "a", cache.stamp());
+		assertEquals("a", cache.get("1").get());
+	}
+	
+	@Test
+	public void testStaleStampAfterInvalidateAll() {
+		IdCache<String> cache = new IdCache<>(10, 1000);
+		long stamp = cache.stamp();
+		cache.invalidateAll();
+		cache.put("1", "stale", stamp);
+		assertFalse(cache.get("1").isPresent());
+	}
+	
+	@Test
+	public void testInvalid() {
+		assertThrows(IllegalArgumentException.class, () -> new IdCache<>(0, 1000));
+		assertThrows(IllegalArgumentException.class, () -> new IdCache<>(10, 0));
+	}
+}
@@ -2,8 +2,18 @@ package fr.snasello.datas.es;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.Test;
 
@@ -35,6 +45,59 @@ public class IndexNameSupplierFactoryTest {
 		assertNotNull(IndexNameSupplierFactory.yearlyIndexNameSupplier("test-index-").get());
 	}
 	
+	@Test
+	public void indexNameSupplierWithClock() {
+		AtomicLong clock = new AtomicLong(LocalDate.of(2019, 1, 31).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli());
+		Supplier<String> supplier = IndexNameSupplierFactory.indexNameSupplier("test-index-", "yyyy.MM.dd", clock::get);
+		String name = supplier.get();
+		assertEquals("test-index-2019.01.31", name);
+		clock.addAndGet(TimeUnit.HOURS.toMillis(23));
+		assertSame(name, supplier.get());
+		clock.addAndGet(TimeUnit.HOURS.toMillis(1));
+		assertEquals("test-index-2019.02.01", supplier.get());
+		clock.set(LocalDate.of(1969, 12, 31).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() + 1);
+		assertEquals("test-index-1969.12.31", supplier.get());
+	}
+	
+	@Test
+	public void indexNameSupplierCached() {
+		AtomicReference<LocalDate> date = new AtomicReference<>(LocalDate.of(2019, 1, 1));
+		Supplier<String> supplier = IndexNameSupplierFactory.monthlyIndexNameSupplier("test-index-", date::get);
+		String name = supplier.get();
+		assertSame(name, supplier.get());
+		date.set(LocalDate.of(2019, 2, 1));
+		assertEquals("test-index-2019.02", supplier.get());
+	}
+	
+	@Test
+	public void indexNameRouter() {
+		Function<LocalDate, String> router = IndexNameSupplierFactory.dailyIndexNameRouter("test-index-", 
+				d -> d.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli() + 1);
+		String name = router.apply(LocalDate.of(2019, 1, 1));
+		assertEquals("test-index-2019.01.01", name);
+		assertEquals("test-index-2018.12.31", router.apply(LocalDate.of(2018, 12, 31)));
+		assertSame(name, router.apply(LocalDate.of(2019, 1, 1)));
+		
+		assertEquals("test-index-2019.02", IndexNameSupplierFactory.<Long>monthlyIndexNameRouter("test-index-", t -> t)
+				.apply(LocalDate.of(2019, 2, 28).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli()));
+		assertEquals("test-index-2019", IndexNameSupplierFactory.<Long>yearlyIndexNameRouter("test-index-", t -> t)
+				.apply(LocalDate.of(2019, 2, 28).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli()));
+	}
+	
+	@Test
+	public void indexNames() {
+		Instant from = LocalDate.of(2019, 1, 30).atStartOfDay(ZoneOffset.UTC).toInstant().plusSeconds(3600);
+		Instant to = LocalDate.of(2019, 2, 2).atStartOfDay(ZoneOffset.UTC).toInstant();
+		assertEquals(Arrays.asList("test-index-2019.01.30", "test-index-2019.01.31", "test-index-2019.02.01", "test-index-2019.02.02"), 
+				IndexNameSupplierFactory.indexNames("test-index-", "yyyy.MM.dd", from, to));
+		assertEquals(Arrays.asList("test-index-2019.01", "test-index-2019.02"), 
+				IndexNameSupplierFactory.indexNames("test-index-", "yyyy.MM", from, to));
+		assertEquals(Arrays.asList("test-index-2019.01.30"), 
+				IndexNameSupplierFactory.indexNames("test-index-", "yyyy.MM.dd", from, from));
+		assertThrows(IllegalArgumentException.class, () -> IndexNameSupplierFactory.indexNames("test-index-", "yyyy.MM.dd", to, from));
+		assertThrows(NullPointerException.class, () -> IndexNameSupplierFactory.indexNames("test-index-", "yyyy.MM.dd", null, from));
+	}
+	
 	@Test
 	public void indexNameSupplier() {
 		assertNotNull(IndexNameSupplierFactory.indexNameSupplier("test-index-", "yyyy.MM.dd").get());
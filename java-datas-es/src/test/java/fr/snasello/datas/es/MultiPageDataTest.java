@@ -0,0 +1,47 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.junit.jupiter.api.Test;
+
+import fr.snasello.datas.model.Page;
+import fr.snasello.datas.model.PageData;
+
+public class MultiPageDataTest {
+
+	@Test
+	public void testGet() throws IOException {
+		PageQuery<String> query1 = new PageQuery<>(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), hit -> hit.getId());
+		PageQuery<String> query2 = new PageQuery<>(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), hit -> hit.getId());
+		PageData<String> datas1 = new PageData<>(query1.getPage(), 2, Arrays.asList("1", "2"));
+		IllegalStateException failure = new IllegalStateException("fail");
+		
+		MultiPageData multiPageData = new MultiPageData(
+				Arrays.asList(query1, query2), 
+				Arrays.asList(datas1, null), 
+				Arrays.asList(null, failure));
+		
+		assertEquals(datas1, multiPageData.get(query1));
+		assertFalse(multiPageData.getFailure(query1).isPresent());
+		assertThrows(IOException.class, () -> multiPageData.get(query2));
+		assertEquals(failure, multiPageData.getFailure(query2).get());
+		assertTrue(multiPageData.hasFailures());
+		
+		PageQuery<String> unknown = new PageQuery<>(QueryBuilders.matchAllQuery(), Page.firstPageWithLimit(10), Collections.emptyList(), hit -> hit.getId());
+		assertThrows(IllegalArgumentException.class, () -> multiPageData.get(unknown));
+	}
+	
+	@Test
+	public void testInvalid() {
+		assertThrows(IllegalArgumentException.class, () -> new MultiPageData(Collections.emptyList(), Arrays.asList((PageData<?>) null), Collections.emptyList()));
+		assertThrows(NullPointerException.class, () -> new PageQuery<>(QueryBuilders.matchAllQuery(), null, Collections.emptyList(), hit -> hit.getId()));
+	}
+}
@@ -0,0 +1,145 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PrefetchScrollIteratorTest {
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	public void setUp() {
+		executor = Executors.newSingleThreadExecutor();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testIterate() {
+		List<String> cleared = new CopyOnWriteArrayList<>();
+		PrefetchScrollIterator<Integer, String> iterator = new PrefetchScrollIterator<>(
+				new ScrollData<>(new ScrollInfo(30, "1"), Arrays.asList(1, 2)),
+				info -> "1".equals(info.getScrollId())
+					? new ScrollData<>(info.withScrollId("2"), Arrays.asList(3))
+					: new ScrollData<>(info.withScrollId("3"), Collections.emptyList()),
+				cleared::add,
+				this::toStrings, 2, executor);
+
+		List<String> datas = new ArrayList<>();
+		iterator.forEachRemaining(datas::add);
+		assertEquals(Arrays.asList("1", "2", "3"), datas);
+		assertFalse(iterator.hasNext());
+		assertThrows(NoSuchElementException.class, iterator::next);
+
+		iterator.close();
+		assertTrue(cleared.isEmpty());
+	}
+
+	@Test
+	public void testEmpty() {
+		List<String> cleared = new CopyOnWriteArrayList<>();
+		PrefetchScrollIterator<Integer, String> iterator = new PrefetchScrollIterator<>(
+				new ScrollData<>(new ScrollInfo(30, "1"), Collections.emptyList()),
+				info -> { throw new IOException("should not be called"); },
+				cleared::add,
+				this::toStrings, 2, executor);
+
+		assertFalse(iterator.hasNext());
+		iterator.close();
+		assertTrue(cleared.isEmpty());
+	}
+
+	@Test
+	public void testPrefetchIsBounded() throws InterruptedException {
+		AtomicInteger fetched = new AtomicInteger();
+		CountDownLatch depthReached = new CountDownLatch(3);
+		List<String> cleared = new CopyOnWriteArrayList<>();
+		PrefetchScrollIterator<Integer, String> iterator = new PrefetchScrollIterator<>(
+				new ScrollData<>(new ScrollInfo(30, "1"), Arrays.asList(0)),
+				info -> {
+					depthReached.countDown();
+					return new ScrollData<>(info.withScrollId("2"), Arrays.asList(fetched.incrementAndGet()));
+				},
+				cleared::add,
+				this::toStrings, 2, executor);
+
+		// 2 batches in the queue and 1 waiting for a place
+		assertTrue(depthReached.await(5, TimeUnit.SECONDS));
+		Thread.sleep(50);
+		assertEquals(3, fetched.get());
+
+		assertEquals("0", iterator.next());
+		assertEquals("1", iterator.next());
+
+		iterator.close();
+		assertFalse(iterator.hasNext());
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList("2"), cleared);
+	}
+
+	@Test
+	public void testFetchFailure() {
+		List<String> cleared = new CopyOnWriteArrayList<>();
+		PrefetchScrollIterator<Integer, String> iterator = new PrefetchScrollIterator<>(
+				new ScrollData<>(new ScrollInfo(30, "1"), Arrays.asList(1)),
+				info -> { throw new IOException("fail"); },
+				cleared::add,
+				this::toStrings, 2, executor);
+
+		assertEquals("1", iterator.next());
+		assertThrows(UncheckedIOException.class, iterator::hasNext);
+		assertFalse(iterator.hasNext());
+		assertEquals(Arrays.asList("1"), cleared);
+	}
+
+	@Test
+	public void testFetchError() {
+		List<String> cleared = new CopyOnWriteArrayList<>();
+		PrefetchScrollIterator<Integer, String> iterator = new PrefetchScrollIterator<>(
+				new ScrollData<>(new ScrollInfo(30, "1"), Arrays.asList(1)),
+				info -> { throw new AssertionError("fail"); },
+				cleared::add,
+				this::toStrings, 2, executor);
+
+		assertEquals("1", iterator.next());
+		assertThrows(AssertionError.class, iterator::hasNext);
+		assertFalse(iterator.hasNext());
+		assertEquals(Arrays.asList("1"), cleared);
+	}
+
+	@Test
+	public void testInvalidDepth() {
+		assertThrows(IllegalArgumentException.class, () -> new PrefetchScrollIterator<>(
+				new ScrollData<>(new ScrollInfo(30, "1"), Arrays.asList(1)),
+				info -> null, id -> {}, this::toStrings, 0, executor));
+	}
+
+	private List<String> toStrings(List<Integer> values) {
+		return values.stream().map(String::valueOf).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,53 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.jupiter.api.Test;
+
+public class ProjectionTest {
+
+	@Test
+	public void all() {
+		SearchSourceBuilder searchSourceBuilder = Projection.ALL.apply(new SearchSourceBuilder());
+		assertNull(searchSourceBuilder.fetchSource());
+		assertTrue(Projection.ALL.isFetchSource());
+	}
+	
+	@Test
+	public void includes() {
+		SearchSourceBuilder searchSourceBuilder = Projection.includes("name", "date").apply(new SearchSourceBuilder());
+		assertTrue(searchSourceBuilder.fetchSource().fetchSource());
+		assertArrayEquals(new String[] {"name", "date"}, searchSourceBuilder.fetchSource().includes());
+		assertEquals(0, searchSourceBuilder.fetchSource().excludes().length);
+	}
+	
+	@Test
+	public void excludes() {
+		SearchSourceBuilder searchSourceBuilder = Projection.excludes("content").apply(new SearchSourceBuilder());
+		assertTrue(searchSourceBuilder.fetchSource().fetchSource());
+		assertArrayEquals(new String[] {"content"}, searchSourceBuilder.fetchSource().excludes());
+	}
+	
+	@Test
+	public void docValueFields() {
+		Projection projection = Projection.docValueFields("name", "date");
+		SearchSourceBuilder searchSourceBuilder = projection.apply(new SearchSourceBuilder());
+		assertFalse(searchSourceBuilder.fetchSource().fetchSource());
+		assertEquals(2, searchSourceBuilder.docValueFields().size());
+		assertEquals(Arrays.asList("name", "date"), projection.getDocValueFields());
+	}
+	
+	@Test
+	public void storedFields() {
+		SearchSourceBuilder searchSourceBuilder = Projection.storedFields("name").apply(new SearchSourceBuilder());
+		assertFalse(searchSourceBuilder.fetchSource().fetchSource());
+		assertEquals(Arrays.asList("name"), searchSourceBuilder.storedFields().fieldNames());
+	}
+}
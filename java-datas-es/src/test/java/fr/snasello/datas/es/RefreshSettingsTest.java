@@ -0,0 +1,30 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.junit.jupiter.api.Test;
+
+public class RefreshSettingsTest {
+
+	@Test
+	public void testSettings() {
+		assertEquals(RefreshPolicy.IMMEDIATE, RefreshSettings.IMMEDIATE.getRefreshPolicy());
+		assertFalse(RefreshSettings.IMMEDIATE.isGroupCommit());
+		assertEquals(RefreshPolicy.WAIT_UNTIL, RefreshSettings.WAIT_UNTIL.getRefreshPolicy());
+		assertFalse(RefreshSettings.WAIT_UNTIL.isGroupCommit());
+
+		RefreshSettings groupCommit = RefreshSettings.groupCommit(20);
+		assertTrue(groupCommit.isGroupCommit());
+		assertEquals(20, groupCommit.getGroupCommitWindowMillis());
+		assertEquals(RefreshPolicy.NONE, groupCommit.getRefreshPolicy());
+	}
+
+	@Test
+	public void testInvalidWindow() {
+		assertThrows(IllegalArgumentException.class, () -> RefreshSettings.groupCommit(0));
+	}
+}
@@ -1,6 +1,9 @@
 package fr.snasello.datas.es;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
 
 import org.junit.jupiter.api.Test;
 
@@ -21,4 +24,20 @@ public class ScrollInfoTest {
 		assertEquals(106, scrollInfo.getKeepAliveSecond());
 		assertEquals("789", scrollInfo.getScrollId());
 	}
+	
+	@Test
+	public void testBatchSize() {
+		ScrollInfo scrollInfo = new ScrollInfo(106, null, 500);
+		assertEquals(500, scrollInfo.getBatchSize());
+		assertTrue(scrollInfo.getSearchAfter().isEmpty());
+		assertEquals(500, scrollInfo.withScrollId("789").getBatchSize());
+	}
+	
+	@Test
+	public void testWithSearchAfter() {
+		ScrollInfo scrollInfo = new ScrollInfo(106, null, 500).withSearchAfter(Arrays.asList("name", "12"), 250);
+		assertEquals(250, scrollInfo.getBatchSize());
+		assertEquals(Arrays.asList("name", "12"), scrollInfo.getSearchAfter());
+		assertEquals(106, scrollInfo.getKeepAliveSecond());
+	}
 }
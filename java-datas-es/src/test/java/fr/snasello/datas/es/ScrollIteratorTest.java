@@ -0,0 +1,80 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.jupiter.api.Test;
+
+public class ScrollIteratorTest {
+
+	@Test
+	public void testIterate() throws IOException {
+		List<String> cleared = new ArrayList<>();
+		ScrollIterator<String> iterator = new ScrollIterator<>(
+				new ScrollData<>(new ScrollInfo(30, "1"), Arrays.asList("a", "b")),
+				info -> "1".equals(info.getScrollId()) 
+					? new ScrollData<>(info.withScrollId("2"), Arrays.asList("c"))
+					: new ScrollData<>(info.withScrollId("3"), Collections.emptyList()),
+				cleared::add);
+		
+		List<String> datas = new ArrayList<>();
+		iterator.forEachRemaining(datas::add);
+		assertEquals(Arrays.asList("a", "b", "c"), datas);
+		assertFalse(iterator.hasNext());
+		assertThrows(NoSuchElementException.class, iterator::next);
+		
+		iterator.close();
+		assertTrue(cleared.isEmpty());
+	}
+	
+	@Test
+	public void testEmpty() throws IOException {
+		List<String> cleared = new ArrayList<>();
+		ScrollIterator<String> iterator = new ScrollIterator<>(
+				new ScrollData<>(new ScrollInfo(30, "1"), Collections.emptyList()),
+				info -> { throw new IOException("should not be called"); },
+				cleared::add);
+		
+		assertFalse(iterator.hasNext());
+		iterator.close();
+		assertTrue(cleared.isEmpty());
+	}
+	
+	@Test
+	public void testCloseBeforeEnd() throws IOException {
+		List<String> cleared = new ArrayList<>();
+		ScrollIterator<String> iterator = new ScrollIterator<>(
+				new ScrollData<>(new ScrollInfo(30, "1"), Arrays.asList("a", "b")),
+				info -> new ScrollData<>(info.withScrollId("2"), Arrays.asList("c")),
+				cleared::add);
+		
+		assertEquals("a", iterator.next());
+		iterator.close();
+		assertEquals(Arrays.asList("1"), cleared);
+		assertFalse(iterator.hasNext());
+		
+		iterator.close();
+		assertEquals(Arrays.asList("1"), cleared);
+	}
+	
+	@Test
+	public void testFetchFailure() {
+		ScrollIterator<String> iterator = new ScrollIterator<>(
+				new ScrollData<>(new ScrollInfo(30, "1"), Arrays.asList("a")),
+				info -> { throw new IOException("fail"); },
+				id -> {});
+		
+		assertEquals("a", iterator.next());
+		assertThrows(UncheckedIOException.class, iterator::hasNext);
+	}
+}
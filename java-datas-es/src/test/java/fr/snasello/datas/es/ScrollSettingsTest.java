@@ -0,0 +1,61 @@
+package fr.snasello.datas.es;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class ScrollSettingsTest {
+
+	@Test
+	public void testNew() {
+		ScrollSettings settings = new ScrollSettings(1000, 60);
+		assertEquals(1000, settings.getBatchSize());
+		assertEquals(60, settings.getKeepAliveSecond());
+		assertFalse(settings.isAdaptive());
+		assertEquals(1000, settings.nextBatchSize(1000, 1000, 1024 * 1024, 5000));
+	}
+	
+	@Test
+	public void testAdaptive() {
+		ScrollSettings settings = ScrollSettings.adaptive(100, 5000, 1024 * 1024, 200);
+		assertTrue(settings.isAdaptive());
+		assertEquals(100, settings.getBatchSize());
+		assertEquals(100, settings.getMinBatchSize());
+		assertEquals(5000, settings.getMaxBatchSize());
+		assertEquals(1024 * 1024, settings.getMaxBatchBytes());
+		assertEquals(200, settings.getTargetLatencyMillis());
+	}
+	
+	@Test
+	public void testNextBatchSize() {
+		ScrollSettings settings = ScrollSettings.adaptive(100, 5000, 1024 * 1024, 200);
+		// fast and full : grow
+		assertEquals(200, settings.nextBatchSize(100, 100, 100 * 100, 50));
+		// fast but not full : same
+		assertEquals(100, settings.nextBatchSize(100, 80, 80 * 100, 50));
+		// near the target : same
+		assertEquals(400, settings.nextBatchSize(400, 400, 400 * 100, 150));
+		// slow : shrink, not under the minimum
+		assertEquals(200, settings.nextBatchSize(400, 400, 400 * 100, 500));
+		assertEquals(100, settings.nextBatchSize(150, 150, 150 * 100, 500));
+		// not over the maximum
+		assertEquals(5000, settings.nextBatchSize(4000, 4000, 4000 * 100, 10));
+		// memory ceiling : 1mb with 1kb per hit
+		assertEquals(1024, settings.nextBatchSize(2000, 2000, 2000 * 1024, 10));
+		// empty batch : same
+		assertEquals(300, settings.nextBatchSize(300, 0, 0, 10));
+	}
+	
+	@Test
+	public void testInvalid() {
+		assertThrows(IllegalArgumentException.class, () -> new ScrollSettings(0, 60));
+		assertThrows(IllegalArgumentException.class, () -> new ScrollSettings(100, 0));
+		assertThrows(IllegalArgumentException.class, () -> ScrollSettings.adaptive(0, 5000, 1024, 200));
+		assertThrows(IllegalArgumentException.class, () -> ScrollSettings.adaptive(100, 50, 1024, 200));
+		assertThrows(IllegalArgumentException.class, () -> ScrollSettings.adaptive(100, 5000, 0, 200));
+		assertThrows(IllegalArgumentException.class, () -> ScrollSettings.adaptive(100, 5000, 1024, 0));
+	}
+}
@@ -0,0 +1,90 @@
+package fr.snasello.datas.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Define a page with a limit (size of the page) and a cursor (the sort values of the last element of the previous page).
+ * <p>
+ * Unlike {@link Page} there is no offset, the next page start after the cursor, so the cost of a deep page
+ * is the same as the first page.
+ * </p>
+ * <p>
+ * To construct the first page, you can use de factory method {@link #firstPageWithLimit(int)}
+ * </p>
+ * 
+ * @author Samuel Nasello
+ */
+public class CursorPage {
+
+	private final List<Object> cursor;
+	
+	private final int limit;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param cursor the cursor, empty for the first page
+	 * @param limit the size of the page
+	 * @throws NullPointerException if {@code cursor} is null
+	 */
+	public CursorPage(List<Object> cursor, int limit) {
+		super();
+		
+		Objects.requireNonNull(cursor);
+		
+		this.cursor = Collections.unmodifiableList(cursor);
+		this.limit = limit;
+	}
+	
+	/**
+	 * Construct a first CursorPage (no cursor) with a limit.
+	 * 
+	 * @param limit the size of the page
+	 * @return the first CursorPage
+	 */
+	public static CursorPage firstPageWithLimit(
+			final int limit) {
+		
+		return new CursorPage(Collections.emptyList(), limit);
+	}
+	
+	/**
+	 * Get next page, start after the cursor, same limit.
+	 * 
+	 * @param cursor the sort values of the last element of this page
+	 * @return the next page
+	 * @throws NullPointerException if {@code cursor} is null
+	 */
+	public CursorPage nextPage(
+			final List<Object> cursor) {
+		
+		return new CursorPage(cursor, limit);
+	}
+	
+	/**
+	 * is the first page (no cursor).
+	 * @return true if first page
+	 */
+	public boolean isFirstPage() {
+		return cursor.isEmpty();
+	}
+
+	/**
+	 * get the cursor.
+	 * @return the cursor, empty for the first page
+	 */
+	public List<Object> getCursor() {
+		return cursor;
+	}
+
+	/**
+	 * get the limit.
+	 * @return the limit
+	 */
+	public int getLimit() {
+		return limit;
+	}
+
+}
@@ -0,0 +1,110 @@
+package fr.snasello.datas.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Define a subset of a larger data set which was truncate by a {@code CursorPage}.
+ * 
+ * <p>the next page is present while the data set is not fully read</p>
+ * <p>the totalSize represent the size of the complete dataset</p>
+ * 
+ * @param <T> the type of Object in the dataset
+ * 
+ * @author Samuel Nasello
+ */
+public class CursorPageData<T> {
+
+	private final CursorPage page;
+	
+	private final CursorPage nextPage;
+	
+	private final long totalSize;
+	
+	private final List<T> datas;
+	
+	/**
+	 * Constructor.
+	 * @param page the page, cannot be null
+	 * @param nextPage the next page, null if there is no more datas
+	 * @param totalSize the totalsize of the data
+	 * @param datas the datas, cannot be null
+	 * @throws NullPointerException if {@code page} or {@code datas} is null
+	 */
+	public CursorPageData(CursorPage page, CursorPage nextPage, long totalSize, List<T> datas) {
+		super();
+
+		Objects.requireNonNull(page);
+		Objects.requireNonNull(datas);
+		
+		this.page = page;
+		this.nextPage = nextPage;
+		this.totalSize = totalSize;
+		this.datas = datas;
+	}
+
+	/**
+	 * get the page.
+	 * @return the page
+	 */
+	public CursorPage getPage() {
+		return page;
+	}
+	
+	/**
+	 * get the next page.
+	 * @return the next page, or empty if there is no more datas
+	 */
+	public Optional<CursorPage> getNextPage() {
+		return Optional.ofNullable(nextPage);
+	}
+
+	/**
+	 * get the total size.
+	 * @return the total size
+	 */
+	public long getTotalSize() {
+		return totalSize;
+	}
+
+	/**
+	 * return datas.
+	 * @return the datas
+	 */
+	public List<T> getDatas() {
+		return datas;
+	}
+
+	/**
+	 * Transform current type of datas to a new type.
+	 * 
+	 * @param mapper A mapper
+	 * @param <U> The new type
+	 * @return {@code CursorPageData} with the new type
+	 */
+	public <U> CursorPageData<U> map(
+			Function<? super T, ? extends U> mapper){
+		
+		List<U> newDatas = datas.stream()
+				.map(mapper)
+				.collect(Collectors.toList());
+		return new CursorPageData<>(page, nextPage, totalSize, newDatas);
+	}
+	
+	/**
+	 * Return a {@code CursorPageData} with no data.
+	 * 
+	 * @param page the page
+	 * @param <T> the type of Object in the dataset
+	 * @return an empty {@code CursorPageData}
+	 */
+	public static <T> CursorPageData<T> empty(
+			CursorPage page) {
+		
+		return new CursorPageData<>(page, null, 0L, Collections.emptyList());
+	}
+}
@@ -12,7 +12,8 @@ import java.util.stream.Collectors;
  * Define a subset of a larger data set, for example from a database, which was truncate by a {@code Page}.
  * 
  * <p>the {@code Page} is Optional so it is possible to return a complete dataset with the same object</p>
- * <p>the totalSize represent the size of the complete dataset</p>
+ * <p>the totalSize represent the size of the complete dataset, 
+ * if it is not exact the complete dataset contains at least totalSize datas</p>
  * 
  * @param <T> the type of Object in the dataset
  * 
@@ -24,6 +25,8 @@ public class PageData<T> {
 	
 	private final long totalSize;
 	
+	private final boolean totalSizeExact;
+	
 	private final List<T> datas;
 	
 	/**
@@ -34,12 +37,25 @@ public class PageData<T> {
 	 * @throws NullPointerException if {@code datas} is null
 	 */
 	public PageData(Page page, long totalSize, List<T> datas) {
+		this(page, totalSize, true, datas);
+	}
+	
+	/**
+	 * Constructor.
+	 * @param page the page, can be null
+	 * @param totalSize the totalsize of the data, or the minimum totalsize if not exact
+	 * @param totalSizeExact if the totalsize is exact
+	 * @param datas the datas, cannot be null
+	 * @throws NullPointerException if {@code datas} is null
+	 */
+	public PageData(Page page, long totalSize, boolean totalSizeExact, List<T> datas) {
 		super();
 
 		Objects.requireNonNull(datas);
 		
 		this.page = page;
 		this.totalSize = totalSize;
+		this.totalSizeExact = totalSizeExact;
 		this.datas = datas;
 	}
 
@@ -58,6 +74,14 @@ public class PageData<T> {
 	public long getTotalSize() {
 		return totalSize;
 	}
+	
+	/**
+	 * is the total size exact, or only a lower bound.
+	 * @return true if the total size is exact
+	 */
+	public boolean isTotalSizeExact() {
+		return totalSizeExact;
+	}
 
 	/**
 	 * return datas.
@@ -80,7 +104,7 @@ public class PageData<T> {
 		List<U> newDatas = datas.stream()
 				.map(mapper)
 				.collect(Collectors.toList());
-		return new PageData<>(page, totalSize, newDatas);
+		return new PageData<>(page, totalSize, totalSizeExact, newDatas);
 	}
 	
 	/**
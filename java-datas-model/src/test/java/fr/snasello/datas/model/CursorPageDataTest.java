@@ -0,0 +1,43 @@
+package fr.snasello.datas.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class CursorPageDataTest {
+
+	@Test
+	public void testNew() {
+		CursorPage page = CursorPage.firstPageWithLimit(2);
+		CursorPageData<String> pageData = new CursorPageData<>(page, page.nextPage(Arrays.asList("qwerty")), 25, Arrays.asList("azerty","qwerty"));
+		
+		assertEquals(25, pageData.getTotalSize());
+		assertEquals(page, pageData.getPage());
+		assertEquals(Arrays.asList("qwerty"), pageData.getNextPage().get().getCursor());
+		assertEquals(Arrays.asList("azerty","qwerty"), pageData.getDatas());
+	}
+	
+	@Test
+	public void testEmpty() {
+		CursorPageData<String> pageData = CursorPageData.empty(CursorPage.firstPageWithLimit(32));
+		
+		assertEquals(0, pageData.getTotalSize());
+		assertEquals(32, pageData.getPage().getLimit());
+		assertFalse(pageData.getNextPage().isPresent());
+		assertTrue(pageData.getDatas().isEmpty());
+	}
+	
+	@Test
+	public void testMap() {
+		CursorPageData<String> pageData = new CursorPageData<>(CursorPage.firstPageWithLimit(2), null, 25, Arrays.asList("azerty","qwerty"));
+		
+		CursorPageData<String> pageDataMapped = pageData.map(value -> value + "UPD");
+		
+		assertEquals(Arrays.asList("azerty","qwerty"), pageData.getDatas());
+		assertEquals(Arrays.asList("azertyUPD","qwertyUPD"), pageDataMapped.getDatas());
+	}
+}
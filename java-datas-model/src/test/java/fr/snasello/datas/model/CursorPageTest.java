@@ -0,0 +1,38 @@
+package fr.snasello.datas.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class CursorPageTest {
+
+	@Test
+	public void testNew() {
+		CursorPage page = new CursorPage(Arrays.asList("azerty", 12L), 32);
+		assertEquals(32, page.getLimit());
+		assertEquals(Arrays.asList("azerty", 12L), page.getCursor());
+		assertFalse(page.isFirstPage());
+		assertThrows(NullPointerException.class, () -> new CursorPage(null, 32));
+	}
+	
+	@Test
+	public void testFirstPage() {
+		CursorPage page = CursorPage.firstPageWithLimit(10);
+		assertEquals(10, page.getLimit());
+		assertTrue(page.getCursor().isEmpty());
+		assertTrue(page.isFirstPage());
+	}
+	
+	@Test
+	public void testNextPage() {
+		CursorPage page = CursorPage.firstPageWithLimit(10);
+		CursorPage nextPage = page.nextPage(Arrays.asList("qwerty"));
+		assertEquals(Arrays.asList("qwerty"), nextPage.getCursor());
+		assertEquals(10, nextPage.getLimit());
+	}
+}
@@ -1,6 +1,7 @@
 package fr.snasello.datas.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
@@ -14,6 +15,7 @@ public class PageDataTest {
 		PageData<String> pageData = new PageData<>(new Page(3, 43), 25, Arrays.asList("azerty","qwerty"));
 		
 		assertEquals(25, pageData.getTotalSize());
+		assertTrue(pageData.isTotalSizeExact());
 		
 		Page page = pageData.getPage().get();
 		assertEquals(43, page.getLimit());
@@ -45,4 +47,13 @@ public class PageDataTest {
 		assertEquals(Arrays.asList("azertyUPD","qwertyUPD"), pageDataMapped.getDatas());
 		
 	}
+	
+	@Test
+	public void testNotExactTotalSize() {
+		PageData<String> pageData = new PageData<>(new Page(0, 2), 2, false, Arrays.asList("azerty","qwerty"));
+		
+		assertEquals(2, pageData.getTotalSize());
+		assertFalse(pageData.isTotalSizeExact());
+		assertFalse(pageData.map(value -> value + "UPD").isTotalSizeExact());
+	}
 }